@@ -0,0 +1,40 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates daemon threads named name-0, name-1, ... so that worker pools do not keep the
+ * JVM alive
+ * @author Kasper Luckow
+ *
+ */
+public class DaemonThreadFactory implements ThreadFactory {
+  private final String name;
+  private int count = 0;
+
+  public DaemonThreadFactory(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public synchronized Thread newThread(Runnable r) {
+    Thread t = new Thread(r, name + "-" + count++);
+    t.setDaemon(true);
+    return t;
+  }
+}
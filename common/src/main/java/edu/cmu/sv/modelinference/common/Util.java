@@ -21,11 +21,13 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
 import edu.cmu.sv.modelinference.common.api.LogHandler;
+import edu.cmu.sv.modelinference.common.parser.LogReaders;
 
 /**
  * @author Kasper Luckow
@@ -52,4 +54,28 @@ public class Util {
     formatter.printHelp(clz.getName(), opts);
     System.exit(exitVal);
   }
+
+  /**
+   * Restricts the readers of the tool to the time window given by the options, if any.
+   * A missing bound leaves that side of the window open.
+   */
+  public static void setTimeWindow(CommandLine cmd, String fromArg, String toArg) throws ParseException {
+    if(!cmd.hasOption(fromArg) && !cmd.hasOption(toArg))
+      return;
+    double from = getTime(cmd, fromArg, Double.NEGATIVE_INFINITY);
+    double to = getTime(cmd, toArg, Double.POSITIVE_INFINITY);
+    if(from > to)
+      throw new ParseException("Empty time window [" + from + ", " + to + "]");
+    LogReaders.setDefaultFactory(LogReaders.windowed(LogReaders.getDefaultFactory(), from, to));
+  }
+
+  private static double getTime(CommandLine cmd, String arg, double defaultTime) throws ParseException {
+    if(!cmd.hasOption(arg))
+      return defaultTime;
+    try {
+      return Double.parseDouble(cmd.getOptionValue(arg));
+    } catch(NumberFormatException e) {
+      throw new ParseException("Invalid time for -" + arg + ": " + cmd.getOptionValue(arg));
+    }
+  }
 }
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * @author Kasper Luckow
+ * A named numeric field of a log entry. Fields of entry classes are compiled once from a
+ * chain of getters (e.g. "getPosition.getX") into functions that call the getters
+ * directly, so reading a field costs neither reflection, a switch over the field nor
+ * boxing.
+ */
+public abstract class NumericField<T> {
+
+  private final String name;
+  private final String unit;
+
+  public NumericField(String name, String unit) {
+    this.name = name;
+    this.unit = unit;
+  }
+
+  public abstract double get(T entry);
+
+  public String getName() {
+    return this.name;
+  }
+
+  public String getUnit() {
+    return this.unit;
+  }
+
+  @Override
+  public String toString() {
+    return this.name + " [" + this.unit + "]";
+  }
+
+  /**
+   * @param getters getters without arguments separated by '.'. All but the last must return
+   * an object, the last must return a primitive number.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> NumericField<T> compile(Class<T> entryType, String name, String unit, String getters) {
+    String[] path = getters.split("\\.");
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    final List<Function<Object, Object>> chain = new ArrayList<>(path.length - 1);
+    Class<?> type = entryType;
+    try {
+      for(int i = 0; i < path.length; i++) {
+        Method getter = type.getMethod(path[i]);
+        Class<?> ret = getter.getReturnType();
+        MethodHandle handle = lookup.unreflect(getter);
+        if(i < path.length - 1) {
+          if(ret.isPrimitive())
+            throw new IllegalArgumentException(path[i] + " of " + type.getName() + " does not return an object");
+          CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+              MethodType.methodType(Function.class),
+              MethodType.methodType(Object.class, Object.class),
+              handle, MethodType.methodType(ret, type));
+          chain.add((Function<Object, Object>)site.getTarget().invoke());
+          type = ret;
+        } else {
+          if(!ret.isPrimitive() || ret == boolean.class || ret == char.class || ret == void.class)
+            throw new IllegalArgumentException(path[i] + " of " + type.getName() + " does not return a number");
+          CallSite site = LambdaMetafactory.metafactory(lookup, "applyAsDouble",
+              MethodType.methodType(ToDoubleFunction.class),
+              MethodType.methodType(double.class, Object.class),
+              handle, MethodType.methodType(double.class, type));
+          final ToDoubleFunction<Object> value = (ToDoubleFunction<Object>)site.getTarget().invoke();
+          return compose(name, unit, chain, value);
+        }
+      }
+    } catch (NoSuchMethodException e) {
+      throw new IllegalArgumentException("No getter " + e.getMessage() + " for field " + name, e);
+    } catch (IllegalArgumentException e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalArgumentException("Could not compile field " + name + " of " + entryType.getName(), e);
+    }
+    throw new IllegalArgumentException("No getters for field " + name);
+  }
+
+  private static <T> NumericField<T> compose(String name, String unit, final List<Function<Object, Object>> chain,
+      final ToDoubleFunction<Object> value) {
+    switch(chain.size()) {
+    case 0:
+      return new NumericField<T>(name, unit) {
+        @Override
+        public double get(T entry) {
+          return value.applyAsDouble(entry);
+        }
+      };
+    case 1:
+      final Function<Object, Object> first = chain.get(0);
+      return new NumericField<T>(name, unit) {
+        @Override
+        public double get(T entry) {
+          return value.applyAsDouble(first.apply(entry));
+        }
+      };
+    default:
+      return new NumericField<T>(name, unit) {
+        @Override
+        public double get(T entry) {
+          Object obj = entry;
+          for(int i = 0; i < chain.size(); i++)
+            obj = chain.get(i).apply(obj);
+          return value.applyAsDouble(obj);
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats;
+
+import edu.cmu.sv.modelinference.common.generators.EntryBlock;
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+import edu.cmu.sv.modelinference.common.parser.LogReader;
+
+/**
+ * @author Kasper Luckow
+ * Tracks a numeric field of the entries of any log format per producer. The values are
+ * handed to {@link #addValue(Object, double, double)} unboxed.
+ */
+public abstract class NumericValueTracker<T extends LogEntry, S> extends ValueTrackerProducer<T, S, Double> {
+
+  public static class DataPointsGenerator<T extends LogEntry> extends NumericValueTracker<T, DataPointCollection> {
+    private static final DataSetFactory<DataPointCollection> FACTORY = new DataSetFactory<DataPointCollection>() {
+      @Override
+      public DataPointCollection create(String producer) {
+        return new DataPointCollection();
+      }
+    };
+
+    public DataPointsGenerator(LogReader<T> logReader, NumericField<? super T> field) {
+      super(logReader, FACTORY, field);
+    }
+
+    @Override
+    public void addValue(DataPointCollection dataset, double time, double value) {
+      dataset.add(new DataPoint(time, value));
+    }
+  }
+
+  private final NumericField<? super T> field;
+
+  public NumericValueTracker(LogReader<T> logReader, DataSetFactory<S> dataFactory, NumericField<? super T> field) {
+    super(logReader, dataFactory);
+    this.field = field;
+  }
+
+  public NumericField<? super T> getField() {
+    return this.field;
+  }
+
+  @Override
+  public Double getData(T entry) {
+    return field.get(entry);
+  }
+
+  @Override
+  protected void addToDataSet(S dataSet, EntryBlock<T> block, int row) {
+    addValue(dataSet, block.getTimeColumn()[row], field.get(block.getEntry(row)));
+  }
+
+  @Override
+  public final void addToDataSet(S dataset, double time, Double data) {
+    addValue(dataset, time, data);
+  }
+
+  public abstract void addValue(S dataset, double time, double value);
+}
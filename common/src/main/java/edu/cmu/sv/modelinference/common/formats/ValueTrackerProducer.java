@@ -18,52 +18,85 @@ package edu.cmu.sv.modelinference.common.formats;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import edu.cmu.sv.modelinference.common.generators.BatchLogProcessor;
+import edu.cmu.sv.modelinference.common.generators.BatchingLogProcessor;
+import edu.cmu.sv.modelinference.common.generators.EntryBlock;
+import edu.cmu.sv.modelinference.common.generators.EntryColumns;
 import edu.cmu.sv.modelinference.common.generators.LogEntry;
-import edu.cmu.sv.modelinference.common.generators.LogProcessor;
 import edu.cmu.sv.modelinference.common.parser.LogReader;
 
 /**
  * @author Kasper Luckow
  *
  */
-public abstract class ValueTrackerProducer<T extends LogEntry, S, U> implements LogProcessor<T> {
+public abstract class ValueTrackerProducer<T extends LogEntry, S, U> implements BatchLogProcessor<T> {
   
   private Map<String, S> logproducer2dataset = new HashMap<>();
+  //Indexed by the producer index of the reader; null for producers not seen in this log
+  private final List<S> datasets = new ArrayList<>();
   private final LogReader<T> logReader;
+  private final BatchingLogProcessor<T> batcher;
   private final DataSetFactory<S> dataFactory;
   
   public ValueTrackerProducer(LogReader<T> logReader, DataSetFactory<S> dataFactory) {
+    this(logReader, dataFactory, null);
+  }
+
+  public ValueTrackerProducer(LogReader<T> logReader, DataSetFactory<S> dataFactory, EntryColumns<T> columns) {
     this.logReader = logReader;
-    this.logReader.addLogProcessor(this);
+    this.batcher = new BatchingLogProcessor<>(this, columns, logReader.getProducerDictionary());
+    this.logReader.addLogProcessor(batcher);
     this.dataFactory = dataFactory;
   }
 
   public Map<String, S> computeDataSet(File logFile) throws IOException {
     this.logproducer2dataset = new HashMap<>();
+    this.datasets.clear();
+    this.batcher.clear();
     this.logReader.parseLog(logFile);
+    this.batcher.flush();
     return this.logproducer2dataset;
   }
   
   @Override
-  public void process(T entry) {
-    if(logproducer2dataset == null)
-      logproducer2dataset = new HashMap<>();
-    
-    double timestamp = entry.getLogTime();
-    S dataSet = this.logproducer2dataset.get(entry.getLogProducerId());
-    if(dataSet == null) {
-      dataSet = dataFactory.create(entry.getLogProducerId());
-      this.logproducer2dataset.put(entry.getLogProducerId(), dataSet);
+  public void processBatch(EntryBlock<T> block) {
+    int[] producer = block.getProducerColumn();
+    for(int i = 0; i < block.size(); i++) {
+      int index = producer[i];
+      S dataSet = (index < datasets.size()) ? datasets.get(index) : null;
+      if(dataSet == null) {
+        String producerId = block.getProducerId(i);
+        dataSet = dataFactory.create(producerId);
+        this.logproducer2dataset.put(producerId, dataSet);
+        while(datasets.size() <= index)
+          datasets.add(null);
+        datasets.set(index, dataSet);
+      }
+      addToDataSet(dataSet, block, i);
     }
-    U data = getData(entry);
-    addToDataSet(dataSet, timestamp, data);
+  }
+
+  /**
+   * Adds the entry at the row of the block to the data set of its producer
+   */
+  protected void addToDataSet(S dataSet, EntryBlock<T> block, int row) {
+    addToDataSet(dataSet, block.getTimeColumn()[row], getData(block, row));
   }
   
   public abstract U getData(T entry);
+
+  /**
+   * Override to read the value straight from the columns of the block
+   */
+  public U getData(EntryBlock<T> block, int row) {
+    return getData(block.getEntry(row));
+  }
   
   public abstract void addToDataSet(S dataset, double time, U data);
 }
@@ -15,23 +15,21 @@
  */
 package edu.cmu.sv.modelinference.common.formats.autoresolver;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import edu.cmu.sv.modelinference.common.formats.DataPoint;
 import edu.cmu.sv.modelinference.common.formats.DataPointCollection;
 import edu.cmu.sv.modelinference.common.formats.DataSetFactory;
-import edu.cmu.sv.modelinference.common.formats.ValueTrackerProducer;
+import edu.cmu.sv.modelinference.common.formats.NumericField;
+import edu.cmu.sv.modelinference.common.formats.NumericValueTracker;
 import edu.cmu.sv.modelinference.common.parser.LogReader;
 
 /**
  * 
  * @author Kasper Luckow
  *
- * This class should be removed and made generic instead. Instead of a having a notion of "field" only for
- * ST, this should be generalized in which case we can use Data points generator for arbitrary log formats.
+ * Tracks one of the numeric fields of Autoresolver entries. The fields are compiled to
+ * direct getter calls (see {@link NumericField}).
  */
-public abstract class ARValueTracker<S> extends ValueTrackerProducer<AutoresolverEntry, S, Double> {
+public abstract class ARValueTracker<S> extends NumericValueTracker<AutoresolverEntry, S> {
   
   public static class ARDataPointsGenerator extends ARValueTracker<DataPointCollection> {
     private static final DataSetFactory<DataPointCollection> FACTORY = new DataSetFactory<DataPointCollection>() {
@@ -47,27 +45,26 @@ public abstract class ARValueTracker<S> extends ValueTrackerProducer<Autoresolve
     }
 
     @Override
-    public void addToDataSet(DataPointCollection dataset, double time, Double data) {
-      dataset.add(new DataPoint(time, data));
+    public void addValue(DataPointCollection dataset, double time, double value) {
+      dataset.add(new DataPoint(time, value));
     }
   }
   
-  //This is really ugly -- should have a tighter connection to the entry
-  //Currently only supports numeric types. It would be nice to also track string types e.g. AC_TYPE
   public static enum FIELD {
-    ALT("alt", "ft"),
-    ALT_RATE("alt_rate", "N/A"),
-    FUEL_WEIGHT("fueld", "N/A"),
-    GRND_SPEED("grnd_speed", "N/A"),
-    HEADING("heading", "N/A"),
-    IND_SPEED("indic_speed", "N/A"),
-    LAT("lat", "dg"),
-    LON("lon", "dg"),
-    TRUE_AIRSP("t_airspeed", "N/A"),
-    TRUE_COURSE("true_course", "N/A");
+    ALT("alt", "ft", "getAltitude"),
+    ALT_RATE("alt_rate", "N/A", "getAltitudeRateFpm"),
+    FUEL_WEIGHT("fueld", "N/A", "getFuelWeight"),
+    GRND_SPEED("grnd_speed", "N/A", "getGroundSpeed"),
+    HEADING("heading", "N/A", "getHeading"),
+    IND_SPEED("indic_speed", "N/A", "getIndicatedSpeed"),
+    LAT("lat", "dg", "getLatDegrees"),
+    LON("lon", "dg", "getLonDegrees"),
+    TRUE_AIRSP("t_airspeed", "N/A", "getTrueAirspeed"),
+    TRUE_COURSE("true_course", "N/A", "getTrueCourse");
     
     private final String id;
     private final String unit;
+    private final String getters;
     
     public String getId() {
       return this.id;
@@ -77,49 +74,25 @@ public abstract class ARValueTracker<S> extends ValueTrackerProducer<Autoresolve
       return this.unit;
     }
     
-    FIELD(String id, String unit) {
+    public NumericField<AutoresolverEntry> compile() {
+      return NumericField.compile(AutoresolverEntry.class, id, unit, getters);
+    }
+    
+    FIELD(String id, String unit, String getters) {
       this.id = id;
       this.unit = unit;
+      this.getters = getters;
     }
   }
   
   private final FIELD field;
   
   public ARValueTracker(FIELD field, LogReader<AutoresolverEntry> logReader, DataSetFactory<S> dataFactory) {
-    super(logReader, dataFactory);
+    super(logReader, dataFactory, field.compile());
     this.field = field;
   }
-  
-  private double getValue(AutoresolverEntry entry, FIELD f) {
-    switch(f) {
-    case ALT:
-      return entry.getAltitude();
-    case ALT_RATE:
-      return entry.getAltitudeRateFpm();
-    case FUEL_WEIGHT:
-      return entry.getFuelWeight();
-    case GRND_SPEED:
-      return entry.getGroundSpeed();
-    case HEADING:
-      return entry.getHeading();
-    case IND_SPEED:
-      return entry.getIndicatedSpeed();
-    case LAT:
-      return entry.getLatDegrees();
-    case LON:
-      return entry.getLonDegrees();
-    case TRUE_AIRSP:
-      return entry.getTrueAirspeed();
-    case TRUE_COURSE:
-      return entry.getTrueCourse();
-    default:
-      throw new RuntimeException("Does not support field type " + f.id);
-    }
-  }
 
-  @Override
-  public Double getData(AutoresolverEntry entry) {
-    double val = getValue(entry, field);
-    return val;
+  public FIELD getTrackedField() {
+    return this.field;
   }
 }
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.autoresolver;
+
+import edu.cmu.sv.modelinference.common.parser.cache.ColumnBlock;
+import edu.cmu.sv.modelinference.common.parser.cache.ColumnType;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryCodec;
+
+/**
+ * @author Kasper Luckow
+ */
+public class AutoresolverEntryCodec implements EntryCodec<AutoresolverEntry> {
+
+  public static final int TIME = 0, FLIGHT_NAME = 1, ALTITUDE = 2, ALTITUDE_RATE_FPM = 3,
+      FUEL_WEIGHT = 4, GROUND_SPEED = 5, HEADING = 6, INDICATED_SPEED = 7, LAT_DEGREES = 8,
+      LON_DEGREES = 9, TRUE_AIRSPEED = 10, TRUE_COURSE = 11;
+
+  private static final ColumnType[] COLUMNS = {
+      ColumnType.DOUBLE, ColumnType.STRING, ColumnType.DOUBLE, ColumnType.DOUBLE, ColumnType.DOUBLE,
+      ColumnType.DOUBLE, ColumnType.DOUBLE, ColumnType.DOUBLE, ColumnType.DOUBLE, ColumnType.DOUBLE,
+      ColumnType.DOUBLE, ColumnType.DOUBLE };
+
+  private static AutoresolverEntryCodec instance = null;
+
+  public static AutoresolverEntryCodec getInstance() {
+    if(instance == null) {
+      instance = new AutoresolverEntryCodec();
+    }
+    return instance;
+  }
+
+  private AutoresolverEntryCodec() { }
+
+  @Override
+  public String getName() {
+    return "autoresolver-v1";
+  }
+
+  @Override
+  public ColumnType[] getColumnTypes() {
+    return COLUMNS.clone();
+  }
+
+  @Override
+  public void encode(AutoresolverEntry entry, ColumnBlock block, int row) {
+    block.setDouble(TIME, row, entry.getLogTime());
+    block.setString(FLIGHT_NAME, row, entry.getFlightName());
+    block.setDouble(ALTITUDE, row, entry.getAltitude());
+    block.setDouble(ALTITUDE_RATE_FPM, row, entry.getAltitudeRateFpm());
+    block.setDouble(FUEL_WEIGHT, row, entry.getFuelWeight());
+    block.setDouble(GROUND_SPEED, row, entry.getGroundSpeed());
+    block.setDouble(HEADING, row, entry.getHeading());
+    block.setDouble(INDICATED_SPEED, row, entry.getIndicatedSpeed());
+    block.setDouble(LAT_DEGREES, row, entry.getLatDegrees());
+    block.setDouble(LON_DEGREES, row, entry.getLonDegrees());
+    block.setDouble(TRUE_AIRSPEED, row, entry.getTrueAirspeed());
+    block.setDouble(TRUE_COURSE, row, entry.getTrueCourse());
+  }
+
+  @Override
+  public AutoresolverEntry decode(ColumnBlock block, int row) {
+    return new AutoresolverEntry(block.getDouble(TIME, row),
+        block.getString(FLIGHT_NAME, row),
+        block.getDouble(ALTITUDE, row),
+        block.getDouble(ALTITUDE_RATE_FPM, row),
+        block.getDouble(FUEL_WEIGHT, row),
+        block.getDouble(GROUND_SPEED, row),
+        block.getDouble(HEADING, row),
+        block.getDouble(INDICATED_SPEED, row),
+        block.getDouble(LAT_DEGREES, row),
+        block.getDouble(LON_DEGREES, row),
+        block.getDouble(TRUE_AIRSPEED, row),
+        block.getDouble(TRUE_COURSE, row));
+  }
+}
@@ -15,19 +15,29 @@
  */
 package edu.cmu.sv.modelinference.common.formats.autoresolver;
 
-import edu.cmu.sv.modelinference.common.generators.LogParser;
+import edu.cmu.sv.modelinference.common.generators.MalformedReason;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
 import edu.cmu.sv.modelinference.common.generators.ParserException;
+import edu.cmu.sv.modelinference.common.parser.cache.CacheableLogParser;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryCodec;
 
 /**
  * @author Kasper Luckow
  */
-public class AutoresolverParser implements LogParser<AutoresolverEntry> {
+public class AutoresolverParser implements CacheableLogParser<AutoresolverEntry> {
 
   @Override
   public AutoresolverEntry parse(String raw) throws ParserException {
-    String[] entry = raw.split(",");
+    ParseResult<AutoresolverEntry> result = new ParseResult<>();
+    tryParse(raw, result);
+    return result.getOrThrow();
+  }
+
+  @Override
+  public boolean tryParse(CharSequence raw, ParseResult<AutoresolverEntry> result) {
+    String[] entry = raw.toString().split(",");
     if(entry.length != 12) //Not a valid entry (e.g. newline)
-      throw new ParserException("Invalid entry length");
+      return result.reject(MalformedReason.ofInvalidLength(raw));
     try {      
       double time = Double.valueOf(entry[0]);
       String flightName = entry[1];
@@ -41,9 +51,14 @@ public class AutoresolverParser implements LogParser<AutoresolverEntry> {
       double lonDegrees = Double.valueOf(entry[9]);
       double trueAirspeed = Double.valueOf(entry[10]);
       double trueCourse = Double.valueOf(entry[11]);
-      return new AutoresolverEntry(time, flightName, altitude, altitudeRateFpm, fuelWeight, groundSpeed, heading, indicatedSpeed, latDegrees, lonDegrees, trueAirspeed, trueCourse);      
+      return result.accept(new AutoresolverEntry(time, flightName, altitude, altitudeRateFpm, fuelWeight, groundSpeed, heading, indicatedSpeed, latDegrees, lonDegrees, trueAirspeed, trueCourse));
     } catch (NumberFormatException e) { // Not a valid entry
-      throw new ParserException(e);
+      return result.reject(MalformedReason.NUMBER_FORMAT);
     }
   }
+
+  @Override
+  public EntryCodec<AutoresolverEntry> getCodec() {
+    return AutoresolverEntryCodec.getInstance();
+  }
 }
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.autoresolver;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import edu.cmu.sv.modelinference.common.generators.MalformedReason;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
+import edu.cmu.sv.modelinference.common.generators.ParserException;
+import edu.cmu.sv.modelinference.common.parser.ColumnProjection;
+import edu.cmu.sv.modelinference.common.parser.LineTokenizer;
+import edu.cmu.sv.modelinference.common.parser.RawColumnPredicate;
+import edu.cmu.sv.modelinference.common.parser.StringPool;
+import edu.cmu.sv.modelinference.common.parser.cache.CacheableLogParser;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryCodec;
+
+/**
+ * @author Kasper Luckow
+ * Decodes Autoresolver CSV records in place. Produces the same entries as
+ * {@link AutoresolverParser} (see util.ARParserDiff) without the intermediate Strings.
+ * The parser can be shared between threads.
+ */
+public class FastAutoresolverParser implements CacheableLogParser<AutoresolverEntry> {
+
+  //Raw columns, for pushed down predicates
+  public static final int TIME = 0, FLIGHT_NAME = 1, ALTITUDE = 2, ALTITUDE_RATE_FPM = 3,
+      FUEL_WEIGHT = 4, GROUND_SPEED = 5, HEADING = 6, INDICATED_SPEED = 7, LAT_DEGREES = 8,
+      LON_DEGREES = 9, TRUE_AIRSPEED = 10, TRUE_COURSE = 11;
+
+  private static final int FIELD_COUNT = 12;
+  private static final ColumnProjection FIELDS = new ColumnProjection(FIELD_COUNT, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+
+  private static class Scratch {
+    final LineTokenizer tokenizer;
+    final int[] bounds = new int[2 * FIELD_COUNT];
+
+    Scratch(LineTokenizer tokenizer) {
+      this.tokenizer = tokenizer;
+    }
+  }
+
+  private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+  private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+    @Override
+    protected Scratch initialValue() {
+      return new Scratch(new LineTokenizer(',', new StringPool(strings)));
+    }
+  };
+
+  @Override
+  public AutoresolverEntry parse(String raw) throws ParserException {
+    return parse((CharSequence)raw);
+  }
+
+  @Override
+  public AutoresolverEntry parse(CharSequence raw) throws ParserException {
+    ParseResult<AutoresolverEntry> result = new ParseResult<>();
+    tryParse(raw, result);
+    return result.getOrThrow();
+  }
+
+  @Override
+  public boolean tryParse(CharSequence raw, ParseResult<AutoresolverEntry> result) {
+    return tryParse(raw, result, Collections.<RawColumnPredicate>emptyList());
+  }
+
+  @Override
+  public boolean tryParse(CharSequence raw, ParseResult<AutoresolverEntry> result, List<RawColumnPredicate> predicates) {
+    Scratch s = scratch.get();
+    LineTokenizer tok = s.tokenizer.reset(raw);
+    if(tok.project(FIELDS, s.bounds) != FIELD_COUNT) //Not a valid entry (e.g. newline)
+      return result.reject(MalformedReason.ofInvalidLength(raw));
+    int[] b = s.bounds;
+    for(int i = 0; i < predicates.size(); i++) {
+      RawColumnPredicate pred = predicates.get(i);
+      if(pred.getColumn() >= FIELD_COUNT)
+        throw new IllegalArgumentException("No column " + pred.getColumn() + " in entries");
+      if(!pred.test(tok.select(b, pred.getColumn())))
+        return result.skip();
+    }
+    try {
+      double time = tok.select(b, TIME).parseDouble();
+      String flightName = tok.select(b, FLIGHT_NAME).internToken();
+      double altitude = tok.select(b, ALTITUDE).parseDouble();
+      double altitudeRateFpm = tok.select(b, ALTITUDE_RATE_FPM).parseDouble();
+      double fuelWeight = tok.select(b, FUEL_WEIGHT).parseDouble();
+      double groundSpeed = tok.select(b, GROUND_SPEED).parseDouble();
+      double heading = tok.select(b, HEADING).parseDouble();
+      double indicatedSpeed = tok.select(b, INDICATED_SPEED).parseDouble();
+      double latDegrees = tok.select(b, LAT_DEGREES).parseDouble();
+      double lonDegrees = tok.select(b, LON_DEGREES).parseDouble();
+      double trueAirspeed = tok.select(b, TRUE_AIRSPEED).parseDouble();
+      double trueCourse = tok.select(b, TRUE_COURSE).parseDouble();
+      return result.accept(new AutoresolverEntry(time, flightName, altitude, altitudeRateFpm, fuelWeight, groundSpeed, heading, indicatedSpeed, latDegrees, lonDegrees, trueAirspeed, trueCourse));
+    } catch (NumberFormatException e) { // Not a valid entry
+      return result.reject(MalformedReason.NUMBER_FORMAT);
+    }
+  }
+
+  @Override
+  public EntryCodec<AutoresolverEntry> getCodec() {
+    return AutoresolverEntryCodec.getInstance();
+  }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.autoresolver.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import edu.cmu.sv.modelinference.common.formats.autoresolver.AutoresolverEntry;
+import edu.cmu.sv.modelinference.common.formats.autoresolver.AutoresolverParser;
+import edu.cmu.sv.modelinference.common.formats.autoresolver.FastAutoresolverParser;
+import edu.cmu.sv.modelinference.common.generators.LogParser;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
+import edu.cmu.sv.modelinference.common.generators.ParserException;
+
+/**
+ * @author Kasper Luckow
+ * Differential check of {@link FastAutoresolverParser} against the reference
+ * {@link AutoresolverParser}. The lines of the supplied logs and a batch of generated
+ * lines (full precision doubles, exponents, malformed CSV) are fed to both parsers, which
+ * must either both reject a line for the same reason or produce identical entries. Afterwards both parsers
+ * are timed on the same lines.
+ *
+ * Usage: ARParserDiff [log files...]
+ */
+public class ARParserDiff {
+
+  private static final int GENERATED_LINES = 200000;
+  private static final int ROUNDS = 5;
+
+  public static void main(String[] args) throws IOException {
+    List<String> lines = new ArrayList<>();
+    for(String log : args) {
+      try(BufferedReader rd = new BufferedReader(new FileReader(new File(log)))) {
+        String line;
+        while((line = rd.readLine()) != null)
+          lines.add(line);
+      }
+    }
+    Random rnd = new Random(42);
+    for(int i = 0; i < GENERATED_LINES; i++)
+      lines.add(generateLine(rnd));
+
+    LogParser<AutoresolverEntry> reference = new AutoresolverParser();
+    LogParser<AutoresolverEntry> candidate = new FastAutoresolverParser();
+    ParseResult<AutoresolverEntry> expected = new ParseResult<>();
+    ParseResult<AutoresolverEntry> actual = new ParseResult<>();
+    long mismatches = 0;
+    for(String line : lines) {
+      reference.tryParse(line, expected);
+      candidate.tryParse(line, actual);
+      if(expected.getReason() != actual.getReason() || !sameEntry(expected.getEntry(), actual.getEntry())) {
+        mismatches++;
+        System.err.println("Mismatch for line [" + line + "]");
+      }
+    }
+    System.out.println("Checked " + lines.size() + " lines, " + mismatches + " mismatches");
+
+    for(int i = 0; i < ROUNDS; i++) {
+      long splitTime = time(reference, lines);
+      long fastTime = time(candidate, lines);
+      System.out.println("Round " + i + ": split " + splitTime / 1000000 + "ms, in place " + fastTime / 1000000 + "ms");
+    }
+    if(mismatches > 0)
+      System.exit(1);
+  }
+
+  private static long time(LogParser<AutoresolverEntry> parser, List<String> lines) {
+    long start = System.nanoTime();
+    double sink = 0;
+    for(String line : lines) {
+      AutoresolverEntry e = parseOrNull(parser, line);
+      if(e != null)
+        sink += e.getLogTime();
+    }
+    long elapsed = System.nanoTime() - start;
+    if(sink == Double.MIN_VALUE)
+      System.out.println(sink);
+    return elapsed;
+  }
+
+  private static AutoresolverEntry parseOrNull(LogParser<AutoresolverEntry> parser, String line) {
+    try {
+      return parser.parse(line);
+    } catch (ParserException e) {
+      return null;
+    }
+  }
+
+  private static boolean sameEntry(AutoresolverEntry e1, AutoresolverEntry e2) {
+    if(e1 == null || e2 == null)
+      return e1 == e2;
+    return same(e1.getLogTime(), e2.getLogTime()) &&
+        Objects.equals(e1.getFlightName(), e2.getFlightName()) &&
+        same(e1.getAltitude(), e2.getAltitude()) &&
+        same(e1.getAltitudeRateFpm(), e2.getAltitudeRateFpm()) &&
+        same(e1.getFuelWeight(), e2.getFuelWeight()) &&
+        same(e1.getGroundSpeed(), e2.getGroundSpeed()) &&
+        same(e1.getHeading(), e2.getHeading()) &&
+        same(e1.getIndicatedSpeed(), e2.getIndicatedSpeed()) &&
+        same(e1.getLatDegrees(), e2.getLatDegrees()) &&
+        same(e1.getLonDegrees(), e2.getLonDegrees()) &&
+        same(e1.getTrueAirspeed(), e2.getTrueAirspeed()) &&
+        same(e1.getTrueCourse(), e2.getTrueCourse());
+  }
+
+  private static boolean same(double d1, double d2) {
+    return Double.doubleToRawLongBits(d1) == Double.doubleToRawLongBits(d2);
+  }
+
+  private static final String[] MALFORMED = {"", " ", "-", ".", "1e", "abc", " 12.5", "NaN", "Infinity", "0x1p3", "1d"};
+
+  private static String generateLine(Random rnd) {
+    StringBuilder sb = new StringBuilder();
+    int fields = (rnd.nextInt(20) == 0) ? rnd.nextInt(15) : 12;
+    for(int i = 0; i < fields; i++) {
+      if(i > 0)
+        sb.append(',');
+      if(rnd.nextInt(100) == 0)
+        sb.append(MALFORMED[rnd.nextInt(MALFORMED.length)]);
+      else if(i == 1)
+        sb.append("BTA").append(rnd.nextInt(5000));
+      else
+        sb.append(generateNumber(rnd));
+    }
+    if(rnd.nextInt(50) == 0)
+      sb.append(",,");
+    return sb.toString();
+  }
+
+  private static String generateNumber(Random rnd) {
+    switch(rnd.nextInt(5)) {
+    case 0:
+      return Integer.toString(rnd.nextInt(100000));
+    case 1:
+      return Double.toString((rnd.nextDouble() - 0.5) * 400);
+    case 2:
+      return Double.toString(rnd.nextDouble() * Math.pow(10, rnd.nextInt(80) - 40));
+    case 3:
+      return Double.toString(Double.longBitsToDouble(rnd.nextLong()));
+    default: {
+      StringBuilder sb = new StringBuilder();
+      int digits = 1 + rnd.nextInt(25);
+      int dot = rnd.nextInt(digits + 1);
+      for(int i = 0; i < digits; i++) {
+        if(i == dot)
+          sb.append('.');
+        sb.append((char)('0' + rnd.nextInt(10)));
+      }
+      return sb.toString();
+    }
+    }
+  }
+}
@@ -0,0 +1,291 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.schema;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import edu.cmu.sv.modelinference.common.formats.NumericField;
+import edu.cmu.sv.modelinference.common.formats.schema.SchemaColumn.Type;
+
+/**
+ * @author Kasper Luckow
+ * Declarative description of a line based log format: how columns are delimited, which
+ * column holds the log time, which one the producer id, and the name, type and unit of
+ * the other columns of interest. Logs described by a schema are read with a
+ * {@link SchemaParser} and their numeric columns can be tracked through
+ * {@link #getField(String)} without writing an entry class, parser or tracker.
+ *
+ * Schemas are stored as properties files:
+ * <pre>
+ * name=safetugs
+ * delimiter=whitespace
+ * time=0
+ * producer=2
+ * column.speed=10 double km/h
+ * column.type=3 string
+ * </pre>
+ * The delimiter is either "whitespace", "tab" or a single character. Columns are given as
+ * column.&lt;name&gt;=&lt;index&gt; &lt;double|long|string&gt; [unit], with indexes
+ * starting at 0.
+ */
+public class LogSchema {
+
+  public static final String WHITESPACE = "whitespace";
+  public static final String TAB = "tab";
+  //Name of the field of the log time
+  public static final String TIME_FIELD = "time";
+
+  private static final String COLUMN_PREFIX = "column.";
+
+  public static class Builder {
+    private final String name;
+    private char delimiter = ' ';
+    private boolean whitespace = true;
+    private int timeColumn = 0;
+    private int producerColumn = -1;
+    private final List<Object[]> columns = new ArrayList<>();
+
+    public Builder(String name) {
+      this.name = name;
+    }
+
+    public Builder delimiter(char delimiter) {
+      this.delimiter = delimiter;
+      this.whitespace = false;
+      return this;
+    }
+
+    public Builder whitespace() {
+      this.whitespace = true;
+      return this;
+    }
+
+    public Builder time(int column) {
+      this.timeColumn = column;
+      return this;
+    }
+
+    /**
+     * Without a producer column, all entries have the empty string as producer id
+     */
+    public Builder producer(int column) {
+      this.producerColumn = column;
+      return this;
+    }
+
+    public Builder column(String name, int index, Type type, String unit) {
+      this.columns.add(new Object[] {name, index, type, (unit == null) ? "" : unit});
+      return this;
+    }
+
+    public LogSchema build() {
+      if(timeColumn < 0)
+        throw new IllegalArgumentException("Invalid time column " + timeColumn);
+      if(!whitespace && (delimiter == ' ' || delimiter == '\t' || delimiter == '\n' || delimiter == '\r'))
+        throw new IllegalArgumentException("Use whitespace for whitespace separated columns");
+      List<SchemaColumn> cols = new ArrayList<>();
+      Map<String, SchemaColumn> byName = new HashMap<>();
+      int numbers = 0, strings = 0;
+      for(Object[] c : columns) {
+        String colName = (String)c[0];
+        int index = (Integer)c[1];
+        Type type = (Type)c[2];
+        if(index < 0)
+          throw new IllegalArgumentException("Invalid index " + index + " of column " + colName);
+        if(colName.equals(TIME_FIELD) || byName.containsKey(colName))
+          throw new IllegalArgumentException("Column " + colName + " is defined more than once");
+        SchemaColumn col = new SchemaColumn(colName, index, type, (String)c[3], type.isNumeric() ? numbers++ : strings++);
+        cols.add(col);
+        byName.put(colName, col);
+      }
+      return new LogSchema(this, cols, byName, numbers, strings);
+    }
+  }
+
+  private final String name;
+  private final char delimiter;
+  private final boolean whitespace;
+  private final int timeColumn;
+  private final int producerColumn;
+  private final List<SchemaColumn> columns;
+  private final Map<String, SchemaColumn> columnsByName;
+  private final int numberCount, stringCount;
+
+  private LogSchema(Builder bldr, List<SchemaColumn> columns, Map<String, SchemaColumn> columnsByName,
+      int numberCount, int stringCount) {
+    this.name = bldr.name;
+    this.delimiter = bldr.delimiter;
+    this.whitespace = bldr.whitespace;
+    this.timeColumn = bldr.timeColumn;
+    this.producerColumn = bldr.producerColumn;
+    this.columns = Collections.unmodifiableList(columns);
+    this.columnsByName = columnsByName;
+    this.numberCount = numberCount;
+    this.stringCount = stringCount;
+  }
+
+  public static LogSchema load(File schemaFile) throws IOException {
+    Properties props = new Properties();
+    try(InputStream in = new FileInputStream(schemaFile)) {
+      props.load(in);
+    }
+    try {
+      return fromProperties(props, schemaFile.getName());
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid schema " + schemaFile + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * @param defaultName the name of the schema if the properties do not name it
+   */
+  public static LogSchema fromProperties(Properties props, String defaultName) {
+    Builder bldr = new Builder(props.getProperty("name", defaultName).trim());
+    String delim = props.getProperty("delimiter", WHITESPACE).trim();
+    if(delim.equalsIgnoreCase(TAB))
+      bldr.delimiter('\t');
+    else if(delim.equalsIgnoreCase(WHITESPACE) || delim.isEmpty())
+      bldr.whitespace();
+    else if(delim.length() == 1)
+      bldr.delimiter(delim.charAt(0));
+    else
+      throw new IllegalArgumentException("Invalid delimiter " + delim);
+    bldr.time(parseIndex(props.getProperty("time", "0"), "time"));
+    if(props.getProperty("producer") != null)
+      bldr.producer(parseIndex(props.getProperty("producer"), "producer"));
+
+    //Properties are unordered, so columns get their slots in the order of their indexes
+    List<Object[]> cols = new ArrayList<>();
+    for(String key : props.stringPropertyNames()) {
+      if(!key.startsWith(COLUMN_PREFIX))
+        continue;
+      String colName = key.substring(COLUMN_PREFIX.length());
+      String[] spec = props.getProperty(key).trim().split("\\s+", 3);
+      if(spec.length < 2)
+        throw new IllegalArgumentException("Column " + colName + " must be given as <index> <type> [unit]");
+      Type type;
+      try {
+        type = Type.valueOf(spec[1].toUpperCase());
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown type " + spec[1] + " of column " + colName);
+      }
+      cols.add(new Object[] {colName, parseIndex(spec[0], colName), type, (spec.length > 2) ? spec[2] : ""});
+    }
+    Collections.sort(cols, new Comparator<Object[]>() {
+      @Override
+      public int compare(Object[] c1, Object[] c2) {
+        return Integer.compare((Integer)c1[1], (Integer)c2[1]);
+      }
+    });
+    for(Object[] c : cols)
+      bldr.column((String)c[0], (Integer)c[1], (Type)c[2], (String)c[3]);
+    return bldr.build();
+  }
+
+  private static int parseIndex(String value, String column) {
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid index " + value + " of " + column);
+    }
+  }
+
+  /**
+   * @return the field with the name: the log time (see {@link #TIME_FIELD}) or a numeric column
+   */
+  public NumericField<SchemaEntry> getField(String fieldName) {
+    if(fieldName.equals(TIME_FIELD)) {
+      return new NumericField<SchemaEntry>(TIME_FIELD, "") {
+        @Override
+        public double get(SchemaEntry entry) {
+          return entry.getLogTime();
+        }
+      };
+    }
+    SchemaColumn col = getColumn(fieldName, true);
+    final int slot = col.getSlot();
+    return new NumericField<SchemaEntry>(col.getName(), col.getUnit()) {
+      @Override
+      public double get(SchemaEntry entry) {
+        return entry.getNumber(slot);
+      }
+    };
+  }
+
+  SchemaColumn getColumn(String columnName, boolean numeric) {
+    SchemaColumn col = columnsByName.get(columnName);
+    if(col == null || col.getType().isNumeric() != numeric)
+      throw new IllegalArgumentException("No " + (numeric ? "numeric" : "string") + " column " + columnName + " in schema " + name);
+    return col;
+  }
+
+  /**
+   * @return the column or null if the schema has no column with the name
+   */
+  public SchemaColumn getColumn(String columnName) {
+    return columnsByName.get(columnName);
+  }
+
+  public List<SchemaColumn> getColumns() {
+    return this.columns;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public boolean isWhitespaceDelimited() {
+    return this.whitespace;
+  }
+
+  public char getDelimiter() {
+    return this.delimiter;
+  }
+
+  public int getTimeColumn() {
+    return this.timeColumn;
+  }
+
+  /**
+   * @return the column of the producer id or -1
+   */
+  public int getProducerColumn() {
+    return this.producerColumn;
+  }
+
+  public int getNumberCount() {
+    return this.numberCount;
+  }
+
+  public int getStringCount() {
+    return this.stringCount;
+  }
+
+  @Override
+  public String toString() {
+    return name + ": time(" + timeColumn + "), producer(" + producerColumn + "), " + columns;
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.schema;
+
+/**
+ * @author Kasper Luckow
+ * A column of a {@link LogSchema}. Numeric columns (double and long) are stored in the
+ * number array of a {@link SchemaEntry} and string columns in its string array, at the
+ * slot of the column.
+ */
+public class SchemaColumn {
+
+  public static enum Type {
+    DOUBLE, LONG, STRING;
+
+    public boolean isNumeric() {
+      return this != STRING;
+    }
+  }
+
+  private final String name;
+  private final int index;
+  private final Type type;
+  private final String unit;
+  private final int slot;
+
+  SchemaColumn(String name, int index, Type type, String unit, int slot) {
+    this.name = name;
+    this.index = index;
+    this.type = type;
+    this.unit = unit;
+    this.slot = slot;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  /**
+   * @return the position of the column in a line, starting at 0
+   */
+  public int getIndex() {
+    return this.index;
+  }
+
+  public Type getType() {
+    return this.type;
+  }
+
+  public String getUnit() {
+    return this.unit;
+  }
+
+  public int getSlot() {
+    return this.slot;
+  }
+
+  @Override
+  public String toString() {
+    return name + "(" + index + ", " + type.name().toLowerCase() + ((unit.isEmpty()) ? "" : ", " + unit) + ")";
+  }
+}
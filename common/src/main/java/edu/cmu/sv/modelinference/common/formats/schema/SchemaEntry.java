@@ -0,0 +1,83 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.schema;
+
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+
+/**
+ * @author Kasper Luckow
+ * An entry of a log described by a {@link LogSchema}
+ */
+public class SchemaEntry extends LogEntry {
+
+  private final LogSchema schema;
+  private final String producer;
+  private final double[] numbers;
+  private final String[] strings;
+
+  public SchemaEntry(LogSchema schema, double logTime, String producer, double[] numbers, String[] strings) {
+    super(logTime);
+    this.schema = schema;
+    this.producer = producer;
+    this.numbers = numbers;
+    this.strings = strings;
+  }
+
+  public LogSchema getSchema() {
+    return this.schema;
+  }
+
+  /**
+   * @return the value of the numeric column with the slot (see {@link SchemaColumn#getSlot()})
+   */
+  public double getNumber(int slot) {
+    return this.numbers[slot];
+  }
+
+  /**
+   * @return the value of the string column with the slot (see {@link SchemaColumn#getSlot()})
+   */
+  public String getString(int slot) {
+    return this.strings[slot];
+  }
+
+  public double getNumber(String column) {
+    return getNumber(schema.getColumn(column, true).getSlot());
+  }
+
+  public String getString(String column) {
+    return getString(schema.getColumn(column, false).getSlot());
+  }
+
+  @Override
+  public String getLogProducerId() {
+    return this.producer;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(getLogTime()).append(' ').append(producer);
+    for(SchemaColumn col : schema.getColumns()) {
+      sb.append(' ').append(col.getName()).append('=');
+      if(col.getType().isNumeric())
+        sb.append(numbers[col.getSlot()]);
+      else
+        sb.append(strings[col.getSlot()]);
+    }
+    return sb.toString();
+  }
+}
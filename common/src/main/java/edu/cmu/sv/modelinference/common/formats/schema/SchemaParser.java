@@ -0,0 +1,170 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.schema;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import edu.cmu.sv.modelinference.common.formats.schema.SchemaColumn.Type;
+import edu.cmu.sv.modelinference.common.generators.LogParser;
+import edu.cmu.sv.modelinference.common.generators.MalformedReason;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
+import edu.cmu.sv.modelinference.common.generators.ParserException;
+import edu.cmu.sv.modelinference.common.parser.ColumnProjection;
+import edu.cmu.sv.modelinference.common.parser.LineTokenizer;
+import edu.cmu.sv.modelinference.common.parser.RawColumnPredicate;
+import edu.cmu.sv.modelinference.common.parser.StringPool;
+
+/**
+ * @author Kasper Luckow
+ * Parses the lines of a log described by a {@link LogSchema} in place. The schema is
+ * compiled once into a column projection and, per column type, the slots the values are
+ * read from and stored in, so decoding a line is a plain loop per type without looking
+ * at the schema. Lines may have more columns than the schema describes. Raw column
+ * predicates refer to the columns of the line. The parser can be shared between threads.
+ */
+public class SchemaParser implements LogParser<SchemaEntry> {
+
+  private static class Scratch {
+    final LineTokenizer tokenizer;
+    final int[] bounds;
+
+    Scratch(LineTokenizer tokenizer, int slots) {
+      this.tokenizer = tokenizer;
+      this.bounds = new int[2 * slots];
+    }
+  }
+
+  private final LogSchema schema;
+  private final ColumnProjection projection;
+  private final int minColumns;
+  private final int timeSlot, producerSlot;
+  //Projection slots of the columns and the slots of the values in the entry, per type
+  private final int[] doubleSlots, doubleTargets;
+  private final int[] longSlots, longTargets;
+  private final int[] stringSlots, stringTargets;
+
+  private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+  private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+    @Override
+    protected Scratch initialValue() {
+      StringPool pool = new StringPool(strings);
+      LineTokenizer tokenizer = schema.isWhitespaceDelimited() ?
+          new LineTokenizer(pool) :
+          new LineTokenizer(schema.getDelimiter(), pool);
+      return new Scratch(tokenizer, projection.size());
+    }
+  };
+
+  public SchemaParser(LogSchema schema) {
+    this.schema = schema;
+    ColumnProjection proj = new ColumnProjection(ColumnProjection.ANY_COLUMN_COUNT, schema.getTimeColumn());
+    if(schema.getProducerColumn() >= 0)
+      proj = proj.with(schema.getProducerColumn());
+    for(SchemaColumn col : schema.getColumns())
+      proj = proj.with(col.getIndex());
+    this.projection = proj;
+    this.minColumns = proj.getMaxColumn() + 1;
+    this.timeSlot = proj.getSlot(schema.getTimeColumn());
+    this.producerSlot = (schema.getProducerColumn() >= 0) ? proj.getSlot(schema.getProducerColumn()) : -1;
+
+    List<SchemaColumn> doubles = new ArrayList<>(), longs = new ArrayList<>(), strs = new ArrayList<>();
+    for(SchemaColumn col : schema.getColumns()) {
+      if(col.getType() == Type.DOUBLE)
+        doubles.add(col);
+      else if(col.getType() == Type.LONG)
+        longs.add(col);
+      else
+        strs.add(col);
+    }
+    this.doubleSlots = slots(doubles);
+    this.doubleTargets = targets(doubles);
+    this.longSlots = slots(longs);
+    this.longTargets = targets(longs);
+    this.stringSlots = slots(strs);
+    this.stringTargets = targets(strs);
+  }
+
+  private int[] slots(List<SchemaColumn> cols) {
+    int[] slots = new int[cols.size()];
+    for(int i = 0; i < slots.length; i++)
+      slots[i] = projection.getSlot(cols.get(i).getIndex());
+    return slots;
+  }
+
+  private static int[] targets(List<SchemaColumn> cols) {
+    int[] targets = new int[cols.size()];
+    for(int i = 0; i < targets.length; i++)
+      targets[i] = cols.get(i).getSlot();
+    return targets;
+  }
+
+  public LogSchema getSchema() {
+    return this.schema;
+  }
+
+  @Override
+  public SchemaEntry parse(String raw) throws ParserException {
+    return parse((CharSequence)raw);
+  }
+
+  @Override
+  public SchemaEntry parse(CharSequence raw) throws ParserException {
+    ParseResult<SchemaEntry> result = new ParseResult<>();
+    tryParse(raw, result);
+    return result.getOrThrow();
+  }
+
+  @Override
+  public boolean tryParse(CharSequence raw, ParseResult<SchemaEntry> result) {
+    return tryParse(raw, result, Collections.<RawColumnPredicate>emptyList());
+  }
+
+  @Override
+  public boolean tryParse(CharSequence raw, ParseResult<SchemaEntry> result, List<RawColumnPredicate> predicates) {
+    Scratch s = scratch.get();
+    LineTokenizer tok = s.tokenizer.reset(raw);
+    if(tok.project(projection, s.bounds) < minColumns) //Not a valid entry (e.g. newline)
+      return result.reject(MalformedReason.ofInvalidLength(raw));
+    int[] b = s.bounds;
+    for(int i = 0; i < predicates.size(); i++) {
+      RawColumnPredicate pred = predicates.get(i);
+      int slot = projection.getSlot(pred.getColumn());
+      if(slot < 0)
+        throw new IllegalArgumentException("Column " + pred.getColumn() + " is not in schema " + schema.getName());
+      if(!pred.test(tok.select(b, slot)))
+        return result.skip();
+    }
+    try {
+      double time = tok.select(b, timeSlot).parseDouble();
+      String producer = (producerSlot < 0) ? "" : tok.select(b, producerSlot).internToken();
+      double[] numbers = new double[schema.getNumberCount()];
+      for(int i = 0; i < doubleSlots.length; i++)
+        numbers[doubleTargets[i]] = tok.select(b, doubleSlots[i]).parseDouble();
+      for(int i = 0; i < longSlots.length; i++)
+        numbers[longTargets[i]] = tok.select(b, longSlots[i]).parseLong();
+      String[] values = new String[schema.getStringCount()];
+      for(int i = 0; i < stringSlots.length; i++)
+        values[stringTargets[i]] = tok.select(b, stringSlots[i]).internToken();
+      return result.accept(new SchemaEntry(schema, time, producer, numbers, values));
+    } catch (NumberFormatException e) { // Not a valid entry
+      return result.reject(MalformedReason.NUMBER_FORMAT);
+    }
+  }
+}
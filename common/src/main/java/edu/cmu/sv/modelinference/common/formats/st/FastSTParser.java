@@ -0,0 +1,120 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.st;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import edu.cmu.sv.modelinference.common.generators.MalformedReason;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
+import edu.cmu.sv.modelinference.common.generators.ParserException;
+import edu.cmu.sv.modelinference.common.parser.ColumnProjection;
+import edu.cmu.sv.modelinference.common.parser.LineTokenizer;
+import edu.cmu.sv.modelinference.common.parser.RawColumnPredicate;
+import edu.cmu.sv.modelinference.common.parser.StringPool;
+import edu.cmu.sv.modelinference.common.parser.cache.CacheableLogParser;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryCodec;
+
+/**
+ * @author Kasper Luckow
+ * Tokenizes SafeTugs entries in place instead of using regex splitting. Apart from the
+ * entry itself, only previously unseen call signs, types etc. are allocated.
+ * Produces the same entries as {@link STParser}, which is kept as the reference
+ * implementation (see util.STParserDiff). Malformed lines are reported through
+ * tryParse without creating exceptions. The parser can be shared between threads.
+ */
+public class FastSTParser implements CacheableLogParser<STEntry> {
+
+  //Raw columns, for pushed down predicates
+  public static final int TIME = 0, UTC_TIME = 1, CALL_SIGN = 2, AC_TYPE = 3, REGISTRATION = 4,
+      STATUS = 5, X = 6, Y = 7, Z = 8, PHI = 9, SPEED = 10;
+
+  private static final int FIELD_COUNT = 11;
+  private static final ColumnProjection FIELDS = new ColumnProjection(FIELD_COUNT, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+  private static class Scratch {
+    final LineTokenizer tokenizer;
+    final int[] bounds = new int[2 * FIELD_COUNT];
+
+    Scratch(LineTokenizer tokenizer) {
+      this.tokenizer = tokenizer;
+    }
+  }
+
+  private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+  private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+    @Override
+    protected Scratch initialValue() {
+      return new Scratch(new LineTokenizer(new StringPool(strings)));
+    }
+  };
+
+  @Override
+  public STEntry parse(String raw) throws ParserException {
+    return parse((CharSequence)raw);
+  }
+
+  @Override
+  public STEntry parse(CharSequence raw) throws ParserException {
+    ParseResult<STEntry> result = new ParseResult<>();
+    tryParse(raw, result);
+    return result.getOrThrow();
+  }
+
+  @Override
+  public boolean tryParse(CharSequence raw, ParseResult<STEntry> result) {
+    return tryParse(raw, result, Collections.<RawColumnPredicate>emptyList());
+  }
+
+  @Override
+  public boolean tryParse(CharSequence raw, ParseResult<STEntry> result, List<RawColumnPredicate> predicates) {
+    Scratch s = scratch.get();
+    LineTokenizer tok = s.tokenizer.reset(raw);
+    if(tok.project(FIELDS, s.bounds) != FIELD_COUNT) //Not a valid entry (e.g. newline)
+      return result.reject(MalformedReason.ofInvalidLength(raw));
+    int[] b = s.bounds;
+    for(int i = 0; i < predicates.size(); i++) {
+      RawColumnPredicate pred = predicates.get(i);
+      if(pred.getColumn() >= FIELD_COUNT)
+        throw new IllegalArgumentException("No column " + pred.getColumn() + " in entries");
+      if(!pred.test(tok.select(b, pred.getColumn())))
+        return result.skip();
+    }
+    try {
+      double time = tok.select(b, TIME).parseFloat();
+      long utcTime = tok.select(b, UTC_TIME).parseLong();
+      String callSign = tok.select(b, CALL_SIGN).internToken();
+      String acType = tok.select(b, AC_TYPE).internToken();
+      String registration = tok.select(b, REGISTRATION).internToken();
+      String status = tok.select(b, STATUS).internToken();
+      double x = tok.select(b, X).parseDouble();
+      double y = tok.select(b, Y).parseDouble();
+      double z = tok.select(b, Z).parseDouble();
+      double phi = tok.select(b, PHI).parseDouble();
+      double speed = tok.select(b, SPEED).parseDouble();
+      return result.accept(new STEntry(time, utcTime, callSign, acType, status, registration, x, y, z, phi, speed));
+    } catch (NumberFormatException e) { // Not a valid entry
+      return result.reject(MalformedReason.NUMBER_FORMAT);
+    }
+  }
+
+  @Override
+  public EntryCodec<STEntry> getCodec() {
+    return STEntryCodec.getInstance();
+  }
+}
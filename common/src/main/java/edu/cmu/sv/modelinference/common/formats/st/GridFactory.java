@@ -81,6 +81,26 @@ public class GridFactory<S extends Copyable<S>> {
       return cells;
     }
     
+    public int getHorizPartitions() {
+      return xTree.size();
+    }
+
+    public int getVertPartitions() {
+      return xTree.isEmpty() ? 0 : xTree.firstEntry().getValue().size();
+    }
+
+    /**
+     * Stores the number of objects in each cell in sizes, column by column, i.e., the
+     * cell (x, y) at index x * getVertPartitions() + y
+     */
+    public void getCellSizes(int[] sizes) {
+      int idx = 0;
+      for(NavigableMap<Double, Collection<T>> ytree : xTree.values()) {
+        for(Collection<T> cell : ytree.values())
+          sizes[idx++] = cell.size();
+      }
+    }
+    
     public Collection<T> getCell(Coord2d coord) {
       return getCellEntry(coord).getValue();
     }
@@ -15,28 +15,49 @@
  */
 package edu.cmu.sv.modelinference.common.formats.st;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
-import edu.cmu.sv.modelinference.common.formats.st.GridFactory.Grid.Cell;
 import edu.cmu.sv.modelinference.common.model.Assignment;
 import edu.cmu.sv.modelinference.common.model.State;
+import edu.cmu.sv.modelinference.common.model.StateSchema;
+import edu.cmu.sv.modelinference.common.model.StateVector;
 
 /**
  * @author Kasper Luckow
+ * The number of vehicles in each grid cell, kept in a hash-consed {@link StateVector}
+ * with one variable q_x_y per cell.
  */
 public class GridState extends State {
 
   private final GridFactory.Grid<Vehicle> grid;
 
-  public GridState(GridFactory.Grid<Vehicle> grid) {
+  public GridState(GridFactory.Grid<Vehicle> grid, StateSchema schema) {
+    super(toVector(grid, schema));
     this.grid = grid;
-    for(Cell<Vehicle> cell : grid.getCells()) {
-      Assignment<Integer> assign = new Assignment<Integer>("q_" + cell.getX() + "_" + cell.getY(),
-          (cell.getData() == null) ?
-              0 :
-              cell.getData().size());
-      this.addAssignment(assign);
+  }
+
+  public GridState(GridFactory.Grid<Vehicle> grid) {
+    this(grid, createSchema(grid.getHorizPartitions(), grid.getVertPartitions()));
+  }
+
+  /**
+   * @return the (canonical) schema of the grid states of a grid with the dimensions
+   */
+  public static StateSchema createSchema(int horizPartitions, int vertPartitions) {
+    List<String> vars = new ArrayList<>(horizPartitions * vertPartitions);
+    for(int x = 0; x < horizPartitions; x++) {
+      for(int y = 0; y < vertPartitions; y++)
+        vars.add("q_" + x + "_" + y);
     }
+    return StateSchema.of(vars);
+  }
+
+  private static StateVector toVector(GridFactory.Grid<Vehicle> grid, StateSchema schema) {
+    int[] sizes = new int[schema.size()];
+    grid.getCellSizes(sizes);
+    return schema.intern(sizes);
   }
   
   public GridFactory.Grid<Vehicle> getGrid() {
@@ -45,7 +66,7 @@ public class GridState extends State {
   
   public String toSimpleString() {
     StringBuilder sb = new StringBuilder();
-    Iterator<Assignment<?>> assignmentIter = this.assignments.iterator();
+    Iterator<Assignment<? extends Number>> assignmentIter = this.getAssignments().iterator();
     while(assignmentIter.hasNext()) {
       sb.append(assignmentIter.next().toString());
       if(assignmentIter.hasNext())
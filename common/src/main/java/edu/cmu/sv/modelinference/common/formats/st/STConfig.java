@@ -20,6 +20,8 @@ import java.util.regex.Pattern;
 
 import org.apache.commons.cli.ParseException;
 
+import edu.cmu.sv.modelinference.common.formats.st.util.GridDimensionsFinder.Dimensions;
+
 /**
  * @author Kasper Luckow
  *
@@ -59,5 +61,27 @@ public class STConfig {
 	    }
 	    return parts;
 	  }
+
+  /**
+   * Parses bounds of the form minX,minY,maxX,maxY
+   */
+  public static Dimensions extractBounds(String optionString) throws ParseException {
+    String[] bounds = optionString.trim().split(",");
+    if(bounds.length != 4)
+      throw new ParseException("Bounds must be of the form minX,minY,maxX,maxY");
+    Dimensions dim = new Dimensions();
+    try {
+      dim.minX = Double.parseDouble(bounds[0]);
+      dim.minY = Double.parseDouble(bounds[1]);
+      dim.maxX = Double.parseDouble(bounds[2]);
+      dim.maxY = Double.parseDouble(bounds[3]);
+    } catch(NumberFormatException e) {
+      throw new ParseException("Invalid bounds: " + e.getMessage());
+    }
+    if(dim.minX > dim.maxX || dim.minY > dim.maxY)
+      throw new ParseException("Lower bounds must not exceed upper bounds");
+    return dim;
+  }
+
   public static final String LOG_CONFIG_NAME = "st";
 }
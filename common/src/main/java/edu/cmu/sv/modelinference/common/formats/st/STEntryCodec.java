@@ -0,0 +1,85 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.st;
+
+import edu.cmu.sv.modelinference.common.parser.cache.ColumnBlock;
+import edu.cmu.sv.modelinference.common.parser.cache.ColumnType;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryCodec;
+
+/**
+ * @author Kasper Luckow
+ */
+public class STEntryCodec implements EntryCodec<STEntry> {
+
+  public static final int TIME = 0, UTC_TIME = 1, CALL_SIGN = 2, AC_TYPE = 3, REGISTRATION = 4,
+      STATUS = 5, X = 6, Y = 7, Z = 8, PHI = 9, SPEED = 10;
+
+  private static final ColumnType[] COLUMNS = {
+      ColumnType.DOUBLE, ColumnType.LONG, ColumnType.STRING, ColumnType.STRING, ColumnType.STRING,
+      ColumnType.STRING, ColumnType.DOUBLE, ColumnType.DOUBLE, ColumnType.DOUBLE, ColumnType.DOUBLE,
+      ColumnType.DOUBLE };
+
+  private static STEntryCodec instance = null;
+
+  public static STEntryCodec getInstance() {
+    if(instance == null) {
+      instance = new STEntryCodec();
+    }
+    return instance;
+  }
+
+  private STEntryCodec() { }
+
+  @Override
+  public String getName() {
+    return "st-v1";
+  }
+
+  @Override
+  public ColumnType[] getColumnTypes() {
+    return COLUMNS.clone();
+  }
+
+  @Override
+  public void encode(STEntry entry, ColumnBlock block, int row) {
+    block.setDouble(TIME, row, entry.getLogTime());
+    block.setLong(UTC_TIME, row, entry.getUtcTime());
+    block.setString(CALL_SIGN, row, entry.getCallSign());
+    block.setString(AC_TYPE, row, entry.getAcType());
+    block.setString(REGISTRATION, row, entry.getRegistration());
+    block.setString(STATUS, row, entry.getStatus());
+    block.setDouble(X, row, entry.getPosition().getX());
+    block.setDouble(Y, row, entry.getPosition().getY());
+    block.setDouble(Z, row, entry.getPosition().getZ());
+    block.setDouble(PHI, row, entry.getPhi());
+    block.setDouble(SPEED, row, entry.getSpeed());
+  }
+
+  @Override
+  public STEntry decode(ColumnBlock block, int row) {
+    return new STEntry(block.getDouble(TIME, row),
+        block.getLong(UTC_TIME, row),
+        block.getString(CALL_SIGN, row),
+        block.getString(AC_TYPE, row),
+        block.getString(STATUS, row),
+        block.getString(REGISTRATION, row),
+        block.getDouble(X, row),
+        block.getDouble(Y, row),
+        block.getDouble(Z, row),
+        block.getDouble(PHI, row),
+        block.getDouble(SPEED, row));
+  }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.st;
+
+import edu.cmu.sv.modelinference.common.generators.EntryBlock;
+import edu.cmu.sv.modelinference.common.generators.EntryColumns;
+
+/**
+ * @author Kasper Luckow
+ */
+public class STEntryColumns implements EntryColumns<STEntry> {
+
+  private static STEntryColumns instance = null;
+
+  public static STEntryColumns getInstance() {
+    if(instance == null) {
+      instance = new STEntryColumns();
+    }
+    return instance;
+  }
+
+  private STEntryColumns() { }
+
+  @Override
+  public void fill(STEntry entry, EntryBlock<STEntry> block, int row) {
+    Coord3d pos = entry.getPosition();
+    block.setPosition(row, pos.getX(), pos.getY(), pos.getZ());
+    block.setSpeed(row, entry.getSpeed());
+    block.setPhi(row, entry.getPhi());
+  }
+}
@@ -23,12 +23,14 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 
 import edu.cmu.sv.modelinference.common.formats.st.GridFactory.Grid;
+import edu.cmu.sv.modelinference.common.model.StateSchema;
 
 /**
  * @author Kasper Luckow
  */
 public class STGridStateFactory implements STStateFactory<GridState> {
   private final GridFactory<Vehicle> gridFactory;
+  private final StateSchema schema;
   
   private LoadingCache<String, Vehicle> vehicleCache = CacheBuilder
       .newBuilder()
@@ -43,13 +45,14 @@ public class STGridStateFactory implements STStateFactory<GridState> {
   
   public STGridStateFactory(Coord2d lowerLeft, Coord2d upperRight, int horizPartitions, int vertPartitions) {
     this.gridFactory = new GridFactory<>(lowerLeft, upperRight, horizPartitions, vertPartitions);
+    this.schema = GridState.createSchema(horizPartitions, vertPartitions);
   }
 
   
   //This will, along with finalizeState be removed eventually when I get time
   @Override
   public GridState generateState() {
-    return new GridState(gridFactory.build());
+    return new GridState(gridFactory.build(), schema);
   }
   
   //This is really ugly. It would be much better to have
@@ -59,7 +62,7 @@ public class STGridStateFactory implements STStateFactory<GridState> {
   //only meant as a quick fix
   @Override
   public GridState finalizeState(GridState currState) {
-    return new GridState(currState.getGrid().copy());
+    return new GridState(currState.getGrid().copy(), schema);
   }
   
   @Override
@@ -73,7 +76,7 @@ public class STGridStateFactory implements STStateFactory<GridState> {
     
     newGrid.add(vehicleCache.getUnchecked(entry.getCallSign()), Coord2d.project(entry.getPosition()));
     
-    return new GridState(newGrid);
+    return new GridState(newGrid, schema);
   }
 
   @Override
@@ -20,11 +20,13 @@ import java.io.IOException;
 
 import edu.cmu.sv.modelinference.common.formats.st.util.GridDimensionsFinder;
 import edu.cmu.sv.modelinference.common.formats.st.util.GridDimensionsFinder.Dimensions;
-import edu.cmu.sv.modelinference.common.generators.LogEntryFilter;
 import edu.cmu.sv.modelinference.common.model.IRModelGenerator;
 import edu.cmu.sv.modelinference.common.model.Model;
 import edu.cmu.sv.modelinference.common.model.ModelInferer;
-import edu.cmu.sv.modelinference.common.parser.SequentialLogReader;
+import edu.cmu.sv.modelinference.common.model.ParallelModelGenerator;
+import edu.cmu.sv.modelinference.common.parser.LogReader;
+import edu.cmu.sv.modelinference.common.parser.LogReaders;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryBuffer;
 
 /**
  * @author Kasper Luckow
@@ -35,30 +37,60 @@ public class STModelInferer implements ModelInferer<GridState> {
   
   private final int xPart;
   private final int yPart;
+  private final Dimensions bounds;
+  private final int threads;
   
   public STModelInferer(int xPart, int yPart) {
+    this(xPart, yPart, null);
+  }
+
+  public STModelInferer(int xPart, int yPart, Dimensions bounds) {
+    this(xPart, yPart, bounds, 1);
+  }
+
+  /**
+   * @param bounds known bounds of the airfield, or null to determine them from the log
+   * @param threads number of threads generating the model. With more than one, the log is
+   * buffered and split into time partitions (see {@link ParallelModelGenerator})
+   */
+  public STModelInferer(int xPart, int yPart, Dimensions bounds, int threads) {
     this.xPart = xPart;
     this.yPart = yPart;
+    this.bounds = bounds;
+    this.threads = threads;
   }
   
   @Override
   public Model<GridState> generateModel(String logFile) throws IOException {
-    GridDimensionsFinder dimFinder = new GridDimensionsFinder(new LogEntryFilter<STEntry>() {
-      @Override
-      public boolean submitForProcessing(STEntry entry) {
-        return true;
-      }
-    });
-    Dimensions dim = dimFinder.start(new File(logFile));
+    Dimensions dim = this.bounds;
+    EntryBuffer<STEntry> entries = new EntryBuffer<>(STEntryCodec.getInstance());
+    if(dim == null) {
+      //Buffer the entries while finding the dimensions so the log is only read once
+      GridDimensionsFinder dimFinder = new GridDimensionsFinder();
+      dim = dimFinder.start(new File(logFile), entries);
+    }
     
+    STGridStateFactory stateGen = new STGridStateFactory(
+        new Coord2d(dim.minX, dim.minY), 
+        new Coord2d(dim.maxX, dim.maxY),
+        xPart,
+        yPart);
+    if(this.threads > 1) {
+      //Nothing was buffered if the dimensions were given, taken from a cache or found in several logs
+      if(entries.isEmpty()) {
+        LogReader<STEntry> reader = LogReaders.create(new FastSTParser());
+        reader.addLogProcessor(entries);
+        reader.parseLog(new File(logFile));
+      }
+      return new ParallelModelGenerator<>(stateGen, this.threads).generateModel(entries);
+    }
+    if(!entries.isEmpty())
+      return new IRModelGenerator<>(stateGen).generateModel(entries);
+
     IRModelGenerator<STEntry, GridState> irGen = new IRModelGenerator<>(
-        new SequentialLogReader<>(
-            new STParser()), 
-        new STGridStateFactory(
-            new Coord2d(dim.minX, dim.minY), 
-            new Coord2d(dim.maxX, dim.maxY),
-            xPart,
-            yPart));
+        LogReaders.create(
+            new FastSTParser()), 
+        stateGen);
 
     return irGen.generateModel(logFile);
   }
@@ -15,19 +15,29 @@
  */
 package edu.cmu.sv.modelinference.common.formats.st;
 
-import edu.cmu.sv.modelinference.common.generators.LogParser;
+import edu.cmu.sv.modelinference.common.generators.MalformedReason;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
 import edu.cmu.sv.modelinference.common.generators.ParserException;
+import edu.cmu.sv.modelinference.common.parser.cache.CacheableLogParser;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryCodec;
 
 /**
  * @author Kasper Luckow
  */
-public class STParser implements LogParser<STEntry> {
+public class STParser implements CacheableLogParser<STEntry> {
 
   @Override
   public STEntry parse(String raw) throws ParserException {
-    String[] entry = raw.split("\\s+");
+    ParseResult<STEntry> result = new ParseResult<>();
+    tryParse(raw, result);
+    return result.getOrThrow();
+  }
+
+  @Override
+  public boolean tryParse(CharSequence raw, ParseResult<STEntry> result) {
+    String[] entry = raw.toString().split("\\s+");
     if(entry.length != 11) //Not a valid entry (e.g. newline)
-      throw new ParserException("Invalid entry length");
+      return result.reject(MalformedReason.ofInvalidLength(raw));
     try {      
       double time = Float.valueOf(entry[0]);
       long utcTime = Long.valueOf(entry[1]);
@@ -40,9 +50,14 @@ public class STParser implements LogParser<STEntry> {
       double z = Double.valueOf(entry[8]);
       double phi = Double.valueOf(entry[9]);
       double speed = Double.valueOf(entry[10]);
-      return new STEntry(time, utcTime, callSign, acType, status, registration, x, y, z, phi, speed);
+      return result.accept(new STEntry(time, utcTime, callSign, acType, status, registration, x, y, z, phi, speed));
     } catch (NumberFormatException e) { // Not a valid entry
-      throw new ParserException(e);
+      return result.reject(MalformedReason.NUMBER_FORMAT);
     }
   }
+
+  @Override
+  public EntryCodec<STEntry> getCodec() {
+    return STEntryCodec.getInstance();
+  }
 }
@@ -15,23 +15,22 @@
  */
 package edu.cmu.sv.modelinference.common.formats.st;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import edu.cmu.sv.modelinference.common.formats.DataPoint;
 import edu.cmu.sv.modelinference.common.formats.DataPointCollection;
 import edu.cmu.sv.modelinference.common.formats.DataSetFactory;
-import edu.cmu.sv.modelinference.common.formats.ValueTrackerProducer;
+import edu.cmu.sv.modelinference.common.formats.NumericField;
+import edu.cmu.sv.modelinference.common.formats.NumericValueTracker;
 import edu.cmu.sv.modelinference.common.parser.LogReader;
 
 /**
  * 
  * @author Kasper Luckow
  *
- * This class should be removed and made generic instead. Instead of a having a notion of "field" only for
- * ST, this should be generalized in which case we can use Data points generator for arbitrary log formats.
+ * Tracks one of the numeric fields of ST entries. The fields are compiled to direct getter
+ * calls (see {@link NumericField}); logs of other formats can be tracked with a
+ * {@link NumericValueTracker} directly, e.g. through a schema (see formats.schema).
  */
-public abstract class STValueTracker<S> extends ValueTrackerProducer<STEntry, S, Double> {
+public abstract class STValueTracker<S> extends NumericValueTracker<STEntry, S> {
   
   public static class STDataPointsGenerator extends STValueTracker<DataPointCollection> {
     private static final DataSetFactory<DataPointCollection> FACTORY = new DataSetFactory<DataPointCollection>() {
@@ -47,23 +46,23 @@ public abstract class STValueTracker<S> extends ValueTrackerProducer<STEntry, S,
     }
 
     @Override
-    public void addToDataSet(DataPointCollection dataset, double time, Double data) {
-      dataset.add(new DataPoint(time, data));
+    public void addValue(DataPointCollection dataset, double time, double value) {
+      dataset.add(new DataPoint(time, value));
     }
   }
   
-  //This is really ugly -- should have a tighter connection to the entry
   //Currently only supports numeric types. It would be nice to also track string types e.g. AC_TYPE
   public static enum FIELD {
-    PHI("phi", "NA"),
-    SPEED("speed", "km/h"),
-    UTCTIME("utc", "s"),
-    POS_X("x", "feet"),
-    POS_Y("y", "feet"),
-    POS_Z("z", "feet");
+    PHI("phi", "NA", "getPhi"),
+    SPEED("speed", "km/h", "getSpeed"),
+    UTCTIME("utc", "s", "getUtcTime"),
+    POS_X("x", "feet", "getPosition.getX"),
+    POS_Y("y", "feet", "getPosition.getY"),
+    POS_Z("z", "feet", "getPosition.getZ");
     
     private final String id;
     private final String unit;
+    private final String getters;
     
     public String getId() {
       return this.id;
@@ -73,41 +72,25 @@ public abstract class STValueTracker<S> extends ValueTrackerProducer<STEntry, S,
       return this.unit;
     }
     
-    FIELD(String id, String unit) {
+    public NumericField<STEntry> compile() {
+      return NumericField.compile(STEntry.class, id, unit, getters);
+    }
+    
+    FIELD(String id, String unit, String getters) {
       this.id = id;
       this.unit = unit;
+      this.getters = getters;
     }
   }
   
   private final FIELD field;
   
   public STValueTracker(FIELD field, LogReader<STEntry> logReader, DataSetFactory<S> dataFactory) {
-    super(logReader, dataFactory);
+    super(logReader, dataFactory, field.compile());
     this.field = field;
   }
-  
-  private double getValue(STEntry entry, FIELD f) {
-    switch(f) {
-    case PHI:
-      return entry.getPhi();
-    case SPEED:
-      return entry.getSpeed();
-    case UTCTIME:
-      return entry.getUtcTime();
-    case POS_X:
-      return entry.getPosition().getX();
-    case POS_Y:
-      return entry.getPosition().getY();
-    case POS_Z:
-      return entry.getPosition().getZ();
-    default:
-      throw new RuntimeException("Does not support field type " + f.id);
-    }
-  }
 
-  @Override
-  public Double getData(STEntry entry) {
-    double val = getValue(entry, field);
-    return val;
+  public FIELD getTrackedField() {
+    return this.field;
   }
 }
@@ -19,20 +19,25 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import edu.cmu.sv.modelinference.common.formats.st.STEntry;
-import edu.cmu.sv.modelinference.common.formats.st.STParser;
+import edu.cmu.sv.modelinference.common.formats.st.FastSTParser;
+import edu.cmu.sv.modelinference.common.generators.BatchLogProcessor;
+import edu.cmu.sv.modelinference.common.generators.BatchingLogProcessor;
+import edu.cmu.sv.modelinference.common.generators.EntryBlock;
 import edu.cmu.sv.modelinference.common.generators.LogEntryFilter;
-import edu.cmu.sv.modelinference.common.generators.LogProcessor;
+import edu.cmu.sv.modelinference.common.parser.StringDictionary;
 import edu.cmu.sv.modelinference.common.parser.LogReader;
-import edu.cmu.sv.modelinference.common.parser.SequentialLogReader;
+import edu.cmu.sv.modelinference.common.parser.LogReaders;
 
 /**
  * @author Kasper Luckow
  */
-public class DelayFinder implements LogProcessor<STEntry> {
+public class DelayFinder implements BatchLogProcessor<STEntry> {
   
   public static class Delay {
     public double start;
@@ -49,30 +54,47 @@ public class DelayFinder implements LogProcessor<STEntry> {
   }
   
   private Map<String, Delay> vehicleDelay;
+  //Indexed by the producer index of the reader; null for vehicles not seen in this log
+  private final List<Delay> delays = new ArrayList<>();
   private final LogReader<STEntry> stReader;
+  private final BatchingLogProcessor<STEntry> batcher;
   
   public DelayFinder(LogEntryFilter<STEntry> filter) throws IOException {
-    stReader = new SequentialLogReader<>(new STParser(), filter);
-    stReader.addLogProcessor(this);
+    stReader = LogReaders.create(new FastSTParser(), filter);
+    batcher = new BatchingLogProcessor<>(this, null, stReader.getProducerDictionary());
+    stReader.addLogProcessor(batcher);
   }
   
   public void start(File logFile) throws IOException {
     vehicleDelay = new HashMap<>();
+    delays.clear();
+    batcher.clear();
     stReader.parseLog(logFile);
+    batcher.flush();
+    StringDictionary vehicles = batcher.getProducers();
+    for(int i = 0; i < delays.size(); i++) {
+      if(delays.get(i) != null)
+        vehicleDelay.put(vehicles.get(i), delays.get(i));
+    }
   }
   
   @Override
-  public void process(STEntry entry) {
-    String vehicleName = entry.getCallSign();
-    double timestamp = entry.getLogTime();
-    if(!this.vehicleDelay.containsKey(vehicleName)) {
-      this.vehicleDelay.put(vehicleName, new Delay(timestamp));
-    } else {
-      Delay d = this.vehicleDelay.get(vehicleName);
-      if(timestamp < d.start)
-        d.start = timestamp;
-      if(timestamp > d.end)
-        d.end = timestamp;
+  public void processBatch(EntryBlock<STEntry> block) {
+    double[] time = block.getTimeColumn();
+    int[] vehicle = block.getProducerColumn();
+    for(int i = 0; i < block.size(); i++) {
+      double timestamp = time[i];
+      Delay d = (vehicle[i] < delays.size()) ? delays.get(vehicle[i]) : null;
+      if(d == null) {
+        while(delays.size() <= vehicle[i])
+          delays.add(null);
+        delays.set(vehicle[i], new Delay(timestamp));
+      } else {
+        if(timestamp < d.start)
+          d.start = timestamp;
+        if(timestamp > d.end)
+          d.end = timestamp;
+      }
     }
   } 
   
@@ -19,56 +19,119 @@ import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 
+import edu.cmu.sv.modelinference.common.formats.st.FastSTParser;
 import edu.cmu.sv.modelinference.common.formats.st.STEntry;
-import edu.cmu.sv.modelinference.common.formats.st.STParser;
+import edu.cmu.sv.modelinference.common.formats.st.STEntryCodec;
+import edu.cmu.sv.modelinference.common.formats.st.STEntryColumns;
+import edu.cmu.sv.modelinference.common.generators.BatchLogProcessor;
+import edu.cmu.sv.modelinference.common.generators.BatchingLogProcessor;
+import edu.cmu.sv.modelinference.common.generators.EntryBlock;
+import edu.cmu.sv.modelinference.common.generators.EntryColumns;
 import edu.cmu.sv.modelinference.common.generators.LogEntryFilter;
-import edu.cmu.sv.modelinference.common.generators.LogProcessor;
+import edu.cmu.sv.modelinference.common.generators.UnorderedLogProcessor;
 import edu.cmu.sv.modelinference.common.parser.LogReader;
-import edu.cmu.sv.modelinference.common.parser.SequentialLogReader;
+import edu.cmu.sv.modelinference.common.parser.LogReaders;
+import edu.cmu.sv.modelinference.common.parser.MultiLogReader;
+import edu.cmu.sv.modelinference.common.parser.cache.CachedLogReader;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryBuffer;
+import edu.cmu.sv.modelinference.common.parser.cache.LogCacheFile;
 
 /**
  * @author Kasper Luckow
  */
-public class GridDimensionsFinder implements LogProcessor<STEntry> {
+public class GridDimensionsFinder implements BatchLogProcessor<STEntry> {
   
   public static class Dimensions {
     public double maxX = Double.MIN_VALUE;
     public double maxY = Double.MIN_VALUE;
     public double minX = Double.MAX_VALUE;
     public double minY = Double.MAX_VALUE;
+
+    public void add(double x, double y) {
+      if(x > maxX)
+        maxX = x;
+      if(x < minX)
+        minX = x;
+
+      if(y > maxY)
+        maxY = y;
+      if(y < minY)
+        minY = y;
+    }
   }
   
   private final LogReader<STEntry> stReader;
+  //The dimensions do not depend on the order of the entries, so logs of several files need not be merged
+  private static class UnorderedBatcher extends BatchingLogProcessor<STEntry> implements UnorderedLogProcessor<STEntry> {
+    UnorderedBatcher(BatchLogProcessor<STEntry> target, EntryColumns<STEntry> columns) {
+      super(target, columns);
+    }
+  }
+
+  private final BatchingLogProcessor<STEntry> batcher = new UnorderedBatcher(this, STEntryColumns.getInstance());
+  private final boolean filtered;
   private Dimensions dim;
+  private EntryBuffer<STEntry> buffer = null;
   
   public GridDimensionsFinder() throws IOException {
-    stReader = new SequentialLogReader<>(new STParser());
-    stReader.addLogProcessor(this);
+    stReader = LogReaders.create(new FastSTParser());
+    stReader.addLogProcessor(batcher);
+    filtered = false;
   }
   
   public GridDimensionsFinder(LogEntryFilter<STEntry> filter) throws IOException {
-    stReader = new SequentialLogReader<>(new STParser(), filter);
-    stReader.addLogProcessor(this);
+    stReader = LogReaders.create(new FastSTParser(), filter);
+    stReader.addLogProcessor(batcher);
+    filtered = filter != null;
   }
   
   public Dimensions start(File logFile) throws IOException {
+    return start(logFile, null);
+  }
+
+  /**
+   * Determines the dimensions reading the log at most once. Unless the finder is filtered,
+   * the dimensions are taken from the statistics of an up to date cache if there is one.
+   * Otherwise the log is read and the entries are kept in the buffer (if not null), so they
+   * can be replayed instead of reading the log again. The buffer is left empty if the log
+   * was not read, or if it consists of several files (whose entries are not read in time order).
+   */
+  public Dimensions start(File logFile, EntryBuffer<STEntry> buffer) throws IOException {
     this.dim = new Dimensions();
-    stReader.parseLog(logFile);
+    if(!filtered && stReader instanceof CachedLogReader) {
+      try(LogCacheFile cache = ((CachedLogReader<STEntry>)stReader).openCache(logFile)) {
+        if(cache != null) {
+          double[] x = cache.getDoubleRange(STEntryCodec.X);
+          double[] y = cache.getDoubleRange(STEntryCodec.Y);
+          if(cache.getRowCount() > 0) {
+            dim.add(x[0], y[0]);
+            dim.add(x[1], y[1]);
+          }
+          return this.dim;
+        }
+      }
+    }
+    this.buffer = (MultiLogReader.getLogFiles(logFile).size() > 1) ? null : buffer;
+    batcher.clear();
+    try {
+      stReader.parseLog(logFile);
+      batcher.flush();
+    } finally {
+      this.buffer = null;
+    }
     return this.dim;
   }
   
   @Override
-  public void process(STEntry entry) {
-    double x = entry.getPosition().getX(); 
-    if(x > dim.maxX)
-      dim.maxX = x;
-    if(x < dim.minX)
-      dim.minX = x;
-    
-    double y = entry.getPosition().getY(); 
-    if(y > dim.maxY)
-      dim.maxY = y;
-    if(y < dim.minY)
-      dim.minY = y;
+  public void processBatch(EntryBlock<STEntry> block) {
+    double[] x = block.getXColumn();
+    double[] y = block.getYColumn();
+    int size = block.size();
+    for(int i = 0; i < size; i++)
+      dim.add(x[i], y[i]);
+    if(buffer != null) {
+      for(int i = 0; i < size; i++)
+        buffer.process(block.getEntry(i));
+    }
   }
 }
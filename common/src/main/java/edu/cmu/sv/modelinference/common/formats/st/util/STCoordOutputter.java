@@ -20,33 +20,42 @@ import java.io.IOException;
 import java.io.PrintWriter;
 
 import edu.cmu.sv.modelinference.common.formats.st.STEntry;
-import edu.cmu.sv.modelinference.common.formats.st.STParser;
+import edu.cmu.sv.modelinference.common.formats.st.FastSTParser;
+import edu.cmu.sv.modelinference.common.formats.st.STEntryColumns;
+import edu.cmu.sv.modelinference.common.generators.BatchLogProcessor;
+import edu.cmu.sv.modelinference.common.generators.BatchingLogProcessor;
+import edu.cmu.sv.modelinference.common.generators.EntryBlock;
 import edu.cmu.sv.modelinference.common.generators.LogEntryFilter;
-import edu.cmu.sv.modelinference.common.generators.LogProcessor;
 import edu.cmu.sv.modelinference.common.parser.LogReader;
-import edu.cmu.sv.modelinference.common.parser.SequentialLogReader;
+import edu.cmu.sv.modelinference.common.parser.LogReaders;
 
 /**
  * @author Kasper Luckow
  */
-public class STCoordOutputter implements LogProcessor<STEntry> {
+public class STCoordOutputter implements BatchLogProcessor<STEntry> {
   private PrintWriter writer;
   private LogReader<STEntry> stReader;
+  private final BatchingLogProcessor<STEntry> batcher = new BatchingLogProcessor<>(this, STEntryColumns.getInstance());
   
   public STCoordOutputter(LogEntryFilter<STEntry> filter) throws IOException {
-    stReader = new SequentialLogReader<>(new STParser(), filter);
-    stReader.addLogProcessor(this);
+    stReader = LogReaders.create(new FastSTParser(), filter);
+    stReader.addLogProcessor(batcher);
     
   }
   
   public void start(File logFile, File outputFile) throws IOException {
     this.writer = new PrintWriter(outputFile, "UTF-8");
+    batcher.clear();
     stReader.parseLog(logFile);
+    batcher.flush();
     this.writer.close();
   }
   
   @Override
-  public void process(STEntry entry) {
-    this.writer.println(entry.getPosition().getX() + ", " + entry.getPosition().getY());
+  public void processBatch(EntryBlock<STEntry> block) {
+    double[] x = block.getXColumn();
+    double[] y = block.getYColumn();
+    for(int i = 0; i < block.size(); i++)
+      this.writer.println(x[i] + ", " + y[i]);
   }
 }
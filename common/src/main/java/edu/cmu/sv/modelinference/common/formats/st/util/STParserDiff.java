@@ -0,0 +1,167 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.st.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Random;
+
+import edu.cmu.sv.modelinference.common.formats.st.FastSTParser;
+import edu.cmu.sv.modelinference.common.formats.st.STEntry;
+import edu.cmu.sv.modelinference.common.formats.st.STParser;
+import edu.cmu.sv.modelinference.common.generators.LogParser;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
+
+/**
+ * @author Kasper Luckow
+ * Differential check of {@link FastSTParser} against the reference {@link STParser}.
+ * Every line of the supplied logs, followed by a batch of generated lines exercising
+ * number formats and malformed input, is fed to both parsers. Both must either reject
+ * the line or produce identical entries.
+ *
+ * Usage: STParserDiff [log files...]
+ */
+public class STParserDiff {
+
+  private static final int GENERATED_LINES = 200000;
+
+  private final LogParser<STEntry> reference = new STParser();
+  private final LogParser<STEntry> candidate = new FastSTParser();
+  private final ParseResult<STEntry> expectedResult = new ParseResult<>();
+  private final ParseResult<STEntry> actualResult = new ParseResult<>();
+  private long lines = 0, mismatches = 0;
+
+  public static void main(String[] args) throws IOException {
+    STParserDiff diff = new STParserDiff();
+    for(String log : args)
+      diff.checkLog(new File(log));
+    diff.checkGenerated(new Random(42), GENERATED_LINES);
+    System.out.println("Checked " + diff.lines + " lines, " + diff.mismatches + " mismatches");
+    if(diff.mismatches > 0)
+      System.exit(1);
+  }
+
+  public void checkLog(File log) throws IOException {
+    try(BufferedReader rd = new BufferedReader(new FileReader(log))) {
+      String line;
+      while((line = rd.readLine()) != null)
+        check(line);
+    }
+  }
+
+  public void checkGenerated(Random rnd, int count) {
+    for(int i = 0; i < count; i++)
+      check(generateLine(rnd));
+  }
+
+  public boolean check(String line) {
+    lines++;
+    reference.tryParse(line, expectedResult);
+    candidate.tryParse(line, actualResult);
+    STEntry expected = expectedResult.getEntry(), actual = actualResult.getEntry();
+    if(expectedResult.getReason() == actualResult.getReason()) {
+      if(expected == null && actual == null)
+        return true;
+      if(expected != null && actual != null && sameEntry(expected, actual))
+        return true;
+    }
+    mismatches++;
+    System.err.println("Mismatch for line [" + line + "]: expected " + describe(expectedResult) + ", got " + describe(actualResult));
+    return false;
+  }
+
+  public static boolean sameEntry(STEntry e1, STEntry e2) {
+    return sameDouble(e1.getLogTime(), e2.getLogTime()) &&
+        e1.getUtcTime() == e2.getUtcTime() &&
+        Objects.equals(e1.getCallSign(), e2.getCallSign()) &&
+        Objects.equals(e1.getAcType(), e2.getAcType()) &&
+        Objects.equals(e1.getRegistration(), e2.getRegistration()) &&
+        Objects.equals(e1.getStatus(), e2.getStatus()) &&
+        sameDouble(e1.getPosition().getX(), e2.getPosition().getX()) &&
+        sameDouble(e1.getPosition().getY(), e2.getPosition().getY()) &&
+        sameDouble(e1.getPosition().getZ(), e2.getPosition().getZ()) &&
+        sameDouble(e1.getPhi(), e2.getPhi()) &&
+        sameDouble(e1.getSpeed(), e2.getSpeed());
+  }
+
+  private static boolean sameDouble(double d1, double d2) {
+    return Double.doubleToRawLongBits(d1) == Double.doubleToRawLongBits(d2);
+  }
+
+  private static String describe(ParseResult<STEntry> result) {
+    STEntry e = result.getEntry();
+    if(e == null)
+      return "<" + result.getReason().getDescription() + ">";
+    return e.getLogTime() + " " + e.getUtcTime() + " " + e.getCallSign() + " " + e.getAcType() + " " +
+        e.getRegistration() + " " + e.getStatus() + " " + e.getPosition().getX() + " " +
+        e.getPosition().getY() + " " + e.getPosition().getZ() + " " + e.getPhi() + " " + e.getSpeed();
+  }
+
+  private static final String[] SEPARATORS = {"\t", " ", "\t ", "  ", "\t\t"};
+  private static final String[] MALFORMED = {"", "-", ".", "1.2.3", "1e", "1e+", "abc", "NaN", "-Infinity", "0x1p3", "1d", "2f", " 7"};
+
+  private static String generateLine(Random rnd) {
+    StringBuilder sb = new StringBuilder();
+    if(rnd.nextInt(50) == 0)
+      sb.append(' ');
+    int fields = (rnd.nextInt(20) == 0) ? rnd.nextInt(14) : 11;
+    for(int i = 0; i < fields; i++) {
+      if(i > 0)
+        sb.append(SEPARATORS[rnd.nextInt(SEPARATORS.length)]);
+      if(rnd.nextInt(100) == 0) {
+        sb.append(MALFORMED[rnd.nextInt(MALFORMED.length)]);
+      } else if(i == 1) {
+        sb.append(rnd.nextInt(10) == 0 ? Long.toString(rnd.nextLong()) : Integer.toString(rnd.nextInt(100000)));
+      } else if(i >= 2 && i <= 5) {
+        sb.append("TUG").append(rnd.nextInt(30));
+      } else {
+        sb.append(generateNumber(rnd));
+      }
+    }
+    if(rnd.nextInt(50) == 0)
+      sb.append(' ');
+    return sb.toString();
+  }
+
+  private static String generateNumber(Random rnd) {
+    switch(rnd.nextInt(6)) {
+    case 0:
+      return Integer.toString(rnd.nextInt(1000));
+    case 1:
+      return String.format("%.4f", (rnd.nextDouble() - 0.3) * 2000);
+    case 2:
+      return Double.toString((rnd.nextDouble() - 0.5) * Math.pow(10, rnd.nextInt(40) - 20));
+    case 3:
+      return Float.toString(rnd.nextFloat() * rnd.nextInt(100000));
+    case 4: {
+      StringBuilder sb = new StringBuilder();
+      int digits = 1 + rnd.nextInt(22);
+      int dot = rnd.nextInt(digits + 1);
+      for(int i = 0; i < digits; i++) {
+        if(i == dot)
+          sb.append('.');
+        sb.append((char)('0' + rnd.nextInt(10)));
+      }
+      return sb.toString();
+    }
+    default:
+      return (rnd.nextBoolean() ? "-" : "+") + rnd.nextInt(100) + "." + rnd.nextInt(1000) + "e" + (rnd.nextInt(60) - 30);
+    }
+  }
+}
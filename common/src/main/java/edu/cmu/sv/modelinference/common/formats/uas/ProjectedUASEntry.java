@@ -0,0 +1,50 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.uas;
+
+import edu.cmu.sv.modelinference.common.parser.ColumnProjection;
+
+/**
+ * @author Kasper Luckow
+ * UAS entry that additionally carries the values of extra columns requested from
+ * {@link ProjectingUASParser}.
+ */
+public class ProjectedUASEntry extends UASEntry {
+
+  private final ColumnProjection projection;
+  private final double[] values;
+
+  public ProjectedUASEntry(double logTime, double lat, double lon, double alt, double height, double speed,
+      double direction, double roll, double pitch, double yaw, ColumnProjection projection, double[] values) {
+    super(logTime, lat, lon, alt, height, speed, direction, roll, pitch, yaw);
+    this.projection = projection;
+    this.values = values;
+  }
+
+  /**
+   * @return the value of a column that was projected by the parser
+   */
+  public double getColumn(int column) {
+    int slot = projection.getSlot(column);
+    if(slot < 0)
+      throw new IllegalArgumentException("Column " + column + " has not been projected");
+    return values[slot];
+  }
+
+  public boolean hasColumn(int column) {
+    return projection.getSlot(column) >= 0;
+  }
+}
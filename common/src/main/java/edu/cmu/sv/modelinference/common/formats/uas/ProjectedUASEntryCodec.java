@@ -0,0 +1,78 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.uas;
+
+import java.util.Arrays;
+
+import edu.cmu.sv.modelinference.common.parser.ColumnProjection;
+import edu.cmu.sv.modelinference.common.parser.cache.ColumnBlock;
+import edu.cmu.sv.modelinference.common.parser.cache.ColumnType;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryCodec;
+
+/**
+ * @author Kasper Luckow
+ * Stores one column per projected UAS column, in slot order (the time is slot 0).
+ */
+public class ProjectedUASEntryCodec implements EntryCodec<ProjectedUASEntry> {
+
+  private final ColumnProjection projection;
+  private final String name;
+  private final int[] entrySlots;
+
+  public ProjectedUASEntryCodec(ColumnProjection projection) {
+    this.projection = projection;
+    int[] columns = new int[projection.size()];
+    for(int slot = 0; slot < columns.length; slot++)
+      columns[slot] = projection.getColumn(slot);
+    this.name = "uas-projected-v1" + Arrays.toString(columns).replaceAll("[\\[\\] ]", "").replace(',', '-');
+    int[] entryColumns = {ProjectingUASParser.TIME, ProjectingUASParser.LAT, ProjectingUASParser.LON,
+        ProjectingUASParser.ALT, ProjectingUASParser.HEIGHT, ProjectingUASParser.SPEED,
+        ProjectingUASParser.DIRECTION, ProjectingUASParser.ROLL, ProjectingUASParser.PITCH, ProjectingUASParser.YAW};
+    this.entrySlots = new int[entryColumns.length];
+    for(int i = 0; i < entryColumns.length; i++)
+      this.entrySlots[i] = projection.getSlot(entryColumns[i]);
+    if(entrySlots[0] != 0)
+      throw new IllegalArgumentException("The time must be the first projected column");
+  }
+
+  @Override
+  public String getName() {
+    return this.name;
+  }
+
+  @Override
+  public ColumnType[] getColumnTypes() {
+    ColumnType[] types = new ColumnType[projection.size()];
+    Arrays.fill(types, ColumnType.DOUBLE);
+    return types;
+  }
+
+  @Override
+  public void encode(ProjectedUASEntry entry, ColumnBlock block, int row) {
+    for(int slot = 0; slot < projection.size(); slot++)
+      block.setDouble(slot, row, entry.getColumn(projection.getColumn(slot)));
+  }
+
+  @Override
+  public ProjectedUASEntry decode(ColumnBlock block, int row) {
+    double[] values = new double[projection.size()];
+    for(int slot = 0; slot < values.length; slot++)
+      values[slot] = block.getDouble(slot, row);
+    return new ProjectedUASEntry(values[entrySlots[0]], values[entrySlots[1]], values[entrySlots[2]],
+        values[entrySlots[3]], values[entrySlots[4]], values[entrySlots[5]], values[entrySlots[6]],
+        values[entrySlots[7]], values[entrySlots[8]], values[entrySlots[9]], projection, values);
+  }
+}
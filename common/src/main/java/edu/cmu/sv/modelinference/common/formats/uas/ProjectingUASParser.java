@@ -0,0 +1,118 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.uas;
+
+import edu.cmu.sv.modelinference.common.generators.MalformedReason;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
+import edu.cmu.sv.modelinference.common.generators.ParserException;
+import edu.cmu.sv.modelinference.common.parser.ColumnProjection;
+import edu.cmu.sv.modelinference.common.parser.LineTokenizer;
+import edu.cmu.sv.modelinference.common.parser.cache.CacheableLogParser;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryCodec;
+
+/**
+ * @author Kasper Luckow
+ * Parses UAS entries by walking the line once and only decoding the columns used by
+ * {@link UASEntry} plus any extra columns requested by the client. Like {@link UASParser},
+ * lines must have exactly 175 columns and values are parsed at float precision.
+ * The parser can be shared between threads.
+ */
+public class ProjectingUASParser implements CacheableLogParser<ProjectedUASEntry> {
+
+  public static final int COLUMN_COUNT = 175;
+
+  public static final int TIME = 0, LAT = 8, LON = 9, HEIGHT = 10, SPEED = 14,
+      DIRECTION = 15, ALT = 27, ROLL = 38, PITCH = 39, YAW = 40;
+
+  public static final ColumnProjection ENTRY_COLUMNS = new ColumnProjection(COLUMN_COUNT,
+      TIME, LAT, LON, HEIGHT, SPEED, DIRECTION, ALT, ROLL, PITCH, YAW);
+
+  private static class Scratch {
+    final LineTokenizer tokenizer = new LineTokenizer();
+    final int[] bounds;
+
+    Scratch(int slots) {
+      this.bounds = new int[2 * slots];
+    }
+  }
+
+  private final ColumnProjection projection;
+  private final ProjectedUASEntryCodec codec;
+  private final ThreadLocal<Scratch> scratch;
+
+  /**
+   * @param extraColumns additional columns that will be available through
+   * {@link ProjectedUASEntry#getColumn(int)}
+   */
+  public ProjectingUASParser(int... extraColumns) {
+    this.projection = ENTRY_COLUMNS.with(extraColumns);
+    this.codec = new ProjectedUASEntryCodec(projection);
+    this.scratch = new ThreadLocal<Scratch>() {
+      @Override
+      protected Scratch initialValue() {
+        return new Scratch(projection.size());
+      }
+    };
+  }
+
+  @Override
+  public ProjectedUASEntry parse(String rawEntry) throws ParserException {
+    return parse((CharSequence)rawEntry);
+  }
+
+  @Override
+  public ProjectedUASEntry parse(CharSequence rawEntry) throws ParserException {
+    ParseResult<ProjectedUASEntry> result = new ParseResult<>();
+    tryParse(rawEntry, result);
+    return result.getOrThrow();
+  }
+
+  @Override
+  public boolean tryParse(CharSequence rawEntry, ParseResult<ProjectedUASEntry> result) {
+    Scratch s = scratch.get();
+    LineTokenizer tok = s.tokenizer.reset(rawEntry);
+    if(tok.project(projection, s.bounds) != COLUMN_COUNT) //Not a valid entry (e.g. newline)
+      return result.reject(MalformedReason.ofInvalidLength(rawEntry));
+    try {
+      double[] values = new double[projection.size()];
+      for(int slot = 0; slot < values.length; slot++)
+        values[slot] = tok.select(s.bounds, slot).parseFloat();
+
+      return result.accept(new ProjectedUASEntry(values[projection.getSlot(TIME)],
+          values[projection.getSlot(LAT)],
+          values[projection.getSlot(LON)],
+          values[projection.getSlot(ALT)],
+          values[projection.getSlot(HEIGHT)],
+          values[projection.getSlot(SPEED)],
+          values[projection.getSlot(DIRECTION)],
+          values[projection.getSlot(ROLL)],
+          values[projection.getSlot(PITCH)],
+          values[projection.getSlot(YAW)],
+          projection, values));
+    } catch (NumberFormatException e) { // Not a valid entry
+      return result.reject(MalformedReason.NUMBER_FORMAT);
+    }
+  }
+
+  public ColumnProjection getProjection() {
+    return this.projection;
+  }
+
+  @Override
+  public EntryCodec<ProjectedUASEntry> getCodec() {
+    return codec;
+  }
+}
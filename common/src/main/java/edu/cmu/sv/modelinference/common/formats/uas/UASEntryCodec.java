@@ -0,0 +1,82 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.uas;
+
+import edu.cmu.sv.modelinference.common.parser.cache.ColumnBlock;
+import edu.cmu.sv.modelinference.common.parser.cache.ColumnType;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryCodec;
+
+/**
+ * @author Kasper Luckow
+ */
+public class UASEntryCodec implements EntryCodec<UASEntry> {
+
+  public static final int TIME = 0, LAT = 1, LON = 2, ALT = 3, HEIGHT = 4, SPEED = 5,
+      DIRECTION = 6, ROLL = 7, PITCH = 8, YAW = 9;
+
+  private static final ColumnType[] COLUMNS = {
+      ColumnType.DOUBLE, ColumnType.DOUBLE, ColumnType.DOUBLE, ColumnType.DOUBLE, ColumnType.DOUBLE,
+      ColumnType.DOUBLE, ColumnType.DOUBLE, ColumnType.DOUBLE, ColumnType.DOUBLE, ColumnType.DOUBLE };
+
+  private static UASEntryCodec instance = null;
+
+  public static UASEntryCodec getInstance() {
+    if(instance == null) {
+      instance = new UASEntryCodec();
+    }
+    return instance;
+  }
+
+  private UASEntryCodec() { }
+
+  @Override
+  public String getName() {
+    return "uas-v1";
+  }
+
+  @Override
+  public ColumnType[] getColumnTypes() {
+    return COLUMNS.clone();
+  }
+
+  @Override
+  public void encode(UASEntry entry, ColumnBlock block, int row) {
+    block.setDouble(TIME, row, entry.getLogTime());
+    block.setDouble(LAT, row, entry.getLat());
+    block.setDouble(LON, row, entry.getLon());
+    block.setDouble(ALT, row, entry.getAlt());
+    block.setDouble(HEIGHT, row, entry.getHeight());
+    block.setDouble(SPEED, row, entry.getSpeed());
+    block.setDouble(DIRECTION, row, entry.getDirection());
+    block.setDouble(ROLL, row, entry.getRoll());
+    block.setDouble(PITCH, row, entry.getPitch());
+    block.setDouble(YAW, row, entry.getYaw());
+  }
+
+  @Override
+  public UASEntry decode(ColumnBlock block, int row) {
+    return new UASEntry(block.getDouble(TIME, row),
+        block.getDouble(LAT, row),
+        block.getDouble(LON, row),
+        block.getDouble(ALT, row),
+        block.getDouble(HEIGHT, row),
+        block.getDouble(SPEED, row),
+        block.getDouble(DIRECTION, row),
+        block.getDouble(ROLL, row),
+        block.getDouble(PITCH, row),
+        block.getDouble(YAW, row));
+  }
+}
@@ -15,20 +15,30 @@
  */
 package edu.cmu.sv.modelinference.common.formats.uas;
 
-import edu.cmu.sv.modelinference.common.generators.LogParser;
+import edu.cmu.sv.modelinference.common.generators.MalformedReason;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
 import edu.cmu.sv.modelinference.common.generators.ParserException;
+import edu.cmu.sv.modelinference.common.parser.cache.CacheableLogParser;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryCodec;
 
 /**
  * @author Kasper Luckow
  *
  */
-public class UASParser implements LogParser<UASEntry> {
+public class UASParser implements CacheableLogParser<UASEntry> {
 
   @Override
   public UASEntry parse(String rawEntry) throws ParserException {
-    String[] entry = rawEntry.split("\\s+");
+    ParseResult<UASEntry> result = new ParseResult<>();
+    tryParse(rawEntry, result);
+    return result.getOrThrow();
+  }
+
+  @Override
+  public boolean tryParse(CharSequence rawEntry, ParseResult<UASEntry> result) {
+    String[] entry = rawEntry.toString().split("\\s+");
     if(entry.length != 175) //Not a valid entry (e.g. newline)
-      throw new ParserException("Invalid entry length");
+      return result.reject(MalformedReason.ofInvalidLength(rawEntry));
     try {      
       double time = Float.valueOf(entry[0]);
       double lat = Float.valueOf(entry[8]);
@@ -41,9 +51,14 @@ public class UASParser implements LogParser<UASEntry> {
       double pitch = Float.valueOf(entry[39]);
       double yaw = Float.valueOf(entry[40]);
       
-      return new UASEntry(time, lat, lon, alt, height, speed, direction, roll, pitch, yaw);
+      return result.accept(new UASEntry(time, lat, lon, alt, height, speed, direction, roll, pitch, yaw));
     } catch (NumberFormatException e) { // Not a valid entry
-      throw new ParserException(e);
+      return result.reject(MalformedReason.NUMBER_FORMAT);
     }
   }
+
+  @Override
+  public EntryCodec<UASEntry> getCodec() {
+    return UASEntryCodec.getInstance();
+  }
 }
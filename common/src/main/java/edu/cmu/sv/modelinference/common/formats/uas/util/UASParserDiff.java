@@ -0,0 +1,137 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.formats.uas.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import edu.cmu.sv.modelinference.common.formats.uas.ProjectedUASEntry;
+import edu.cmu.sv.modelinference.common.formats.uas.ProjectingUASParser;
+import edu.cmu.sv.modelinference.common.formats.uas.UASEntry;
+import edu.cmu.sv.modelinference.common.formats.uas.UASParser;
+import edu.cmu.sv.modelinference.common.generators.LogParser;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
+import edu.cmu.sv.modelinference.common.generators.ParserException;
+
+/**
+ * @author Kasper Luckow
+ * Checks that {@link ProjectingUASParser} produces the same entries as {@link UASParser}
+ * and reports the time both parsers take. Without arguments, synthetic 175 column lines
+ * are used.
+ *
+ * Usage: UASParserDiff [log files...]
+ */
+public class UASParserDiff {
+
+  private static final int GENERATED_LINES = 100000;
+  private static final int ROUNDS = 5;
+
+  public static void main(String[] args) throws IOException {
+    List<String> lines = new ArrayList<>();
+    if(args.length == 0) {
+      Random rnd = new Random(42);
+      for(int i = 0; i < GENERATED_LINES; i++)
+        lines.add(generateLine(rnd, i));
+    } else {
+      for(String log : args) {
+        try(BufferedReader rd = new BufferedReader(new FileReader(new File(log)))) {
+          String line;
+          while((line = rd.readLine()) != null)
+            lines.add(line);
+        }
+      }
+    }
+
+    UASParser reference = new UASParser();
+    ProjectingUASParser candidate = new ProjectingUASParser();
+    ParseResult<UASEntry> expectedResult = new ParseResult<>();
+    ParseResult<ProjectedUASEntry> actualResult = new ParseResult<>();
+    long mismatches = 0;
+    for(String line : lines) {
+      reference.tryParse(line, expectedResult);
+      candidate.tryParse(line, actualResult);
+      if(expectedResult.getReason() != actualResult.getReason() ||
+          !sameEntry(expectedResult.getEntry(), actualResult.getEntry())) {
+        mismatches++;
+        System.err.println("Mismatch for line [" + line + "]");
+      }
+    }
+    System.out.println("Checked " + lines.size() + " lines, " + mismatches + " mismatches");
+
+    for(int i = 0; i < ROUNDS; i++) {
+      long splitTime = time(reference, lines);
+      long projectedTime = time(candidate, lines);
+      System.out.println("Round " + i + ": split " + splitTime / 1000000 + "ms, projected " + projectedTime / 1000000 + "ms");
+    }
+    if(mismatches > 0)
+      System.exit(1);
+  }
+
+  private static long time(LogParser<? extends UASEntry> parser, List<String> lines) {
+    long start = System.nanoTime();
+    double sink = 0;
+    for(String line : lines) {
+      UASEntry e = parseOrNull(parser, line);
+      if(e != null)
+        sink += e.getLogTime();
+    }
+    long elapsed = System.nanoTime() - start;
+    if(sink == Double.MIN_VALUE)
+      System.out.println(sink);
+    return elapsed;
+  }
+
+  private static UASEntry parseOrNull(LogParser<? extends UASEntry> parser, String line) {
+    try {
+      return parser.parse(line);
+    } catch (ParserException e) {
+      return null;
+    }
+  }
+
+  private static boolean sameEntry(UASEntry e1, UASEntry e2) {
+    if(e1 == null || e2 == null)
+      return e1 == e2;
+    return same(e1.getLogTime(), e2.getLogTime()) && same(e1.getLat(), e2.getLat()) &&
+        same(e1.getLon(), e2.getLon()) && same(e1.getAlt(), e2.getAlt()) &&
+        same(e1.getHeight(), e2.getHeight()) && same(e1.getSpeed(), e2.getSpeed()) &&
+        same(e1.getDirection(), e2.getDirection()) && same(e1.getRoll(), e2.getRoll()) &&
+        same(e1.getPitch(), e2.getPitch()) && same(e1.getYaw(), e2.getYaw());
+  }
+
+  private static boolean same(double d1, double d2) {
+    return Double.doubleToRawLongBits(d1) == Double.doubleToRawLongBits(d2);
+  }
+
+  private static String generateLine(Random rnd, int i) {
+    StringBuilder sb = new StringBuilder();
+    int columns = (rnd.nextInt(100) == 0) ? 174 : ProjectingUASParser.COLUMN_COUNT;
+    sb.append(i * 20);
+    for(int col = 1; col < columns; col++) {
+      sb.append(rnd.nextBoolean() ? ' ' : '\t');
+      if(rnd.nextInt(5000) == 0)
+        sb.append("n/a");
+      else
+        sb.append(String.format("%.6f", (rnd.nextDouble() - 0.5) * 1000));
+    }
+    return sb.toString();
+  }
+}
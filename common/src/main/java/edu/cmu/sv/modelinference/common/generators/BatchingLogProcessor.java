@@ -0,0 +1,97 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.generators;
+
+import edu.cmu.sv.modelinference.common.parser.StringDictionary;
+
+/**
+ * @author Kasper Luckow
+ * Lets a {@link BatchLogProcessor} be fed by a log reader: entries are collected into a
+ * block which is handed to the batch processor whenever it is full. The owner must call
+ * flush() once the log has been read. Producer indexes are stable until clear() is called,
+ * or for the lifetime of the reader if the processor uses the producer dictionary of the
+ * reader.
+ */
+public class BatchingLogProcessor<T extends LogEntry> implements LogProcessor<T> {
+
+  private final BatchLogProcessor<T> target;
+  private final EntryColumns<T> columns;
+  private final int capacity;
+  private final StringDictionary readerProducers;
+  private EntryBlock<T> block;
+
+  /**
+   * @param columns fills the format specific columns or null if only time and producer
+   * index are needed
+   */
+  public BatchingLogProcessor(BatchLogProcessor<T> target, EntryColumns<T> columns) {
+    this(target, columns, EntryBlock.DEFAULT_CAPACITY);
+  }
+
+  public BatchingLogProcessor(BatchLogProcessor<T> target, EntryColumns<T> columns, int capacity) {
+    this(target, columns, capacity, null);
+  }
+
+  /**
+   * @param readerProducers the producer dictionary of the reader feeding the processor
+   * (see LogReader#getProducerDictionary()), whose producer indexes are then used as is.
+   * Null to assign indexes in a dictionary of the processor.
+   */
+  public BatchingLogProcessor(BatchLogProcessor<T> target, EntryColumns<T> columns, StringDictionary readerProducers) {
+    this(target, columns, EntryBlock.DEFAULT_CAPACITY, readerProducers);
+  }
+
+  public BatchingLogProcessor(BatchLogProcessor<T> target, EntryColumns<T> columns, int capacity, StringDictionary readerProducers) {
+    this.target = target;
+    this.columns = columns;
+    this.capacity = capacity;
+    this.readerProducers = readerProducers;
+    this.block = newBlock();
+  }
+
+  @Override
+  public void process(T entry) {
+    int row = block.add(entry);
+    if(columns != null)
+      columns.fill(entry, block, row);
+    if(block.isFull())
+      flush();
+  }
+
+  public void flush() {
+    if(block.size() > 0)
+      target.processBatch(block);
+    block.clear();
+  }
+
+  /**
+   * Drops pending entries and starts over with an empty producer dictionary (unless the
+   * dictionary of the reader is used)
+   */
+  public void clear() {
+    this.block = newBlock();
+  }
+
+  private EntryBlock<T> newBlock() {
+    if(readerProducers != null)
+      return new EntryBlock<>(capacity, readerProducers, true);
+    return new EntryBlock<>(capacity, new StringDictionary());
+  }
+
+  public StringDictionary getProducers() {
+    return block.getProducers();
+  }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.generators;
+
+import java.util.Arrays;
+
+import edu.cmu.sv.modelinference.common.parser.StringDictionary;
+
+/**
+ * @author Kasper Luckow
+ * A block of consecutive log entries stored as parallel arrays, so batch processors can
+ * loop over primitive columns instead of calling getters on every entry. Time and the
+ * producer index (the id of the producer in the dictionary of the block) are filled for
+ * every entry; the position, speed and phi columns are filled by the {@link EntryColumns}
+ * of the format and are NaN otherwise. Only the first size() elements of a column are valid.
+ *
+ * If the dictionary of the block is the producer dictionary of the reader, the producer
+ * index the reader assigned to an entry is used as is.
+ */
+public class EntryBlock<T extends LogEntry> {
+
+  public static final int DEFAULT_CAPACITY = 4096;
+
+  private final StringDictionary producers;
+  private final boolean readerIndexed;
+  private final Object[] entries;
+  private final double[] time, x, y, z, speed, phi;
+  private final int[] producer;
+  private int size = 0;
+
+  public EntryBlock(int capacity, StringDictionary producers) {
+    this(capacity, producers, false);
+  }
+
+  /**
+   * @param readerIndexed whether producers is the producer dictionary of the reader that
+   * read the entries (see LogReader#getProducerDictionary())
+   */
+  public EntryBlock(int capacity, StringDictionary producers, boolean readerIndexed) {
+    if(capacity < 1)
+      throw new IllegalArgumentException("Capacity must be positive");
+    this.producers = producers;
+    this.readerIndexed = readerIndexed;
+    this.entries = new Object[capacity];
+    this.time = new double[capacity];
+    this.x = new double[capacity];
+    this.y = new double[capacity];
+    this.z = new double[capacity];
+    this.speed = new double[capacity];
+    this.phi = new double[capacity];
+    this.producer = new int[capacity];
+  }
+
+  /**
+   * @return the row of the entry
+   */
+  public int add(T entry) {
+    if(isFull())
+      throw new IllegalStateException("Block is full");
+    int row = size++;
+    entries[row] = entry;
+    time[row] = entry.getLogTime();
+    int index = readerIndexed ? entry.getLogProducerIndex() : -1;
+    producer[row] = (index >= 0) ? index : producers.getId(entry.getLogProducerId());
+    x[row] = y[row] = z[row] = speed[row] = phi[row] = Double.NaN;
+    return row;
+  }
+
+  public void setPosition(int row, double x, double y, double z) {
+    this.x[row] = x;
+    this.y[row] = y;
+    this.z[row] = z;
+  }
+
+  public void setSpeed(int row, double speed) {
+    this.speed[row] = speed;
+  }
+
+  public void setPhi(int row, double phi) {
+    this.phi[row] = phi;
+  }
+
+  public void clear() {
+    Arrays.fill(entries, 0, size, null);
+    size = 0;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public int getCapacity() {
+    return this.entries.length;
+  }
+
+  public boolean isFull() {
+    return size == entries.length;
+  }
+
+  @SuppressWarnings("unchecked")
+  public T getEntry(int row) {
+    return (T)entries[row];
+  }
+
+  public String getProducerId(int row) {
+    return producers.get(producer[row]);
+  }
+
+  public StringDictionary getProducers() {
+    return this.producers;
+  }
+
+  public double[] getTimeColumn() {
+    return this.time;
+  }
+
+  public double[] getXColumn() {
+    return this.x;
+  }
+
+  public double[] getYColumn() {
+    return this.y;
+  }
+
+  public double[] getZColumn() {
+    return this.z;
+  }
+
+  public double[] getSpeedColumn() {
+    return this.speed;
+  }
+
+  public double[] getPhiColumn() {
+    return this.phi;
+  }
+
+  public int[] getProducerColumn() {
+    return this.producer;
+  }
+}
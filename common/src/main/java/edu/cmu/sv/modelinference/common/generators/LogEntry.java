@@ -20,6 +20,7 @@ package edu.cmu.sv.modelinference.common.generators;
  */
 public abstract class LogEntry {
   private final double logTime;
+  private int logProducerIndex = -1;
   
   public LogEntry(double logTime) {
     this.logTime = logTime;
@@ -30,5 +31,20 @@ public abstract class LogEntry {
   }
   
   public abstract String getLogProducerId();
+
+  /**
+   * @return the dense index of the producer id in the producer dictionary of the reader
+   * that read the entry, or -1 if the entry has not been processed by a reader
+   */
+  public int getLogProducerIndex() {
+    return this.logProducerIndex;
+  }
+
+  /**
+   * Set by the log reader before the entry is processed
+   */
+  public void setLogProducerIndex(int logProducerIndex) {
+    this.logProducerIndex = logProducerIndex;
+  }
   
 }
@@ -15,9 +15,43 @@
  */
 package edu.cmu.sv.modelinference.common.generators;
 
+import java.util.List;
+
+import edu.cmu.sv.modelinference.common.parser.RawColumnPredicate;
+
 /**
  * @author Kasper Luckow
  */
 public interface LogParser<T extends LogEntry> {
   public T parse(String rawEntry) throws ParserException;
+
+  /**
+   * Parses an entry from a line that may be backed by a buffer the reader reuses for the
+   * next line, so implementations must not retain rawEntry.
+   */
+  public default T parse(CharSequence rawEntry) throws ParserException {
+    return parse(rawEntry.toString());
+  }
+
+  /**
+   * Parses without throwing on malformed lines, which are common in field logs.
+   * Implementations should override this to avoid the cost of creating exceptions.
+   * @return true if the line yielded an entry, which is then stored in the result
+   */
+  public default boolean tryParse(CharSequence rawEntry, ParseResult<T> result) {
+    try {
+      return result.accept(parse(rawEntry));
+    } catch (ParserException e) {
+      return result.reject(MalformedReason.OTHER);
+    }
+  }
+
+  /**
+   * Like tryParse, but a well formed line whose raw columns fail any of the predicates is
+   * skipped (see {@link ParseResult#skip()}) without decoding the rest of it. Parsers
+   * that cannot evaluate the predicates ignore them, which is the default.
+   */
+  public default boolean tryParse(CharSequence rawEntry, ParseResult<T> result, List<RawColumnPredicate> predicates) {
+    return tryParse(rawEntry, result);
+  }
 }
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.generators;
+
+/**
+ * @author Kasper Luckow
+ * Why a line did not yield a log entry.
+ */
+public enum MalformedReason {
+  EMPTY_LINE("Empty line"),
+  FIELD_COUNT("Invalid entry length"),
+  NUMBER_FORMAT("Invalid number"),
+  OTHER("Rejected by parser");
+
+  private final String description;
+
+  MalformedReason(String description) {
+    this.description = description;
+  }
+
+  public String getDescription() {
+    return this.description;
+  }
+
+  /**
+   * @return the reason for a line with the wrong number of fields: blank lines are
+   * reported as empty
+   */
+  public static MalformedReason ofInvalidLength(CharSequence line) {
+    for(int i = 0; i < line.length(); i++) {
+      if(!Character.isWhitespace(line.charAt(i)))
+        return FIELD_COUNT;
+    }
+    return EMPTY_LINE;
+  }
+}
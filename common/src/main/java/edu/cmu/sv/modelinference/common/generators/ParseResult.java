@@ -0,0 +1,79 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.generators;
+
+/**
+ * @author Kasper Luckow
+ * Outcome of {@link LogParser#tryParse(CharSequence, ParseResult)}: either an entry or the
+ * reason why the line was rejected, or neither if the line was skipped because it failed
+ * a pushed down filter condition. Readers keep one instance per thread and reuse it for
+ * every line.
+ */
+public class ParseResult<T extends LogEntry> {
+  private T entry = null;
+  private MalformedReason reason = null;
+
+  /**
+   * @return true, for returning straight from tryParse
+   */
+  public boolean accept(T entry) {
+    this.entry = entry;
+    this.reason = null;
+    return true;
+  }
+
+  /**
+   * @return false, for returning straight from tryParse
+   */
+  public boolean reject(MalformedReason reason) {
+    this.entry = null;
+    this.reason = reason;
+    return false;
+  }
+
+  /**
+   * @return false, for returning straight from tryParse
+   */
+  public boolean skip() {
+    this.entry = null;
+    this.reason = null;
+    return false;
+  }
+
+  public boolean isSkipped() {
+    return this.entry == null && this.reason == null;
+  }
+
+  public T getEntry() {
+    return this.entry;
+  }
+
+  /**
+   * @return the reason or null if the line was parsed
+   */
+  public MalformedReason getReason() {
+    return this.reason;
+  }
+
+  /**
+   * Bridges to the throwing {@link LogParser#parse(String)} contract
+   */
+  public T getOrThrow() throws ParserException {
+    if(reason != null)
+      throw new ParserException(reason.getDescription());
+    return entry;
+  }
+}
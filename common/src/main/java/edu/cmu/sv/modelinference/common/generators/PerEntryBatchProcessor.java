@@ -0,0 +1,35 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.generators;
+
+/**
+ * @author Kasper Luckow
+ * Lets an ordinary {@link LogProcessor} consume entry blocks.
+ */
+public class PerEntryBatchProcessor<T extends LogEntry> implements BatchLogProcessor<T> {
+
+  private final LogProcessor<T> target;
+
+  public PerEntryBatchProcessor(LogProcessor<T> target) {
+    this.target = target;
+  }
+
+  @Override
+  public void processBatch(EntryBlock<T> block) {
+    for(int i = 0; i < block.size(); i++)
+      target.process(block.getEntry(i));
+  }
+}
@@ -0,0 +1,27 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.generators;
+
+/**
+ * @author Kasper Luckow
+ * Marker for processors that only need the entries of each log producer in log order.
+ * Readers that dispatch concurrently may invoke such a processor from several threads at
+ * once, but never concurrently for the same producer id. Such readers set the producer
+ * index of the entries (in order of first occurrence in the log) before dispatching them.
+ */
+public interface ProducerOrderedLogProcessor<T extends LogEntry> extends LogProcessor<T> {
+
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.generators;
+
+import java.util.List;
+
+import edu.cmu.sv.modelinference.common.parser.RawColumnPredicate;
+
+/**
+ * @author Kasper Luckow
+ * Filter that also states conditions on the raw columns of a line. Readers hand them to
+ * parsers that support pushdown, which then skip lines failing any of the conditions
+ * without decoding them. Every entry accepted by submitForProcessing must satisfy all the
+ * raw conditions; submitForProcessing is still applied to the decoded entries, so
+ * parsers without pushdown support behave as before. Skipped lines are counted as
+ * filtered, even if columns that were not decoded are malformed.
+ */
+public interface PushdownFilter<T extends LogEntry> extends LogEntryFilter<T> {
+  public List<RawColumnPredicate> getRawPredicates();
+}
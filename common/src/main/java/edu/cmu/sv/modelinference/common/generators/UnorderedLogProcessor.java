@@ -0,0 +1,26 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.generators;
+
+/**
+ * @author Kasper Luckow
+ * Marker for processors that do not depend on the order of the entries. Readers of several
+ * logs feed each log to such processors as it is parsed instead of merging the logs on
+ * time first. The processor is never invoked concurrently.
+ */
+public interface UnorderedLogProcessor<T extends LogEntry> extends LogProcessor<T> {
+
+}
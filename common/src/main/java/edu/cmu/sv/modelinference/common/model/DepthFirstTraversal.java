@@ -0,0 +1,101 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author Kasper Luckow
+ * Depth-first traversal of the states reachable from a state with an explicit stack, so
+ * the depth of the model is not limited by the thread stack. Visitors see the same
+ * sequence of states and transitions as with a recursive traversal: a state is visited
+ * when it is first reached, then every outgoing transition is visited in order, each
+ * followed by the traversal of its destination.
+ *
+ * Visited states are recorded per traversal in a bitset indexed by state id (states that
+ * are not part of a model are tracked by identity), so independent traversals of the same
+ * model can run concurrently as long as the model is not changed.
+ */
+final class DepthFirstTraversal {
+
+  private final ModelVisitor visitor;
+  private final BitSet visited = new BitSet();
+  private Set<State> visitedWithoutId;
+
+  private State[] stackStates = new State[16];
+  private int[] stackEdges = new int[16];
+  private int top = -1;
+
+  private DepthFirstTraversal(ModelVisitor visitor) {
+    this.visitor = visitor;
+  }
+
+  static void traverse(State start, ModelVisitor visitor) {
+    new DepthFirstTraversal(visitor).run(start);
+  }
+
+  private void run(State start) {
+    markVisited(start);
+    visitor.visit(start);
+    push(start);
+    while(top >= 0) {
+      State state = stackStates[top];
+      List<Transition> out = state.getOutgoingTransitions();
+      int edge = stackEdges[top];
+      if(edge >= out.size()) {
+        stackStates[top--] = null;
+        continue;
+      }
+      stackEdges[top] = edge + 1;
+      Transition transition = out.get(edge);
+      visitor.visit(transition);
+      State dest = transition.getDest();
+      if(markVisited(dest)) {
+        visitor.visit(dest);
+        push(dest);
+      }
+    }
+  }
+
+  private void push(State state) {
+    top++;
+    if(top == stackStates.length) {
+      stackStates = Arrays.copyOf(stackStates, 2 * top);
+      stackEdges = Arrays.copyOf(stackEdges, 2 * top);
+    }
+    stackStates[top] = state;
+    stackEdges[top] = 0;
+  }
+
+  //Returns false if the state has been visited before
+  private boolean markVisited(State state) {
+    int id = state.getStateId();
+    if(id >= 0) {
+      if(visited.get(id))
+        return false;
+      visited.set(id);
+      return true;
+    }
+    if(visitedWithoutId == null)
+      visitedWithoutId = Collections.newSetFromMap(new IdentityHashMap<State, Boolean>());
+    return visitedWithoutId.add(state);
+  }
+}
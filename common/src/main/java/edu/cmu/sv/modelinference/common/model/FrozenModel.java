@@ -0,0 +1,302 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author Kasper Luckow
+ * Read-only form of a {@link Model}, produced by {@link Model#freeze()} once inference is
+ * done. States are identified by their dense ids (see {@link State#getStateId()}) and the
+ * transitions are stored in compressed sparse row form: the outgoing transitions (edges)
+ * of state s are the edges outOffsets[s] until outOffsets[s + 1], in the order of
+ * {@link State#getOutgoingTransitions()}, and edge e leads to dests[e] with weight
+ * weights[e]. The incoming transitions are indexed the same way, but only built when
+ * they are used first.
+ *
+ * The frozen model does not change when the model is extended afterwards. It can be
+ * shared between threads.
+ */
+public class FrozenModel<T extends State> {
+
+  private final Object[] states;
+  private final int initState;
+  private final VariableBounds bounds;
+
+  private final int[] outOffsets;
+  private final int[] dests;
+  private final int[] weights;
+  private final long[] outWeights;
+
+  //Reverse CSR: sources of the incoming edges and their index in the forward arrays
+  private volatile int[] inOffsets;
+  private int[] sources;
+  private int[] inEdges;
+
+  FrozenModel(Model<T> model) {
+    Set<T> modelStates = model.getStates();
+    int stateCount = modelStates.size();
+    this.states = new Object[stateCount];
+    this.outOffsets = new int[stateCount + 1];
+    this.outWeights = new long[stateCount];
+    int edgeCount = 0;
+    for(T s : modelStates) {
+      states[s.getStateId()] = s;
+      edgeCount += s.getOutgoingTransitions().size();
+    }
+    this.dests = new int[edgeCount];
+    this.weights = new int[edgeCount];
+    int edge = 0;
+    for(int id = 0; id < stateCount; id++) {
+      outOffsets[id] = edge;
+      long total = 0;
+      for(Transition t : getState(id).getOutgoingTransitions()) {
+        if(!(t instanceof WeightedTransition))
+          throw new IllegalStateException("Expected transition of type: " + WeightedTransition.class.getName());
+        int dest = t.getDest().getStateId();
+        if(dest < 0 || dest >= stateCount || states[dest] != t.getDest())
+          throw new IllegalStateException("Transition to a state that is not part of the model: " + t.getDest());
+        dests[edge] = dest;
+        weights[edge] = ((WeightedTransition)t).getWeight();
+        total += weights[edge];
+        edge++;
+      }
+      outWeights[id] = total;
+    }
+    outOffsets[stateCount] = edge;
+    this.initState = (model.getInitState() == null) ? -1 : model.getInitState().getStateId();
+    this.bounds = model.getBounds();
+  }
+
+  public int getStateCount() {
+    return this.states.length;
+  }
+
+  public int getTransitionCount() {
+    return this.dests.length;
+  }
+
+  @SuppressWarnings("unchecked")
+  public T getState(int id) {
+    return (T) this.states[id];
+  }
+
+  /**
+   * @return the id of the initial state or -1 if the model is empty
+   */
+  public int getInitStateId() {
+    return this.initState;
+  }
+
+  public T getInitState() {
+    return (initState < 0) ? null : getState(initState);
+  }
+
+  public VariableBounds getBounds() {
+    return this.bounds;
+  }
+
+  public Set<String> getModelVariables() {
+    return this.bounds.getVariables();
+  }
+
+  /**
+   * @return the first outgoing edge of the state
+   */
+  public int getEdgeStart(int state) {
+    return this.outOffsets[state];
+  }
+
+  /**
+   * @return the edge after the last outgoing edge of the state
+   */
+  public int getEdgeEnd(int state) {
+    return this.outOffsets[state + 1];
+  }
+
+  public int getOutDegree(int state) {
+    return this.outOffsets[state + 1] - this.outOffsets[state];
+  }
+
+  public int getDest(int edge) {
+    return this.dests[edge];
+  }
+
+  public int getWeight(int edge) {
+    return this.weights[edge];
+  }
+
+  /**
+   * @return the sum of the weights of the outgoing edges of the state
+   */
+  public long getOutWeight(int state) {
+    return this.outWeights[state];
+  }
+
+  /**
+   * @return the weight of the edge of the state divided by the weights of all its
+   * outgoing edges, i.e., the transition probability
+   */
+  public double getNormalizedWeight(int state, int edge) {
+    return this.weights[edge] / (double)this.outWeights[state];
+  }
+
+  /**
+   * @return the normalized weights of all edges, indexed by edge. Together with the
+   * offsets and destinations, this is the row-stochastic transition matrix of the model
+   * in compressed sparse row form. A state without outgoing edges has an empty row.
+   */
+  public double[] getTransitionProbabilities() {
+    double[] probs = new double[weights.length];
+    for(int s = 0; s < states.length; s++) {
+      double total = outWeights[s];
+      for(int e = outOffsets[s]; e < outOffsets[s + 1]; e++)
+        probs[e] = weights[e] / total;
+    }
+    return probs;
+  }
+
+  /**
+   * @return the outgoing edge of the source leading to the destination or -1 if there is none
+   */
+  public int getEdge(int source, int dest) {
+    for(int e = outOffsets[source]; e < outOffsets[source + 1]; e++) {
+      if(dests[e] == dest)
+        return e;
+    }
+    return -1;
+  }
+
+  /**
+   * @return the first incoming edge of the state. Incoming edges are numbered
+   * independently of the outgoing edges, see {@link #getInEdge(int)}
+   */
+  public int getInEdgeStart(int state) {
+    return reverseOffsets()[state];
+  }
+
+  public int getInEdgeEnd(int state) {
+    return reverseOffsets()[state + 1];
+  }
+
+  public int getInDegree(int state) {
+    int[] offsets = reverseOffsets();
+    return offsets[state + 1] - offsets[state];
+  }
+
+  public int getSource(int inEdge) {
+    reverseOffsets();
+    return this.sources[inEdge];
+  }
+
+  /**
+   * @return the (outgoing) edge of the source that the incoming edge corresponds to
+   */
+  public int getInEdge(int inEdge) {
+    reverseOffsets();
+    return this.inEdges[inEdge];
+  }
+
+  private int[] reverseOffsets() {
+    int[] offsets = this.inOffsets;
+    if(offsets == null) {
+      synchronized(this) {
+        offsets = this.inOffsets;
+        if(offsets == null) {
+          offsets = buildReverse();
+          this.inOffsets = offsets;
+        }
+      }
+    }
+    return offsets;
+  }
+
+  //Counting sort of the edges on their destination, stable in the source
+  private int[] buildReverse() {
+    int stateCount = states.length;
+    int[] offsets = new int[stateCount + 1];
+    for(int e = 0; e < dests.length; e++)
+      offsets[dests[e] + 1]++;
+    for(int s = 0; s < stateCount; s++)
+      offsets[s + 1] += offsets[s];
+    int[] next = Arrays.copyOf(offsets, stateCount);
+    int[] src = new int[dests.length];
+    int[] edges = new int[dests.length];
+    for(int s = 0; s < stateCount; s++) {
+      for(int e = outOffsets[s]; e < outOffsets[s + 1]; e++) {
+        int pos = next[dests[e]]++;
+        src[pos] = s;
+        edges[pos] = e;
+      }
+    }
+    this.sources = src;
+    this.inEdges = edges;
+    return offsets;
+  }
+
+  /**
+   * @return the ids of the states reachable from the initial state in the order they are
+   * visited by a depth-first search that follows the outgoing edges in order, i.e., the
+   * order in which {@link Model#accept(ModelVisitor)} visits them
+   */
+  public int[] getDepthFirstOrder() {
+    int stateCount = states.length;
+    if(initState < 0)
+      return new int[0];
+    int[] order = new int[stateCount];
+    int visitedCount = 0;
+    BitSet visited = new BitSet(stateCount);
+    //Stack of states and the next of their edges to follow
+    int[] stackStates = new int[stateCount];
+    int[] stackEdges = new int[stateCount];
+    int top = 0;
+    visited.set(initState);
+    order[visitedCount++] = initState;
+    stackStates[0] = initState;
+    stackEdges[0] = outOffsets[initState];
+    while(top >= 0) {
+      int s = stackStates[top];
+      int e = stackEdges[top];
+      if(e == outOffsets[s + 1]) {
+        top--;
+        continue;
+      }
+      stackEdges[top] = e + 1;
+      int d = dests[e];
+      if(!visited.get(d)) {
+        visited.set(d);
+        order[visitedCount++] = d;
+        top++;
+        stackStates[top] = d;
+        stackEdges[top] = outOffsets[d];
+      }
+    }
+    return (visitedCount == stateCount) ? order : Arrays.copyOf(order, visitedCount);
+  }
+
+  /**
+   * @return the states, indexed by their id
+   */
+  public List<T> getStates() {
+    @SuppressWarnings("unchecked")
+    List<T> list = (List<T>) (List<?>) Arrays.asList(states);
+    return Collections.unmodifiableList(list);
+  }
+}
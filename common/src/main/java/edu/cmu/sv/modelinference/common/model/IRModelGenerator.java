@@ -21,6 +21,7 @@ import java.io.IOException;
 import edu.cmu.sv.modelinference.common.generators.LogEntry;
 import edu.cmu.sv.modelinference.common.generators.LogProcessor;
 import edu.cmu.sv.modelinference.common.parser.LogReader;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryBuffer;
 
 /**
  * @author Kasper Luckow
@@ -39,17 +40,37 @@ public final class IRModelGenerator<T extends LogEntry, S extends State> impleme
     this.logReader = logReader;
     this.logReader.addLogProcessor(this);
   }
+
+  /**
+   * Generator for entries that have already been read (see {@link #generateModel(EntryBuffer)})
+   */
+  public IRModelGenerator(StateFactory<T, S> stateGenerator) {
+    this.stateGenerator = stateGenerator;
+    this.logReader = null;
+  }
   
   public Model<S> generateModel(String logFile) throws IOException {
-    model = new Model<>();
-    prevState = null; 
-    currState = null;
-    currentTime = -1.0;
+    if(this.logReader == null)
+      throw new IllegalStateException("Generator has no log reader");
+    reset();
     
     this.logReader.parseLog(new File(logFile));
     
     return model;
   }
+
+  public Model<S> generateModel(EntryBuffer<T> entries) {
+    reset();
+    entries.replay(this);
+    return model;
+  }
+
+  private void reset() {
+    model = new Model<>();
+    prevState = null; 
+    currState = null;
+    currentTime = -1.0;
+  }
   
   //This is so messy I almost cannot believe it
   @Override
@@ -15,98 +15,112 @@
  */
 package edu.cmu.sv.modelinference.common.model;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
-import com.google.common.collect.TreeMultiset;
-
 
 /**
  * @author Kasper Luckow
+ * States are kept in a hash index from their content (see {@link State#equals(Object)})
+ * to the stored instance, so looking up the stored state equal to a state takes expected
+ * constant time. The bounds of the values of each variable are updated as states are
+ * added. States must not be changed once they have been added, and a state can only be
+ * part of one model, which assigns its id.
+ *
+ * When the model is complete, {@link #freeze()} produces the compact form that the
+ * translators and the pretty printer use.
  */
 public class Model<T extends State> implements ModelElement {
 
-  private Set<T> states = new HashSet<>();
+  //Canonical instance per state, in order of insertion
+  private Map<T, T> states = new LinkedHashMap<>();
   private T initState;
-  private Set<String> modelVariables = new HashSet<>();
+  private final VariableBounds bounds = new VariableBounds();
+  //Slots in bounds of the variables of the schema of the last vector-backed state
+  private StateSchema boundsSchema;
+  private int[] boundsSlots;
 
   public void addState(T state) {
-    if(states.contains(state))
+    if(states.containsKey(state))
       return;
     if(initState == null)
       initState = state;
-    for(Assignment<?> v : state.getAssignments())
-      modelVariables.add(v.getName());
-    this.states.add(state);
+    updateBounds(state);
+    state.setStateId(states.size());
+    this.states.put(state, state);
+  }
+
+  private void updateBounds(T state) {
+    StateVector vector = state.getVector();
+    if(vector != null) {
+      if(vector.getSchema() != boundsSchema) {
+        boundsSchema = vector.getSchema();
+        boundsSlots = new int[boundsSchema.size()];
+        for(int i = 0; i < boundsSlots.length; i++)
+          boundsSlots[i] = bounds.addVariable(boundsSchema.getVariable(i));
+      }
+      for(int i = 0; i < boundsSlots.length; i++)
+        bounds.update(boundsSlots[i], vector.get(i));
+    } else {
+      for(Assignment<? extends Number> v : state.getAssignments()) {
+        int slot = bounds.addVariable(v.getName());
+        if(v.getValue() != null)
+          bounds.update(slot, v.getValue().intValue());
+      }
+    }
   }
 
   public Set<String> getModelVariables() {
-    return this.modelVariables;
+    return this.bounds.getVariables();
+  }
+
+  /**
+   * @return the bounds of the values of all model variables
+   */
+  public VariableBounds getBounds() {
+    return this.bounds;
   }
 
   public Set<T> getStates() {
-    return this.states;
+    return this.states.keySet();
   }
 
   public boolean containsState(T state) {
-    return this.states.contains(state);
+    return this.states.containsKey(state);
   }
 
-  //TODO: This is a bad one performance-wise....
+  /**
+   * @return the stored state equal to the state or null if there is none
+   */
   public T getState(T state) {
-    for(T s : this.states) {
-      if(s.equals(state))
-        return s;
-    }
-    return null;
+    return this.states.get(state);
   }
 
   public T getInitState() {
     return this.initState;
   }
 
-  //TODO: super ugly that value of variables need to be treated as strings because they are objects!! Fix
-  //TODO: super ugly dealing with variables as Variable and Strings.. fix
   public int getMaxAssignedVal(String modelVar) {
-    int max = Integer.MIN_VALUE;
-    //TODO: super expensive
-    for(T s : this.getStates()) {
-      Assignment<?> var = s.getAssignment(modelVar);
-      if(var != null) {
-        int val = Integer.valueOf(var.getValue().toString());
-        if(val > max)
-          max = val;
-      }
-    }
-    return max;
+    return this.bounds.getMax(modelVar);
   }
 
-  //TODO: super ugly that value of variables need to be treated as strings because they are objects!! Fix
-  //TODO: super ugly dealing with variables as Variable and Strings.. fix
   public int getMinAssignedVal(String modelVar) {
-    int min = Integer.MAX_VALUE;
-    //TODO: super expensive
-    for(T s : this.getStates()) {
-      Assignment<?> var = s.getAssignment(modelVar);
-      if(var != null) {
-        int val = Integer.valueOf(var.getValue().toString());
-        if(val < min)
-          min = val;
-      }
+    return this.bounds.getMin(modelVar);
+  }
 
-    }
-    return min;
+  /**
+   * @return a read-only, compact copy of the states and transitions of the model
+   */
+  public FrozenModel<T> freeze() {
+    return new FrozenModel<>(this);
   }
 
   @Override
   public void accept(ModelVisitor visitor) {
     visitor.visit(this);
-    this.initState.accept(visitor);
+    if(this.initState != null)
+      this.initState.accept(visitor);
   }
 
   public int getStateSpaceSize() {
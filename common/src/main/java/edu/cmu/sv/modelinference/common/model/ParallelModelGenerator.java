@@ -0,0 +1,220 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.cmu.sv.modelinference.common.DaemonThreadFactory;
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryBuffer;
+
+/**
+ * @author Kasper Luckow
+ * Generates the same model as {@link IRModelGenerator} from buffered entries, but on
+ * several threads. The entries are split into partitions of about equal size. Every
+ * partition starts where {@link IRModelGenerator} starts a new state (an entry with a
+ * later log time than all entries before it), so the states of a partition do not depend
+ * on the entries of other partitions. A partial model is generated for each partition
+ * concurrently; the partial models are then merged in log order: equal states are united,
+ * the weights of equal transitions are summed, and the transition from the last state of
+ * a partition to the first state of the next one is added. States, their ids and the
+ * order of their transitions are exactly those of the sequential model.
+ *
+ * The state factory is shared by the partitions, so it must be thread safe.
+ */
+public class ParallelModelGenerator<T extends LogEntry, S extends State> {
+
+  //Fewer entries are not worth a thread
+  private static final int MIN_PARTITION_SIZE = 4 * 1024;
+
+  private final StateFactory<T, S> stateGenerator;
+  private final int threads;
+
+  public ParallelModelGenerator(StateFactory<T, S> stateGenerator, int threads) {
+    if(threads < 1)
+      throw new IllegalArgumentException("Invalid number of threads: " + threads);
+    this.stateGenerator = stateGenerator;
+    this.threads = threads;
+  }
+
+  public Model<S> generateModel(final EntryBuffer<T> entries) {
+    final long size = entries.size();
+    int partitions = (int)Math.max(1, Math.min(threads, size / MIN_PARTITION_SIZE));
+    ExecutorService workers = Executors.newFixedThreadPool(partitions, new DaemonThreadFactory("model-inference"));
+    try {
+      //Find where the partitions start
+      List<Future<long[]>> boundaries = new ArrayList<>();
+      for(int i = 1; i < partitions; i++) {
+        final long cut = size * i / partitions;
+        boundaries.add(workers.submit(new Callable<long[]>() {
+          @Override
+          public long[] call() {
+            return findStateBoundary(entries, cut);
+          }
+        }));
+      }
+      List<long[]> starts = new ArrayList<>();
+      starts.add(new long[] {0, Double.doubleToLongBits(-1.0)});
+      for(Future<long[]> boundary : boundaries) {
+        long[] start = await(boundary);
+        if(start[0] < size && start[0] > starts.get(starts.size() - 1)[0])
+          starts.add(start);
+      }
+
+      List<Future<PartialModel<T, S>>> partials = new ArrayList<>();
+      for(int i = 0; i < starts.size(); i++) {
+        final long from = starts.get(i)[0];
+        final double startTime = Double.longBitsToDouble(starts.get(i)[1]);
+        final long to = (i + 1 < starts.size()) ? starts.get(i + 1)[0] : size;
+        final boolean last = (i + 1 == starts.size());
+        partials.add(workers.submit(new Callable<PartialModel<T, S>>() {
+          @Override
+          public PartialModel<T, S> call() {
+            PartialModel<T, S> partial = new PartialModel<>(stateGenerator, startTime);
+            for(long e = from; e < to; e++)
+              partial.process(entries.get(e));
+            //The last state of a partition is completed by the first entry of the next one
+            if(!last)
+              partial.finishState();
+            return partial;
+          }
+        }));
+      }
+      List<PartialModel<T, S>> results = new ArrayList<>();
+      for(Future<PartialModel<T, S>> partial : partials)
+        results.add(await(partial));
+      return merge(results);
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  /**
+   * @return the index of the first entry at or after the index that starts a new state,
+   * and (the bits of) the current time of the generator before that entry
+   */
+  private static <T extends LogEntry> long[] findStateBoundary(EntryBuffer<T> entries, long index) {
+    double currentTime = Math.max(-1.0, entries.getMaxLogTimeBefore(index));
+    long e = index;
+    while(e < entries.size() && entries.get(e).getLogTime() <= currentTime)
+      e++;
+    return new long[] {e, Double.doubleToLongBits(currentTime)};
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends LogEntry, S extends State> Model<S> merge(List<PartialModel<T, S>> partials) {
+    Model<S> model = new Model<>();
+    for(PartialModel<T, S> partial : partials) {
+      for(S state : partial.model.getStates()) {
+        if(!model.containsState(state)) {
+          state.clearTransitions();
+          model.addState(state);
+        }
+      }
+    }
+    S prevLast = null;
+    for(PartialModel<T, S> partial : partials) {
+      if(partial.first == null)
+        continue;
+      if(prevLast != null)
+        addTransition(prevLast, model.getState(partial.first), 1);
+      for(WeightedTransition t : partial.transitions)
+        addTransition(model.getState((S)t.getSource()), model.getState((S)t.getDest()), t.getWeight());
+      prevLast = model.getState(partial.last);
+    }
+    return model;
+  }
+
+  private static void addTransition(State source, State dest, int weight) {
+    Transition t = source.getTransitionForDestination(dest);
+    if(t != null)
+      ((WeightedTransition)t).incrementWeight(weight);
+    else
+      new WeightedTransition(source, dest).setWeight(weight);
+  }
+
+  //The loop of IRModelGenerator, recording the transitions in the order they are created.
+  //It uses the same (deprecated) factory methods so the states are the same
+  @SuppressWarnings("deprecation")
+  private static class PartialModel<T extends LogEntry, S extends State> {
+    private final StateFactory<T, S> stateGenerator;
+    private final Model<S> model = new Model<>();
+    private final List<WeightedTransition> transitions = new ArrayList<>();
+    private S prevState = null, currState = null;
+    private S first = null, last = null;
+    private double currentTime;
+
+    PartialModel(StateFactory<T, S> stateGenerator, double startTime) {
+      this.stateGenerator = stateGenerator;
+      this.currentTime = startTime;
+    }
+
+    void process(T entry) {
+      if(entry.getLogTime() > this.currentTime) {
+        this.currentTime = entry.getLogTime();
+        if(currState != null) {
+          finishState();
+          currState = stateGenerator.generateState();
+        }
+      }
+      if(currState == null)
+        currState = stateGenerator.generateState();
+      stateGenerator.addEntryToState(currState, entry);
+    }
+
+    void finishState() {
+      S genState = stateGenerator.finalizeState(currState);
+      S tempState = this.model.getState(genState);
+      if(tempState == null) {
+        this.model.addState(genState);
+        tempState = genState;
+      }
+      if(prevState != null) {
+        Transition t = prevState.getTransitionForDestination(tempState);
+        if(t != null)
+          ((WeightedTransition)t).incrementWeight(1);
+        else
+          transitions.add(new WeightedTransition(prevState, tempState));
+      } else
+        first = tempState;
+      prevState = tempState;
+      last = tempState;
+      currState = null;
+    }
+  }
+
+  private static <V> V await(Future<V> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while generating model", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if(cause instanceof RuntimeException)
+        throw (RuntimeException)cause;
+      if(cause instanceof Error)
+        throw (Error)cause;
+      throw new IllegalStateException(cause);
+    }
+  }
+}
@@ -16,50 +16,78 @@
 package edu.cmu.sv.modelinference.common.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
-import com.google.common.base.Objects;
-
 /**
  * @author Kasper Luckow
  */
 public class State implements ModelElement {
 
+  //Fan-in/fan-out from which transitions are also indexed by their source/destination
+  private static final int INDEX_THRESHOLD = 8;
+
+  //Transitions must only be added with addIncomingTransition/addOutgoingTransition
   protected List<Transition> in = new ArrayList<>();
   protected List<Transition> out = new ArrayList<>();
+  //First transition per source/destination, only once the threshold has been passed
+  private Map<State, Transition> inIndex;
+  private Map<State, Transition> outIndex;
   
-  protected List<Assignment<? extends Number>> assignments = new ArrayList<>();
+  //null for states backed by a (hash-consed) state vector
+  protected List<Assignment<? extends Number>> assignments;
+  private final StateVector vector;
 
-  private boolean isVisited = false;
+  private int stateId = -1;
+  private long outWeight = 0;
 
-  //Instead of relying on a "stateful" visitor
-  //where we need to reset the visited flag, iterate
-  //over the states instead because this is ugly
-  public void setVisited(boolean flag) {
-    this.isVisited = flag;
+  public State() {
+    this.assignments = new ArrayList<>();
+    this.vector = null;
   }
-  
+
+  /**
+   * Creates a state with the assignments of the vector. Its assignments cannot be changed.
+   */
+  public State(StateVector vector) {
+    this.assignments = null;
+    this.vector = vector;
+  }
+
+  /**
+   * Visits the states and transitions reachable from this state depth-first,
+   * see {@link DepthFirstTraversal}
+   */
   @Override
   public void accept(ModelVisitor visitor) {
-    if(!isVisited) {
-      visitor.visit(this);
-      isVisited = true;
-      for(Transition o : this.out) {
-        o.accept(visitor);
-      }
-    }
+    DepthFirstTraversal.traverse(this, visitor);
   }
   
   public List<Assignment<? extends Number>> getAssignments() {
+    if(this.vector != null)
+      return this.vector.getAssignments();
     return this.assignments;
   }
+
+  /**
+   * @return the state vector backing this state or null if it keeps a list of assignments
+   */
+  public StateVector getVector() {
+    return this.vector;
+  }
   
   public Assignment<?> getAssignment(String name) {
+    if(this.vector != null) {
+      int slot = this.vector.getSchema().getSlot(name);
+      return (slot < 0) ? null : this.vector.getAssignments().get(slot);
+    }
     for(Assignment<?> var : this.assignments) {
       if(var.getName().equals(name))
         return var;
@@ -69,7 +97,7 @@ public class State implements ModelElement {
   
   public <T extends Number> Collection<T> getAssignmentsOfType(Class<T> clazz) {
     Collection<T> vars = new LinkedList<>();
-    for(Assignment<?> var : this.assignments) {
+    for(Assignment<?> var : this.getAssignments()) {
       if(clazz.isInstance(var)) {
         vars.add(clazz.cast(var));
       }
@@ -86,11 +114,11 @@ public class State implements ModelElement {
   }
   
   public boolean containsSucessor(State state) {
-    return this.getSuccessorStates().contains(state);
+    return this.getTransitionForDestination(state) != null;
   }
   
   public boolean containsPredecessor(State state) {
-    return this.getPredecessorStates().contains(state);
+    return this.getTransitionForSource(state) != null;
   }
   
   public List<State> getPredecessorStates() {
@@ -100,13 +128,38 @@ public class State implements ModelElement {
     return pred;
   }
   
+  /**
+   * @return the sum of the weights of the outgoing weighted transitions
+   */
+  public long getOutWeight() {
+    return this.outWeight;
+  }
+
+  void addOutWeight(long delta) {
+    this.outWeight += delta;
+  }
+  
   public Transition getTransitionForDestination(State dest) {
-    for(Transition out : this.getOutgoingTransitions()) {
+    if(this.outIndex != null)
+      return this.outIndex.get(dest);
+    for(int i = 0; i < this.out.size(); i++) {
+      Transition out = this.out.get(i);
       if(out.getDest().equals(dest))
         return out;
     }
     return null;
   }
+
+  public Transition getTransitionForSource(State source) {
+    if(this.inIndex != null)
+      return this.inIndex.get(source);
+    for(int i = 0; i < this.in.size(); i++) {
+      Transition in = this.in.get(i);
+      if(in.getSource().equals(source))
+        return in;
+    }
+    return null;
+  }
   
   public List<State> getSuccessorStates() {
     List<State> succ = new ArrayList<>();
@@ -116,33 +169,84 @@ public class State implements ModelElement {
   }
   
   public void addAssignment(Assignment<? extends Number> assign) {
+    checkMutable();
     this.assignments.add(assign);
   }
   
   public void addAllAssignments(Collection<Assignment<? extends Number>> assigns) {
+    checkMutable();
     this.assignments.addAll(assigns);
   }
+
+  private void checkMutable() {
+    if(this.vector != null)
+      throw new UnsupportedOperationException("Assignments of a state backed by a state vector cannot be changed");
+  }
+  
+  //Drops the transitions of a partial model, see ParallelModelGenerator
+  void clearTransitions() {
+    this.in = new ArrayList<>();
+    this.out = new ArrayList<>();
+    this.inIndex = null;
+    this.outIndex = null;
+    this.outWeight = 0;
+  }
   
   public void addIncomingTransition(Transition in) {
     this.in.add(in);
+    if(this.inIndex != null) {
+      if(!this.inIndex.containsKey(in.getSource()))
+        this.inIndex.put(in.getSource(), in);
+    } else if(this.in.size() > INDEX_THRESHOLD) {
+      this.inIndex = new HashMap<>();
+      for(int i = this.in.size() - 1; i >= 0; i--)
+        this.inIndex.put(this.in.get(i).getSource(), this.in.get(i));
+    }
   }
   
   public void addOutgoingTransition(Transition out) {
     this.out.add(out);
+    if(this.outIndex != null) {
+      if(!this.outIndex.containsKey(out.getDest()))
+        this.outIndex.put(out.getDest(), out);
+    } else if(this.out.size() > INDEX_THRESHOLD) {
+      this.outIndex = new HashMap<>();
+      for(int i = this.out.size() - 1; i >= 0; i--)
+        this.outIndex.put(this.out.get(i).getDest(), this.out.get(i));
+    }
   }
 
+  /**
+   * @return the dense id (0, 1, ...) of the state in the model it was added to, in the
+   * order states were added, or -1 if it has not been added to a model
+   */
   public int getStateId() {
-    throw new UnsupportedOperationException();
+    return this.stateId;
+  }
+
+  void setStateId(int stateId) {
+    this.stateId = stateId;
   }
   
+  //Assignments are compared as sets, regardless of order and duplicates.
+  //Vectors of the same schema are hash-consed, so they are only equal if identical
   @Override
   public boolean equals(Object other) {
+    if(this == other)
+      return true;
     if(other instanceof State) {
       final State otherState = (State) other;
+      if(this.vector != null && otherState.vector != null &&
+          this.vector.getSchema() == otherState.vector.getSchema())
+        return this.vector == otherState.vector;
+      List<Assignment<? extends Number>> assigns = this.getAssignments();
+      List<Assignment<? extends Number>> otherAssigns = otherState.getAssignments();
+      if(assigns.equals(otherAssigns))
+        return true;
       Set<Object> set1 = new HashSet<Object>();
-      set1.addAll(this.assignments);
+      set1.addAll(assigns);
       Set<Object> set2 = new HashSet<Object>();
-      set2.addAll(otherState.assignments);
+      set2.addAll(otherAssigns);
       return set1.equals(set2);
     } else
       return false;
@@ -150,13 +254,44 @@ public class State implements ModelElement {
   
   @Override
   public int hashCode(){
-      return Objects.hashCode(this.assignments);
+    if(this.vector != null)
+      return this.vector.hashCode();
+    int n = this.assignments.size();
+    int[] hashes = new int[n];
+    for(int i = 0; i < n; i++)
+      hashes[i] = this.assignments.get(i).hashCode();
+    return combineAssignmentHashes(hashes);
+  }
+
+  //Consistent with equals: the sum of the distinct (mixed) hash codes of the assignments.
+  //Assignment hash codes are linear in the value, so summing them unmixed would collide
+  static int combineAssignmentHashes(int[] hashes) {
+    int n = hashes.length;
+    if(n == 1)
+      return mix(hashes[0]);
+    for(int i = 0; i < n; i++)
+      hashes[i] = mix(hashes[i]);
+    Arrays.sort(hashes);
+    int hash = 0;
+    for(int i = 0; i < n; i++) {
+      if(i == 0 || hashes[i] != hashes[i - 1])
+        hash += hashes[i];
+    }
+    return hash;
+  }
+
+  private static int mix(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    return h ^ (h >>> 16);
   }
   
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
-    Iterator<Assignment<? extends Number>> varit = this.assignments.iterator();
+    Iterator<Assignment<? extends Number>> varit = this.getAssignments().iterator();
     while(varit.hasNext()) {
       sb.append(varit.next());
       if(varit.hasNext())
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * @author Kasper Luckow
+ * The (ordered) integer variables of compactly encoded states. A schema maps every
+ * variable to a slot of the value vector of a {@link StateVector} and hash-conses the
+ * vectors: there is only one vector instance per distinct content, so vectors of the
+ * same schema are equal iff they are the same instance.
+ *
+ * Schemas are canonical as well: {@link #of(List)} returns the same schema for the same
+ * variables, so states built by different factories can still be compared by identity.
+ * Schemas and their vectors can be shared between threads.
+ *
+ * Both tables only hold their entries weakly: a vector is kept as long as a state uses it,
+ * and a schema as long as one of its vectors or a factory does. The vectors of a model
+ * that is no longer used can therefore be collected.
+ */
+public class StateSchema {
+
+  private static final LoadingCache<List<String>, StateSchema> schemas = CacheBuilder.newBuilder()
+      .weakValues()
+      .build(new CacheLoader<List<String>, StateSchema>() {
+        @Override
+        public StateSchema load(List<String> variables) {
+          return new StateSchema(variables);
+        }
+      });
+
+  private final List<String> variables;
+  private final Map<String, Integer> slots;
+  //Hash code of an Assignment<Integer> of the variable minus its value
+  private final int[] assignmentHashes;
+  private final Interner<StateVector> vectors = Interners.newWeakInterner();
+
+  private StateSchema(List<String> variables) {
+    this.variables = variables;
+    this.slots = new HashMap<>();
+    this.assignmentHashes = new int[variables.size()];
+    for(int i = 0; i < variables.size(); i++) {
+      String var = variables.get(i);
+      if(slots.put(var, i) != null)
+        throw new IllegalArgumentException("Variable " + var + " occurs more than once");
+      assignmentHashes[i] = new Assignment<Integer>(var, 0).hashCode();
+    }
+  }
+
+  public static StateSchema of(String... variables) {
+    return of(Arrays.asList(variables));
+  }
+
+  public static StateSchema of(List<String> variables) {
+    return schemas.getUnchecked(Collections.unmodifiableList(new ArrayList<>(variables)));
+  }
+
+  /**
+   * @return the canonical vector with the values, one per slot. If there is no such vector
+   * yet, the array becomes part of the new vector, so it must not be changed afterwards.
+   */
+  public StateVector intern(int[] values) {
+    if(values.length != variables.size())
+      throw new IllegalArgumentException("Expected " + variables.size() + " values, got " + values.length);
+    return vectors.intern(new StateVector(this, values));
+  }
+
+  public List<String> getVariables() {
+    return this.variables;
+  }
+
+  public String getVariable(int slot) {
+    return this.variables.get(slot);
+  }
+
+  /**
+   * @return the slot of the variable or -1 if it is not part of the schema
+   */
+  public int getSlot(String variable) {
+    Integer slot = this.slots.get(variable);
+    return (slot == null) ? -1 : slot;
+  }
+
+  public int size() {
+    return this.variables.size();
+  }
+
+  int getAssignmentHash(int slot, int value) {
+    //Integer.hashCode is the value itself
+    return this.assignmentHashes[slot] + value;
+  }
+
+  @Override
+  public String toString() {
+    return this.variables.toString();
+  }
+}
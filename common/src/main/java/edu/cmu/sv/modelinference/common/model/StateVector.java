@@ -0,0 +1,97 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Kasper Luckow
+ * Immutable values of the variables of a {@link StateSchema}, stored in a primitive array.
+ * Vectors are only created by {@link StateSchema#intern(int[])}, so two vectors of
+ * a schema are equal iff they are the same instance. The hash code is computed once and
+ * agrees with {@link State#hashCode()} of a state with the same assignments.
+ */
+public final class StateVector {
+
+  private final StateSchema schema;
+  private final int[] values;
+  private final int hash;
+
+  private volatile List<Assignment<? extends Number>> assignments;
+
+  //The values are not copied
+  StateVector(StateSchema schema, int[] values) {
+    this.schema = schema;
+    this.values = values;
+    int[] hashes = new int[values.length];
+    for(int i = 0; i < values.length; i++)
+      hashes[i] = schema.getAssignmentHash(i, values[i]);
+    this.hash = State.combineAssignmentHashes(hashes);
+  }
+
+  public StateSchema getSchema() {
+    return this.schema;
+  }
+
+  public int get(int slot) {
+    return this.values[slot];
+  }
+
+  public int size() {
+    return this.values.length;
+  }
+
+  /**
+   * @return the values as Assignments, in slot order. The list is built on first use
+   * and shared by all states with this vector; it must not be changed.
+   */
+  public List<Assignment<? extends Number>> getAssignments() {
+    List<Assignment<? extends Number>> assigns = this.assignments;
+    if(assigns == null) {
+      assigns = new ArrayList<>(values.length);
+      for(int i = 0; i < values.length; i++)
+        assigns.add(new Assignment<Integer>(schema.getVariable(i), values[i]));
+      assigns = Collections.unmodifiableList(assigns);
+      this.assignments = assigns;
+    }
+    return assigns;
+  }
+
+  @Override
+  public int hashCode() {
+    return this.hash;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if(this == obj)
+      return true;
+    if(!(obj instanceof StateVector))
+      return false;
+    StateVector other = (StateVector) obj;
+    return this.hash == other.hash &&
+        this.schema == other.schema &&
+        Arrays.equals(this.values, other.values);
+  }
+
+  @Override
+  public String toString() {
+    return this.getAssignments().toString();
+  }
+}
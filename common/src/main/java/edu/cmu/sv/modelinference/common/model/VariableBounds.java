@@ -0,0 +1,108 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author Kasper Luckow
+ * The smallest and largest value assigned to each variable of a model, kept up to date by
+ * {@link Model#addState(State)}. Variables get slots in the order they are first seen.
+ * A variable that has only been assigned null has the bounds
+ * [Integer.MAX_VALUE, Integer.MIN_VALUE].
+ */
+public class VariableBounds {
+
+  private final Map<String, Integer> slots = new LinkedHashMap<>();
+  private final List<String> variables = new ArrayList<>();
+  private int[] mins = new int[16];
+  private int[] maxs = new int[16];
+
+  VariableBounds() { }
+
+  int addVariable(String variable) {
+    Integer slot = slots.get(variable);
+    if(slot != null)
+      return slot;
+    int newSlot = variables.size();
+    if(newSlot == mins.length) {
+      mins = Arrays.copyOf(mins, 2 * newSlot);
+      maxs = Arrays.copyOf(maxs, 2 * newSlot);
+    }
+    mins[newSlot] = Integer.MAX_VALUE;
+    maxs[newSlot] = Integer.MIN_VALUE;
+    variables.add(variable);
+    slots.put(variable, newSlot);
+    return newSlot;
+  }
+
+  void update(int slot, int value) {
+    if(value < mins[slot])
+      mins[slot] = value;
+    if(value > maxs[slot])
+      maxs[slot] = value;
+  }
+
+  public int size() {
+    return this.variables.size();
+  }
+
+  public String getVariable(int slot) {
+    return this.variables.get(slot);
+  }
+
+  public Set<String> getVariables() {
+    return Collections.unmodifiableSet(this.slots.keySet());
+  }
+
+  /**
+   * @return the slot of the variable or -1 if no state assigns it
+   */
+  public int getSlot(String variable) {
+    Integer slot = this.slots.get(variable);
+    return (slot == null) ? -1 : slot;
+  }
+
+  public int getMin(int slot) {
+    return this.mins[slot];
+  }
+
+  public int getMax(int slot) {
+    return this.maxs[slot];
+  }
+
+  /**
+   * @return the smallest value of the variable, Integer.MAX_VALUE if it has none
+   */
+  public int getMin(String variable) {
+    int slot = getSlot(variable);
+    return (slot < 0) ? Integer.MAX_VALUE : this.mins[slot];
+  }
+
+  /**
+   * @return the largest value of the variable, Integer.MIN_VALUE if it has none
+   */
+  public int getMax(String variable) {
+    int slot = getSlot(variable);
+    return (slot < 0) ? Integer.MIN_VALUE : this.maxs[slot];
+  }
+}
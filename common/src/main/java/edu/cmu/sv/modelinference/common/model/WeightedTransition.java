@@ -17,6 +17,8 @@ package edu.cmu.sv.modelinference.common.model;
 
 /**
  * @author Kasper Luckow
+ * Changes of the weight are added to the total outgoing weight of the source state
+ * (see {@link State#getOutWeight()}), so normalizing the weight is a single division.
  */
 public class WeightedTransition extends Transition {
 
@@ -24,9 +26,11 @@ public class WeightedTransition extends Transition {
 
   public WeightedTransition(State src, State dest) {
     super(src, dest);
+    src.addOutWeight(this.weight);
   }
   
   public void setWeight(int weight) {
+    this.getSource().addOutWeight((long)weight - this.weight);
     this.weight = weight;
   }
   
@@ -35,14 +39,11 @@ public class WeightedTransition extends Transition {
   }
   
   public double getNormalizedWeight() {
-    State source = this.getSource();
-    double totalWeight = 0.0;
-    for(Transition t : source.getOutgoingTransitions())
-      totalWeight += ((WeightedTransition)t).getWeight();
-    return this.weight / totalWeight;
+    return this.weight / (double)this.getSource().getOutWeight();
   }
   
   public void incrementWeight(int inc) {
+    this.getSource().addOutWeight(inc);
     this.weight += inc;
   }
 }
@@ -18,44 +18,45 @@ package edu.cmu.sv.modelinference.common.model.pp;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 import att.grappa.Attribute;
 import att.grappa.Edge;
 import att.grappa.Graph;
 import att.grappa.Node;
+import edu.cmu.sv.modelinference.common.model.FrozenModel;
 import edu.cmu.sv.modelinference.common.model.Model;
-import edu.cmu.sv.modelinference.common.model.ModelVisitor;
 import edu.cmu.sv.modelinference.common.model.State;
-import edu.cmu.sv.modelinference.common.model.Transition;
-import edu.cmu.sv.modelinference.common.model.WeightedTransition;
 
 /**
  * @author Kasper Luckow
- *
+ * Prints the frozen form of a model. Nodes are numbered in the depth-first order of the
+ * states reachable from the initial state.
  */
-public class PrettyPrinter implements ModelVisitor {
+public class PrettyPrinter {
 		
 	private int uniqueID;
-	private Map<State, Node> visitedStates = new HashMap<>();
+	//Indexed by state id
+	private Node[] visitedStates;
 	private Graph grappaGraph;
-	private Model<? extends State> model;
+	private FrozenModel<? extends State> model;
 	
 	public PrettyPrinter(Model<? extends State> model) {
+		this(model.freeze());
+	}
+
+	public PrettyPrinter(FrozenModel<? extends State> model) {
 		this.uniqueID = 0;
 		this.model = model;
 		this.grappaGraph = new Graph("Model");
 	}
 	
 	public void printModel(String outputPath, Format format) {
-	   for(State s : this.model.getStates())
-	      s.setVisited(false);
-		this.model.accept(this);
+		this.visitedStates = new Node[model.getStateCount()];
+		for(int s : this.model.getDepthFirstOrder())
+			this.constructNode(s, getAttrs(s, Attribute.OVAL_SHAPE));
 		
-		//TODO: This is super ugly....
 		this.addEdges(model);
 		
     try {
@@ -70,45 +71,34 @@ public class PrettyPrinter implements ModelVisitor {
 		}
 	}
 	
-	private void addEdges(Model<? extends State> model) {
-	  for(State s : model.getStates()) {
-	    for(Transition t : s.getOutgoingTransitions()) {
-	      if(t.getDest() != null) {
-	        Node srcNode = this.visitedStates.get(s);
-	        Node destNode = this.visitedStates.get(t.getDest());
-	        Edge edge = new Edge(this.grappaGraph, srcNode, destNode);
-	        if(t instanceof WeightedTransition) {
-	          String label = String.format(((WeightedTransition)t).getWeight() + 
-            "\\n(%.3f)", ((WeightedTransition)t).getNormalizedWeight());
-	          edge.setAttribute(Attribute.LABEL_ATTR, label);
-	        }
-	        this.grappaGraph.addEdge(edge);
-	      }
+	private void addEdges(FrozenModel<? extends State> model) {
+	  for(int s = 0; s < model.getStateCount(); s++) {
+	    for(int e = model.getEdgeStart(s); e < model.getEdgeEnd(s); e++) {
+	      Node srcNode = this.visitedStates[s];
+	      Node destNode = this.visitedStates[model.getDest(e)];
+	      Edge edge = new Edge(this.grappaGraph, srcNode, destNode);
+	      String label = String.format(model.getWeight(e) + 
+	          "\\n(%.3f)", model.getNormalizedWeight(s, e));
+	      edge.setAttribute(Attribute.LABEL_ATTR, label);
+	      this.grappaGraph.addEdge(edge);
 	    }
 	  }
 	}
-
-	@Override
-	public void visit(State state) {
-		this.constructNode(state, getAttrs(state, Attribute.OVAL_SHAPE));
-	}
 	
-	private void constructNode(State state, List<Attribute> attrs) {
-	  if(this.visitedStates.containsKey(state))
-	    return;
+	private void constructNode(int state, List<Attribute> attrs) {
 		Node targetNode = new Node(grappaGraph, Integer.toString(this.uniqueID++));
 		for(Attribute attr : attrs)
 			targetNode.setAttribute(attr);
-		this.visitedStates.put(state, targetNode);
+		this.visitedStates[state] = targetNode;
 	}
 	
-	 private List<Attribute> getAttrs(State state, int shape) {
+	 private List<Attribute> getAttrs(int state, int shape) {
 	    StringBuilder sb = new StringBuilder();
-	    sb.append(state.toString().replaceAll("\\n", "\\\\n"));
+	    sb.append(model.getState(state).toString().replaceAll("\\n", "\\\\n"));
 	    List<Attribute> attrs = new LinkedList<>();
 	    attrs.add(new Attribute(Attribute.NODE, Attribute.SHAPE_ATTR, shape));
 	    attrs.add(new Attribute(Attribute.NODE, Attribute.LABEL_ATTR, sb.toString()));
-	    if(state.equals(model.getInitState())) {
+	    if(state == model.getInitStateId()) {
 	      attrs.add(new Attribute(Attribute.NODE, Attribute.STYLE_ATTR, "filled"));
 	      attrs.add(new Attribute(Attribute.NODE, Attribute.FILLCOLOR_ATTR, "gray"));
 	    }
@@ -126,13 +116,4 @@ public class PrettyPrinter implements ModelVisitor {
 			e.printStackTrace();
 		}
 	}
-
-  @Override
-  public void visit(Transition transition) {  }
-
-  @Override
-  public <S extends State> void visit(Model<S> model) {
-    // TODO Auto-generated method stub
-    
-  }
 }
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.model.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import edu.cmu.sv.modelinference.common.model.Assignment;
+import edu.cmu.sv.modelinference.common.model.Model;
+import edu.cmu.sv.modelinference.common.model.State;
+import edu.cmu.sv.modelinference.common.model.StateSchema;
+
+/**
+ * @author Kasper Luckow
+ * Compares looking up states in the hash index of {@link Model} with the linear scan over
+ * all states it replaces. States look like the states of a 10x10 grid (one assignment per
+ * cell); the assignments of the probes are shuffled, since equal states need not list
+ * their assignments in the same order. The time per lookup of the scan grows with the
+ * number of states, the indexed lookup stays flat. The same states backed by hash-consed
+ * {@link edu.cmu.sv.modelinference.common.model.StateVector}s are compared by identity.
+ *
+ * Usage: StateLookupBenchmark [max states] [assignments per state]
+ */
+public class StateLookupBenchmark {
+
+  private static final int LOOKUPS = 2000;
+
+  public static void main(String[] args) {
+    int maxStates = (args.length > 0) ? Integer.parseInt(args[0]) : 32000;
+    int cells = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+    Random rnd = new Random(42);
+    for(int n = 1000; n <= maxStates; n *= 2) {
+      Model<State> model = new Model<>();
+      List<State> stored = new ArrayList<>();
+      while(model.getStateSpaceSize() < n) {
+        State s = randomState(rnd, cells);
+        if(!model.containsState(s)) {
+          model.addState(s);
+          stored.add(s);
+        }
+      }
+      List<State> probes = new ArrayList<>();
+      for(int i = 0; i < LOOKUPS; i++)
+        probes.add(shuffledCopy(stored.get(rnd.nextInt(n)), rnd));
+
+      long start = System.nanoTime();
+      int found = 0;
+      for(State p : probes) {
+        if(model.getState(p) != null)
+          found++;
+      }
+      long indexed = System.nanoTime() - start;
+
+      //Scanning is slow, so only a fraction of the probes is used for larger models
+      int scanned = Math.max(5, 100000 / n);
+      start = System.nanoTime();
+      for(int i = 0; i < scanned; i++) {
+        if(scan(model, probes.get(i)) != null)
+          found++;
+      }
+      long linear = System.nanoTime() - start;
+
+      StateSchema schema = schemaOf(cells);
+      Model<State> vectorModel = new Model<>();
+      for(State s : stored)
+        vectorModel.addState(vectorCopy(s, schema));
+      List<State> vectorProbes = new ArrayList<>();
+      for(State p : probes)
+        vectorProbes.add(vectorCopy(p, schema));
+      start = System.nanoTime();
+      for(State p : vectorProbes) {
+        if(vectorModel.getState(p) != null)
+          found++;
+      }
+      long vector = System.nanoTime() - start;
+      if(found != 2 * LOOKUPS + scanned)
+        throw new IllegalStateException("Lookup did not find a stored state");
+      System.out.println(String.format("%6d states: index %8.2f us/lookup, vector index %8.2f us/lookup, scan %10.2f us/lookup",
+          n, indexed / 1000.0 / LOOKUPS, vector / 1000.0 / LOOKUPS, linear / 1000.0 / scanned));
+    }
+  }
+
+  private static State scan(Model<State> model, State state) {
+    for(State s : model.getStates()) {
+      if(s.equals(state))
+        return s;
+    }
+    return null;
+  }
+
+  private static State randomState(Random rnd, int cells) {
+    State s = new State();
+    for(int i = 0; i < cells; i++)
+      s.addAssignment(new Assignment<Integer>("cell" + i, (rnd.nextInt(8) == 0) ? 1 + rnd.nextInt(3) : 0));
+    return s;
+  }
+
+  private static StateSchema schemaOf(int cells) {
+    List<String> vars = new ArrayList<>();
+    for(int i = 0; i < cells; i++)
+      vars.add("cell" + i);
+    return StateSchema.of(vars);
+  }
+
+  private static State vectorCopy(State state, StateSchema schema) {
+    int[] values = new int[schema.size()];
+    for(Assignment<? extends Number> a : state.getAssignments())
+      values[schema.getSlot(a.getName())] = a.getValue().intValue();
+    return new State(schema.intern(values));
+  }
+
+  private static State shuffledCopy(State state, Random rnd) {
+    List<Assignment<? extends Number>> assigns = new ArrayList<>();
+    for(Assignment<? extends Number> a : state.getAssignments())
+      assigns.add(new Assignment<Number>(a.getName(), a.getValue()));
+    Collections.shuffle(assigns, rnd);
+    State copy = new State();
+    copy.addAllAssignments(assigns);
+    return copy;
+  }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Kasper Luckow
+ * Reusable view of a line held in a byte array or a (e.g. memory mapped) byte buffer.
+ * Pure ASCII lines are exposed without decoding them, other lines (or any line if the
+ * charset is not ASCII compatible) are decoded into a String. The view is overwritten by
+ * the next line, so the CharSequence returned by wrap must not be retained.
+ */
+public class ByteLine implements CharSequence {
+
+  private final Charset charset;
+  private final boolean asciiCompatible;
+
+  private byte[] data;
+  private ByteBuffer buffer;
+  private int offset;
+  private int length;
+
+  public ByteLine(Charset charset) {
+    this.charset = charset;
+    this.asciiCompatible = charset.equals(StandardCharsets.UTF_8) ||
+        charset.equals(StandardCharsets.US_ASCII) ||
+        charset.equals(StandardCharsets.ISO_8859_1);
+  }
+
+  public CharSequence wrap(byte[] data, int offset, int length) {
+    if(!asciiCompatible)
+      return new String(data, offset, length, charset);
+    for(int i = offset; i < offset + length; i++) {
+      if(data[i] < 0) //>= 0x80
+        return new String(data, offset, length, charset);
+    }
+    this.data = data;
+    this.buffer = null;
+    this.offset = offset;
+    this.length = length;
+    return this;
+  }
+
+  /**
+   * Wraps the bytes at the absolute offset of the buffer, the position of the buffer is
+   * neither used nor changed
+   */
+  public CharSequence wrap(ByteBuffer buffer, int offset, int length) {
+    boolean ascii = true;
+    for(int i = offset; ascii && i < offset + length; i++)
+      ascii = buffer.get(i) >= 0; //< 0x80
+    return wrap(buffer, offset, length, ascii);
+  }
+
+  /**
+   * For callers that have already scanned the line
+   * @param ascii whether all bytes of the line are below 0x80
+   */
+  CharSequence wrap(ByteBuffer buffer, int offset, int length, boolean ascii) {
+    if(!asciiCompatible || !ascii)
+      return decode(buffer, offset, length, charset);
+    this.data = null;
+    this.buffer = buffer;
+    this.offset = offset;
+    this.length = length;
+    return this;
+  }
+
+  private static String decode(ByteBuffer buffer, int offset, int length, Charset charset) {
+    byte[] bytes = new byte[length];
+    for(int i = 0; i < length; i++)
+      bytes[i] = buffer.get(offset + i);
+    return new String(bytes, charset);
+  }
+
+  @Override
+  public int length() {
+    return this.length;
+  }
+
+  @Override
+  public char charAt(int index) {
+    if(index < 0 || index >= length)
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+    return (char)((data != null) ? data[offset + index] : buffer.get(offset + index));
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    if(start < 0 || start > end || end > length)
+      throw new IndexOutOfBoundsException("Invalid range [" + start + ", " + end + ")");
+    if(data == null)
+      return decode(buffer, offset + start, end - start, StandardCharsets.ISO_8859_1);
+    return new String(data, offset + start, end - start, StandardCharsets.ISO_8859_1);
+  }
+
+  @Override
+  public String toString() {
+    if(data == null)
+      return decode(buffer, offset, length, StandardCharsets.ISO_8859_1);
+    return new String(data, offset, length, StandardCharsets.ISO_8859_1);
+  }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.util.Arrays;
+
+/**
+ * @author Kasper Luckow
+ * The set of columns a parser is interested in. Each projected column is assigned a
+ * slot (its position in the requested order), which is used by
+ * {@link LineTokenizer#project(ColumnProjection, int[])} to record the column bounds.
+ */
+public class ColumnProjection {
+
+  public static final int ANY_COLUMN_COUNT = -1;
+
+  private final int columnCount;
+  private final int[] columns;
+  private final int[] slots;
+
+  public ColumnProjection(int columnCount, int... columns) {
+    if(columns.length == 0)
+      throw new IllegalArgumentException("At least one column must be projected");
+    this.columnCount = columnCount;
+    this.columns = columns.clone();
+    int max = 0;
+    for(int col : columns) {
+      if(col < 0 || (columnCount != ANY_COLUMN_COUNT && col >= columnCount))
+        throw new IllegalArgumentException("Column " + col + " is out of range");
+      max = Math.max(max, col);
+    }
+    this.slots = new int[max + 1];
+    Arrays.fill(this.slots, -1);
+    for(int i = 0; i < columns.length; i++) {
+      if(this.slots[columns[i]] != -1)
+        throw new IllegalArgumentException("Column " + columns[i] + " is projected more than once");
+      this.slots[columns[i]] = i;
+    }
+  }
+
+  /**
+   * Returns a projection with the given columns appended. Columns that are already
+   * projected are ignored and keep their slot.
+   */
+  public ColumnProjection with(int... extraColumns) {
+    int[] cols = Arrays.copyOf(this.columns, this.columns.length + extraColumns.length);
+    int size = this.columns.length;
+    for(int col : extraColumns) {
+      boolean present = false;
+      for(int i = 0; i < size; i++) {
+        if(cols[i] == col) {
+          present = true;
+          break;
+        }
+      }
+      if(!present)
+        cols[size++] = col;
+    }
+    return new ColumnProjection(this.columnCount, Arrays.copyOf(cols, size));
+  }
+
+  /**
+   * @return the slot of the column or -1 if it is not projected
+   */
+  public int getSlot(int column) {
+    return (column < slots.length) ? slots[column] : -1;
+  }
+
+  public int getColumn(int slot) {
+    return this.columns[slot];
+  }
+
+  public int size() {
+    return this.columns.length;
+  }
+
+  public int getMaxColumn() {
+    return this.slots.length - 1;
+  }
+
+  /**
+   * @return the number of columns a valid line has or {@link #ANY_COLUMN_COUNT}
+   */
+  public int getColumnCount() {
+    return this.columnCount;
+  }
+}
@@ -0,0 +1,270 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.math.BigInteger;
+
+/**
+ * @author Kasper Luckow
+ * Parses decimal numbers directly from a range of a CharSequence. The results are
+ * identical to those of Double.valueOf, Float.valueOf and Long.valueOf on the
+ * corresponding substring: plain decimals that can be converted exactly are handled
+ * in place, doubles with up to 19 significant digits are converted with the
+ * Eisel-Lemire algorithm, and everything else (longer mantissas, hex, NaN, ambiguous
+ * roundings etc.) is delegated to the JDK.
+ *
+ * Instances keep scratch state and are not thread safe.
+ */
+public class DecimalParser {
+
+  private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+  private static final int MAX_EXACT_DOUBLE_POW10 = 22;
+  private static final int MAX_EXACT_FLOAT_DIGITS = 7;
+  private static final int MAX_EXACT_FLOAT_POW10 = 10;
+  private static final int MAX_MANTISSA_DIGITS = 19;
+  private static final int MAX_EXPONENT = 9999;
+
+  private static final double[] DOUBLE_POW10 = new double[MAX_EXACT_DOUBLE_POW10 + 1];
+  private static final float[] FLOAT_POW10 = new float[MAX_EXACT_FLOAT_POW10 + 1];
+
+  //128 bit approximations (rounded down) of 10^q, normalized such that the MSB of the high word is set
+  private static final int MIN_POW10 = -348;
+  private static final int MAX_POW10 = 347;
+  private static final long[] POW10_HI = new long[MAX_POW10 - MIN_POW10 + 1];
+  private static final long[] POW10_LO = new long[MAX_POW10 - MIN_POW10 + 1];
+
+  private static final int DOUBLE_EXPONENT_BIAS = 1023;
+  private static final int DOUBLE_MANTISSA_BITS = 52;
+
+  static {
+    double d = 1.0;
+    for(int i = 0; i < DOUBLE_POW10.length; i++, d *= 10.0)
+      DOUBLE_POW10[i] = d;
+    float f = 1.0f;
+    for(int i = 0; i < FLOAT_POW10.length; i++, f *= 10.0f)
+      FLOAT_POW10[i] = f;
+
+    BigInteger five = BigInteger.valueOf(5);
+    for(int q = MIN_POW10; q <= MAX_POW10; q++) {
+      //The power of two in 10^q = 5^q * 2^q only affects the binary exponent
+      BigInteger approx;
+      if(q >= 0) {
+        BigInteger pow5 = five.pow(q);
+        int shift = pow5.bitLength() - 128;
+        approx = (shift >= 0) ? pow5.shiftRight(shift) : pow5.shiftLeft(-shift);
+      } else {
+        BigInteger pow5 = five.pow(-q);
+        approx = BigInteger.ONE.shiftLeft(pow5.bitLength() + 127).divide(pow5);
+      }
+      POW10_HI[q - MIN_POW10] = approx.shiftRight(64).longValue();
+      POW10_LO[q - MIN_POW10] = approx.longValue();
+    }
+  }
+
+  //Scratch state of the last scan
+  private boolean negative;
+  private long mantissa; //unsigned, 19 digits always fit
+  private int digits;
+  private int exponent;
+  private double result;
+
+  public double parseDouble(CharSequence s, int from, int to) {
+    if(scan(s, from, to)) {
+      if(mantissa == 0)
+        return negative ? -0.0 : 0.0;
+      if(digits <= MAX_EXACT_DOUBLE_DIGITS &&
+          exponent >= -MAX_EXACT_DOUBLE_POW10 && exponent <= MAX_EXACT_DOUBLE_POW10) {
+        //Both operands are exact, so the single rounding of the IEEE operation is the correct one
+        double val = (exponent >= 0) ?
+            (double)mantissa * DOUBLE_POW10[exponent] :
+            (double)mantissa / DOUBLE_POW10[-exponent];
+        return negative ? -val : val;
+      }
+      if(exponent >= MIN_POW10 && exponent <= MAX_POW10 && eiselLemire())
+        return this.result;
+    }
+    return Double.parseDouble(s.subSequence(from, to).toString());
+  }
+
+  public float parseFloat(CharSequence s, int from, int to) {
+    if(scan(s, from, to)) {
+      if(mantissa == 0)
+        return negative ? -0.0f : 0.0f;
+      if(digits <= MAX_EXACT_FLOAT_DIGITS &&
+          exponent >= -MAX_EXACT_FLOAT_POW10 && exponent <= MAX_EXACT_FLOAT_POW10) {
+        float val = (exponent >= 0) ?
+            (float)mantissa * FLOAT_POW10[exponent] :
+            (float)mantissa / FLOAT_POW10[-exponent];
+        return negative ? -val : val;
+      }
+    }
+    return Float.parseFloat(s.subSequence(from, to).toString());
+  }
+
+  public long parseLong(CharSequence s, int from, int to) {
+    int i = from;
+    boolean neg = false;
+    if(i < to && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+      neg = s.charAt(i) == '-';
+      i++;
+    }
+    if(i < to) {
+      long val = 0;
+      for(; i < to; i++) {
+        int d = s.charAt(i) - '0';
+        if(d < 0 || d > 9 || val > (Long.MAX_VALUE - d) / 10)
+          break;
+        val = val * 10 + d;
+      }
+      if(i == to)
+        return neg ? -val : val;
+    }
+    //Malformed, overflowing or Long.MIN_VALUE
+    return Long.parseLong(s.subSequence(from, to).toString());
+  }
+
+  /*
+   * Eisel-Lemire conversion of mantissa * 10^exponent to the nearest double (see Lemire,
+   * "Number Parsing at a Gigabyte per Second"). Stores the value in result and returns
+   * true, or returns false if the rounding cannot be decided from the 128 bit product
+   * or the value is subnormal or out of range.
+   */
+  private boolean eiselLemire() {
+    long man = this.mantissa;
+    int idx = this.exponent - MIN_POW10;
+    int clz = Long.numberOfLeadingZeros(man);
+    man <<= clz;
+    long retExp2 = ((217706L * this.exponent) >> 16) + 64 + DOUBLE_EXPONENT_BIAS - clz;
+
+    long xHi = multiplyHigh(man, POW10_HI[idx]);
+    long xLo = man * POW10_HI[idx];
+    if((xHi & 0x1FF) == 0x1FF && Long.compareUnsigned(xLo + man, man) < 0) {
+      //The truncated product may be off by one in the bits that decide the rounding
+      long yHi = multiplyHigh(man, POW10_LO[idx]);
+      long yLo = man * POW10_LO[idx];
+      long mergedHi = xHi;
+      long mergedLo = xLo + yHi;
+      if(Long.compareUnsigned(mergedLo, xLo) < 0)
+        mergedHi++;
+      if((mergedHi & 0x1FF) == 0x1FF && mergedLo + 1 == 0 && Long.compareUnsigned(yLo + man, man) < 0)
+        return false;
+      xHi = mergedHi;
+      xLo = mergedLo;
+    }
+
+    long msb = xHi >>> 63;
+    long retMantissa = xHi >>> (msb + 9);
+    retExp2 -= 1 ^ msb;
+
+    //Exactly halfway between two doubles
+    if(xLo == 0 && (xHi & 0x1FF) == 0 && (retMantissa & 3) == 1)
+      return false;
+
+    retMantissa += retMantissa & 1;
+    retMantissa >>>= 1;
+    if((retMantissa >>> (DOUBLE_MANTISSA_BITS + 1)) > 0) {
+      retMantissa >>>= 1;
+      retExp2++;
+    }
+    //Subnormal or infinite
+    if(retExp2 <= 0 || retExp2 >= 0x7FF)
+      return false;
+    long bits = (retExp2 << DOUBLE_MANTISSA_BITS) | (retMantissa & ((1L << DOUBLE_MANTISSA_BITS) - 1));
+    if(negative)
+      bits |= Long.MIN_VALUE;
+    this.result = Double.longBitsToDouble(bits);
+    return true;
+  }
+
+  //High word of the unsigned 128 bit product
+  private static long multiplyHigh(long x, long y) {
+    long x0 = x & 0xFFFFFFFFL, x1 = x >>> 32;
+    long y0 = y & 0xFFFFFFFFL, y1 = y >>> 32;
+    long t = x1 * y0 + ((x0 * y0) >>> 32);
+    long w1 = x0 * y1 + (t & 0xFFFFFFFFL);
+    return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+  }
+
+  /*
+   * Scans [+-]digits[.digits][(e|E)[+-]digits] into sign, mantissa and decimal exponent.
+   * Returns false if the range has any other shape or the mantissa does not fit a long.
+   */
+  private boolean scan(CharSequence s, int from, int to) {
+    int i = from;
+    negative = false;
+    mantissa = 0;
+    digits = 0;
+    exponent = 0;
+    if(i < to && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+      negative = s.charAt(i) == '-';
+      i++;
+    }
+    boolean hasDigits = false;
+    for(; i < to; i++) {
+      int d = s.charAt(i) - '0';
+      if(d < 0 || d > 9)
+        break;
+      hasDigits = true;
+      if(!addDigit(d))
+        return false;
+    }
+    if(i < to && s.charAt(i) == '.') {
+      i++;
+      for(; i < to; i++) {
+        int d = s.charAt(i) - '0';
+        if(d < 0 || d > 9)
+          break;
+        hasDigits = true;
+        if(!addDigit(d))
+          return false;
+        exponent--;
+      }
+    }
+    if(!hasDigits)
+      return false;
+    if(i < to && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+      i++;
+      boolean negExp = false;
+      if(i < to && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+        negExp = s.charAt(i) == '-';
+        i++;
+      }
+      if(i == to)
+        return false;
+      int exp = 0;
+      for(; i < to; i++) {
+        int d = s.charAt(i) - '0';
+        if(d < 0 || d > 9)
+          return false;
+        exp = exp * 10 + d;
+        if(exp > MAX_EXPONENT)
+          return false;
+      }
+      exponent += negExp ? -exp : exp;
+    }
+    return i == to;
+  }
+
+  private boolean addDigit(int d) {
+    if(mantissa == 0 && d == 0) //leading zeros are not significant
+      return true;
+    if(digits == MAX_MANTISSA_DIGITS)
+      return false;
+    mantissa = mantissa * 10 + d;
+    digits++;
+    return true;
+  }
+}
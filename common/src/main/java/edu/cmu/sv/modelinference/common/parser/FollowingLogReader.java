@@ -0,0 +1,263 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+import edu.cmu.sv.modelinference.common.generators.LogEntryFilter;
+import edu.cmu.sv.modelinference.common.generators.LogParser;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
+import edu.cmu.sv.modelinference.common.parser.compress.LogStreams;
+
+/**
+ * @author Kasper Luckow
+ * Follows a log that is still being written, like tail -f. Complete lines are handed to
+ * the processors as they appear; an incomplete trailing line is held back until its line
+ * terminator has been written. The reader waits for new data using a WatchService on the
+ * directory of the log if the platform provides one, and otherwise (or additionally, in
+ * case events are missed) polls every poll interval. If the log shrinks, it is assumed to
+ * have been truncated and is read again from the start.
+ *
+ * parseLog returns when stop() is called from another thread, or when no new data has
+ * appeared for the idle timeout. With a checkpoint file, the offset of the first
+ * unprocessed byte is saved whenever the reader has caught up with the writer, and a later
+ * reader of the same log resumes from there. A checkpoint must only be used by one reader
+ * at a time.
+ */
+public class FollowingLogReader<T extends LogEntry> extends LogReader<T> {
+  public static final Logger logger = LoggerFactory.getLogger(FollowingLogReader.class);
+
+  public static final long DEFAULT_POLL_INTERVAL = 500;
+  public static final long NO_IDLE_TIMEOUT = 0;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String CHECKPOINT_LOG = "log";
+  private static final String CHECKPOINT_OFFSET = "offset";
+
+  private final long pollInterval;
+  private final long idleTimeout;
+  private final File checkpointFile;
+  private final Charset charset = Charset.defaultCharset();
+
+  private volatile boolean stopped = false;
+  private volatile long offset = 0;
+
+  public FollowingLogReader(LogParser<T> logParser) {
+    this(logParser, null, DEFAULT_POLL_INTERVAL, NO_IDLE_TIMEOUT, null);
+  }
+
+  /**
+   * @param pollInterval maximum time in ms between checks for new data
+   * @param idleTimeout time in ms without new data after which parseLog returns, or
+   * NO_IDLE_TIMEOUT to follow the log until stop() is called
+   * @param checkpointFile file for saving the read offset, or null
+   */
+  public FollowingLogReader(LogParser<T> logParser, LogEntryFilter<T> filter, long pollInterval, long idleTimeout, File checkpointFile) {
+    super(logParser, filter);
+    if(pollInterval < 1)
+      throw new IllegalArgumentException("Poll interval must be positive");
+    if(idleTimeout < 0)
+      throw new IllegalArgumentException("Idle timeout must not be negative");
+    this.pollInterval = pollInterval;
+    this.idleTimeout = idleTimeout;
+    this.checkpointFile = checkpointFile;
+  }
+
+  /**
+   * Makes parseLog return after the lines read so far have been processed
+   */
+  public void stop() {
+    this.stopped = true;
+  }
+
+  /**
+   * @return the offset of the first byte of the log that has not been processed
+   */
+  public long getOffset() {
+    return this.offset;
+  }
+
+  /**
+   * A followed log has no end up to which it could be indexed, so it cannot be read by time
+   * window
+   */
+  @Override
+  public void parseLog(File log, double fromTime, double toTime) throws IOException {
+    throw new IOException("Followed log " + log + " cannot be read by time window");
+  }
+
+  @Override
+  public void parseLog(File logFile) throws IOException {
+    if(LogStreams.isCompressed(logFile))
+      throw new IOException("Compressed log " + logFile + " cannot be followed");
+    resetStatistics();
+    this.stopped = false;
+    this.offset = readCheckpoint(logFile);
+    long savedOffset = this.offset;
+    try(FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ);
+        WatchService watcher = createWatcher(logFile)) {
+      ParseResult<T> result = new ParseResult<>();
+      ByteLine line = new ByteLine(charset);
+      byte[] buf = new byte[BUFFER_SIZE];
+      int len = 0; //Bytes of the incomplete line at the start of buf
+      long readPos = this.offset;
+      long lastData = System.currentTimeMillis();
+      while(!stopped) {
+        if(channel.size() < readPos) {
+          logger.info(logFile + " has been truncated. Reading it from the start");
+          this.offset = readPos = 0;
+          len = 0;
+        }
+        int read = channel.read(ByteBuffer.wrap(buf, len, buf.length - len), readPos);
+        if(read > 0) {
+          readPos += read;
+          len += read;
+          int consumed = processLines(buf, len, line, result);
+          this.offset += consumed;
+          len -= consumed;
+          System.arraycopy(buf, consumed, buf, 0, len);
+          if(len == buf.length)
+            buf = Arrays.copyOf(buf, buf.length * 2);
+          lastData = System.currentTimeMillis();
+          continue;
+        }
+        //Caught up with the writer
+        if(this.offset != savedOffset) {
+          writeCheckpoint(logFile, this.offset);
+          savedOffset = this.offset;
+        }
+        if(idleTimeout != NO_IDLE_TIMEOUT && System.currentTimeMillis() - lastData >= idleTimeout)
+          break;
+        awaitData(watcher);
+      }
+    } finally {
+      if(this.offset != savedOffset)
+        writeCheckpoint(logFile, this.offset);
+    }
+  }
+
+  /**
+   * Processes the complete lines in buf. Lines are terminated like in
+   * BufferedReader.readLine, but a trailing '\r' only ends a line once the next byte is
+   * known, since the writer may not have written the '\n' of a \r\n pair yet.
+   * @return the number of bytes consumed
+   */
+  private int processLines(byte[] buf, int len, ByteLine line, ParseResult<T> result) {
+    int lineStart = 0;
+    for(int i = 0; i < len; i++) {
+      byte b = buf[i];
+      if(b == '\n' || (b == '\r' && i + 1 < len)) {
+        processRawEntry(line.wrap(buf, lineStart, i - lineStart), result);
+        if(b == '\r' && buf[i + 1] == '\n')
+          i++;
+        lineStart = i + 1;
+      }
+    }
+    return lineStart;
+  }
+
+  private WatchService createWatcher(File logFile) {
+    try {
+      WatchService watcher = FileSystems.getDefault().newWatchService();
+      logFile.getAbsoluteFile().getParentFile().toPath().register(watcher,
+          StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+      return watcher;
+    } catch (IOException | UnsupportedOperationException e) {
+      logger.debug("No watch service available, polling " + logFile);
+      return null;
+    }
+  }
+
+  private void awaitData(WatchService watcher) throws IOException {
+    try {
+      if(watcher == null) {
+        Thread.sleep(pollInterval);
+        return;
+      }
+      WatchKey key = watcher.poll(pollInterval, TimeUnit.MILLISECONDS);
+      if(key != null) {
+        key.pollEvents();
+        key.reset();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while following log");
+    }
+  }
+
+  private long readCheckpoint(File logFile) {
+    if(checkpointFile == null || !checkpointFile.exists())
+      return 0;
+    Properties props = new Properties();
+    try(InputStream in = new FileInputStream(checkpointFile)) {
+      props.load(in);
+      if(!logFile.getAbsolutePath().equals(props.getProperty(CHECKPOINT_LOG))) {
+        logger.warn("Checkpoint " + checkpointFile + " belongs to another log. Reading " + logFile + " from the start");
+        return 0;
+      }
+      long saved = Long.parseLong(props.getProperty(CHECKPOINT_OFFSET));
+      if(saved < 0 || saved > logFile.length()) {
+        logger.warn("Checkpoint " + checkpointFile + " is beyond the end of " + logFile + ". Reading it from the start");
+        return 0;
+      }
+      logger.info("Resuming " + logFile + " at offset " + saved);
+      return saved;
+    } catch (IOException | NumberFormatException e) {
+      logger.warn("Could not read checkpoint " + checkpointFile + ": " + e.getMessage());
+      return 0;
+    }
+  }
+
+  private void writeCheckpoint(File logFile, long offset) {
+    if(checkpointFile == null)
+      return;
+    Properties props = new Properties();
+    props.setProperty(CHECKPOINT_LOG, logFile.getAbsolutePath());
+    props.setProperty(CHECKPOINT_OFFSET, Long.toString(offset));
+    File tmp = new File(checkpointFile.getAbsoluteFile().getParentFile(), checkpointFile.getName() + ".tmp");
+    try {
+      try(OutputStream out = new FileOutputStream(tmp)) {
+        props.store(out, "Read offset of " + logFile.getName());
+      }
+      Files.move(tmp.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) { //Losing a checkpoint only means reading some lines again
+      logger.warn("Could not write checkpoint " + checkpointFile + ": " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+/**
+ * @author Kasper Luckow
+ * Reusable tokenizer that walks a line in place instead of splitting it. Tokens are
+ * produced with the same semantics as String.split("\\s+"): runs of whitespace separate
+ * tokens, leading whitespace yields an empty first token and trailing whitespace is
+ * ignored. Alternatively, tokens are separated by a single delimiter character with the
+ * semantics of String.split(","), i.e., trailing empty tokens are dropped. The current
+ * token is only described by its bounds and is decoded on demand.
+ *
+ * Instances are not thread safe; keep one per thread.
+ */
+public class LineTokenizer {
+
+  private static final int WHITESPACE = -1;
+
+  private final DecimalParser decimalParser = new DecimalParser();
+  private final StringPool stringPool;
+  private final int delimiter;
+
+  private CharSequence line;
+  private int length;
+  private int end;
+  private int pos;
+  private boolean started;
+  private int tokenStart, tokenEnd;
+
+  public LineTokenizer() {
+    this(new StringPool());
+  }
+
+  public LineTokenizer(StringPool stringPool) {
+    this.stringPool = stringPool;
+    this.delimiter = WHITESPACE;
+  }
+
+  public LineTokenizer(char delimiter, StringPool stringPool) {
+    if(isWhitespace(delimiter))
+      throw new IllegalArgumentException("Whitespace delimiters are not supported");
+    this.stringPool = stringPool;
+    this.delimiter = delimiter;
+  }
+
+  public LineTokenizer reset(CharSequence line) {
+    this.line = line;
+    this.length = line.length();
+    this.end = this.length;
+    this.pos = 0;
+    this.started = false;
+    this.tokenStart = this.tokenEnd = 0;
+    if(delimiter != WHITESPACE) {
+      while(end > 0 && line.charAt(end - 1) == delimiter)
+        end--;
+      if(end == 0 && length > 0) //only delimiters: split yields no tokens at all
+        pos = 1;
+    }
+    return this;
+  }
+
+  public boolean next() {
+    if(delimiter != WHITESPACE)
+      return nextDelimited();
+    if(!started) {
+      started = true;
+      if(length == 0) { // "".split(..) yields a single empty token
+        pos = 1;
+        return true;
+      }
+      if(isWhitespace(line.charAt(0))) {
+        pos = skipWhitespace(0);
+        tokenStart = tokenEnd = 0;
+        return pos < length;
+      }
+    }
+    pos = skipWhitespace(pos);
+    if(pos >= length)
+      return false;
+    tokenStart = pos;
+    while(pos < length && !isWhitespace(line.charAt(pos)))
+      pos++;
+    tokenEnd = pos;
+    return true;
+  }
+
+  private boolean nextDelimited() {
+    if(pos > end)
+      return false;
+    int idx = pos;
+    while(idx < end && line.charAt(idx) != delimiter)
+      idx++;
+    tokenStart = pos;
+    tokenEnd = idx;
+    pos = idx + 1;
+    return true;
+  }
+
+  /**
+   * Walks the remainder of the line once and records the start and end of every projected
+   * column at bounds[2 * slot] and bounds[2 * slot + 1]. Other columns are only counted.
+   * @return the number of columns of the line. Counting stops early once the line has more
+   * columns than the projection requires.
+   */
+  public int project(ColumnProjection projection, int[] bounds) {
+    int limit = projection.getColumnCount();
+    int column = 0;
+    while(next()) {
+      int slot = projection.getSlot(column);
+      if(slot >= 0) {
+        bounds[2 * slot] = tokenStart;
+        bounds[2 * slot + 1] = tokenEnd;
+      }
+      column++;
+      if(limit != ColumnProjection.ANY_COLUMN_COUNT && column > limit)
+        break;
+    }
+    return column;
+  }
+
+  /**
+   * Makes the projected column recorded at the slot the current token.
+   */
+  public LineTokenizer select(int[] bounds, int slot) {
+    this.tokenStart = bounds[2 * slot];
+    this.tokenEnd = bounds[2 * slot + 1];
+    return this;
+  }
+
+  public int getTokenStart() {
+    return this.tokenStart;
+  }
+
+  public int getTokenEnd() {
+    return this.tokenEnd;
+  }
+
+  public int getTokenLength() {
+    return this.tokenEnd - this.tokenStart;
+  }
+
+  /**
+   * Compares the current token with the value without decoding it
+   */
+  public boolean tokenEquals(CharSequence value) {
+    int len = tokenEnd - tokenStart;
+    if(value.length() != len)
+      return false;
+    for(int i = 0; i < len; i++) {
+      if(line.charAt(tokenStart + i) != value.charAt(i))
+        return false;
+    }
+    return true;
+  }
+
+  public double parseDouble() {
+    return decimalParser.parseDouble(line, tokenStart, tokenEnd);
+  }
+
+  public float parseFloat() {
+    return decimalParser.parseFloat(line, tokenStart, tokenEnd);
+  }
+
+  public long parseLong() {
+    return decimalParser.parseLong(line, tokenStart, tokenEnd);
+  }
+
+  public String internToken() {
+    return stringPool.intern(line, tokenStart, tokenEnd);
+  }
+
+  private int skipWhitespace(int idx) {
+    while(idx < length && isWhitespace(line.charAt(idx)))
+      idx++;
+    return idx;
+  }
+
+  //Same character class as \s in java.util.regex
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+}
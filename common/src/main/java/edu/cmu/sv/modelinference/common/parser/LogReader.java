@@ -18,30 +18,47 @@ package edu.cmu.sv.modelinference.common.parser;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import edu.cmu.sv.modelinference.common.generators.LogEntry;
 import edu.cmu.sv.modelinference.common.generators.LogEntryFilter;
 import edu.cmu.sv.modelinference.common.generators.LogParser;
 import edu.cmu.sv.modelinference.common.generators.LogProcessor;
-import edu.cmu.sv.modelinference.common.generators.ParserException;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
+import edu.cmu.sv.modelinference.common.generators.PushdownFilter;
+import edu.cmu.sv.modelinference.common.parser.compress.LogStreams;
 
 /**
  * @author Kasper Luckow
  */
 public abstract class LogReader<T extends LogEntry> {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   protected LogEntryFilter<T> filter = null;
   protected Set<LogProcessor<T>> logProcessors = new HashSet<>();
   protected LogParser<T> logParser;
+  protected ReaderStatistics statistics = new ReaderStatistics();
+  private StringDictionary producers = new StringDictionary();
+  private final List<RawColumnPredicate> pushdown;
+  private double windowFrom = Double.NEGATIVE_INFINITY;
+  private double windowTo = Double.POSITIVE_INFINITY;
   
   public LogReader(LogParser<T> logParser) {
     this.logParser = logParser;
+    this.pushdown = null;
   }
   
   public LogReader(LogParser<T> logParser, LogEntryFilter<T> filter) {
     this.filter = filter;
     this.logParser = logParser;
+    this.pushdown = (filter instanceof PushdownFilter) ? ((PushdownFilter<T>)filter).getRawPredicates() : null;
   }
   
   public void addLogProcessor(LogProcessor<T> logProcessor) {
@@ -49,12 +66,180 @@ public abstract class LogReader<T extends LogEntry> {
   }
   
   public abstract void parseLog(File log) throws IOException;
+
+  /**
+   * @return the dictionary of the producer ids of the entries read by this reader. The
+   * index of a producer in it is assigned to the entries before they are processed (see
+   * {@link LogEntry#getLogProducerIndex()}), so processors can keep per producer state in
+   * arrays. Indexes are stable for the lifetime of the reader.
+   */
+  public StringDictionary getProducerDictionary() {
+    return this.producers;
+  }
+
+  /**
+   * Makes the reader index producers in the dictionary of another reader, so readers
+   * delegating to this reader hand out the same indexes
+   */
+  public void useProducerDictionary(StringDictionary producers) {
+    this.producers = producers;
+  }
+
+  /**
+   * Reads only the entries with a log time in [fromTime, toTime]. The parts of the log
+   * that can hold such entries are looked up in its {@link TimeIndex}, which is built
+   * and stored next to the log on first use, and read sequentially. Compressed logs
+   * cannot be indexed and are read completely.
+   */
+  public void parseLog(File log, double fromTime, double toTime) throws IOException {
+    TimeIndex index = LogStreams.isCompressed(log) ? null : TimeIndex.forLog(log, logParser);
+    resetStatistics();
+    setWindow(fromTime, toTime);
+    try {
+      if(index == null)
+        processRange(log, 0, Long.MAX_VALUE);
+      else {
+        for(long[] range : index.getRanges(fromTime, toTime))
+          processRange(log, range[0], range[1]);
+      }
+    } finally {
+      setWindow(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+  }
+
+  /**
+   * Entries outside the window are counted as filtered
+   */
+  protected final void setWindow(double fromTime, double toTime) {
+    this.windowFrom = fromTime;
+    this.windowTo = toTime;
+  }
+
+  protected final boolean overlapsWindow(double minTime, double maxTime) {
+    return !(maxTime < windowFrom || minTime > windowTo);
+  }
+
+  /**
+   * Processes the lines in the byte range [start, end) of the log, which must start at
+   * the beginning of a line. Lines are terminated like in BufferedReader.readLine and
+   * handed to the parser as a {@link ByteLine} view. Compressed logs (see {@link LogStreams})
+   * are decompressed as they are read and can only be read from the start.
+   */
+  protected final void processRange(File log, long start, long end) throws IOException {
+    if(LogStreams.isCompressed(log)) {
+      if(start != 0)
+        throw new IOException("Compressed log " + log + " cannot be read from offset " + start);
+      try(InputStream in = LogStreams.open(log)) {
+        processStream(in, end);
+      }
+      return;
+    }
+    try(FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.READ)) {
+      channel.position(start);
+      processStream(Channels.newInputStream(channel), end - start);
+    }
+  }
+
+  private void processStream(InputStream in, long length) throws IOException {
+    ParseResult<T> result = new ParseResult<>();
+    ByteLine line = new ByteLine(Charset.defaultCharset());
+    byte[] buf = new byte[BUFFER_SIZE];
+    long remaining = length;
+    int len = 0;
+    boolean skipLF = false;
+    int read;
+    while(remaining > 0 && (read = in.read(buf, len, (int)Math.min(buf.length - len, remaining))) != -1) {
+      remaining -= read;
+      int lineStart = 0;
+      for(int i = len; i < len + read; i++) {
+        byte b = buf[i];
+        if(skipLF) {
+          skipLF = false;
+          if(b == '\n') {
+            lineStart = i + 1;
+            continue;
+          }
+        }
+        if(b == '\n' || b == '\r') {
+          processRawEntry(line.wrap(buf, lineStart, i - lineStart), result);
+          lineStart = i + 1;
+          skipLF = b == '\r';
+        }
+      }
+      len += read;
+      //Keep the incomplete line at the start of the buffer
+      len -= lineStart;
+      System.arraycopy(buf, lineStart, buf, 0, len);
+      if(len == buf.length)
+        buf = Arrays.copyOf(buf, buf.length * 2);
+    }
+    if(len > 0)
+      processRawEntry(line.wrap(buf, 0, len), result);
+  }
+
+  /**
+   * @return the line counters of the last call to parseLog
+   */
+  public ReaderStatistics getStatistics() {
+    return this.statistics;
+  }
+
+  /**
+   * Implementations call this when starting to read a log
+   */
+  protected final void resetStatistics() {
+    this.statistics = new ReaderStatistics();
+  }
   
-  protected final void processRawEntry(String rawEntry) throws ParserException {
-    T entry = logParser.parse(rawEntry);
-    if(filter == null || filter.submitForProcessing(entry)) {
-      for(LogProcessor<T> proc : logProcessors)
-        proc.process(entry);
+  protected final void processRawEntry(CharSequence rawEntry, ParseResult<T> result) {
+    T entry = parseEntry(rawEntry, result);
+    if(entry != null)
+      dispatch(entry);
+  }
+
+  /**
+   * Parses the line and applies the filter, counting the outcome.
+   * @return the entry or null if the line is malformed or the entry is filtered out
+   */
+  protected final T parseEntry(CharSequence rawEntry, ParseResult<T> result) {
+    boolean parsed = (pushdown == null) ?
+        logParser.tryParse(rawEntry, result) : logParser.tryParse(rawEntry, result, pushdown);
+    if(!parsed) {
+      if(result.isSkipped())
+        statistics.recordFiltered();
+      else
+        statistics.recordMalformed(result.getReason());
+      return null;
     }
+    T entry = result.getEntry();
+    return filterEntry(entry) ? entry : null;
+  }
+
+  /**
+   * Applies the filter and counts the outcome
+   */
+  protected final boolean filterEntry(T entry) {
+    double time = entry.getLogTime();
+    if(!(time < windowFrom || time > windowTo) && isAccepted(entry)) {
+      statistics.recordAccepted();
+      return true;
+    }
+    statistics.recordFiltered();
+    return false;
+  }
+  
+  protected final boolean isAccepted(T entry) {
+    return filter == null || filter.submitForProcessing(entry);
+  }
+  
+  protected final void indexProducer(T entry) {
+    if(entry.getLogProducerIndex() < 0)
+      entry.setLogProducerIndex(producers.getId(entry.getLogProducerId()));
+  }
+
+  protected final void dispatch(T entry) {
+    indexProducer(entry);
+    for(LogProcessor<T> proc : logProcessors)
+      proc.process(entry);
   }
 }
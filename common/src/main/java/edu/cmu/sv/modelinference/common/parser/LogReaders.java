@@ -0,0 +1,145 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.io.File;
+
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+import edu.cmu.sv.modelinference.common.generators.LogEntryFilter;
+import edu.cmu.sv.modelinference.common.generators.LogParser;
+import edu.cmu.sv.modelinference.common.parser.cache.CacheableLogParser;
+import edu.cmu.sv.modelinference.common.parser.cache.CachedLogReader;
+
+/**
+ * @author Kasper Luckow
+ * Tools obtain their readers from here so the reading strategy can be chosen
+ * once (e.g. by Main) instead of in every log handler.
+ */
+public class LogReaders {
+
+  public static final LogReaderFactory SEQUENTIAL = new LogReaderFactory() {
+    @Override
+    public <T extends LogEntry> LogReader<T> createReader(LogParser<T> logParser, LogEntryFilter<T> filter) {
+      return new SequentialLogReader<>(logParser, filter);
+    }
+  };
+
+  private static LogReaderFactory defaultFactory = SEQUENTIAL;
+
+  public static LogReaderFactory parallel(final int threads) {
+    return new LogReaderFactory() {
+      @Override
+      public <T extends LogEntry> LogReader<T> createReader(LogParser<T> logParser, LogEntryFilter<T> filter) {
+        return new ParallelLogReader<>(logParser, filter, threads, ParallelLogReader.DEFAULT_CHUNK_SIZE);
+      }
+    };
+  }
+
+  public static LogReaderFactory pipelined(final int parsers) {
+    return new LogReaderFactory() {
+      @Override
+      public <T extends LogEntry> LogReader<T> createReader(LogParser<T> logParser, LogEntryFilter<T> filter) {
+        return new PipelinedLogReader<>(logParser, filter, parsers, PipelinedLogReader.DEFAULT_BATCH_SIZE, PipelinedLogReader.DEFAULT_QUEUE_CAPACITY);
+      }
+    };
+  }
+
+  /**
+   * Readers that follow logs while they are being written (see {@link FollowingLogReader})
+   * @param checkpointFile file for saving the read offset, or null
+   */
+  public static LogReaderFactory following(final long pollInterval, final long idleTimeout, final File checkpointFile) {
+    return new LogReaderFactory() {
+      @Override
+      public <T extends LogEntry> LogReader<T> createReader(LogParser<T> logParser, LogEntryFilter<T> filter) {
+        return new FollowingLogReader<>(logParser, filter, pollInterval, idleTimeout, checkpointFile);
+      }
+    };
+  }
+
+  /**
+   * Readers for {@link CacheableLogParser}s replay logs from their binary cache and create
+   * the cache on first use; other parsers get a reader from the source factory.
+   * @param cacheDir directory for the caches, or null to keep them next to the logs
+   */
+  public static LogReaderFactory cached(final LogReaderFactory sourceFactory, final File cacheDir) {
+    return new LogReaderFactory() {
+      @SuppressWarnings("unchecked")
+      @Override
+      public <T extends LogEntry> LogReader<T> createReader(LogParser<T> logParser, LogEntryFilter<T> filter) {
+        if(logParser instanceof CacheableLogParser)
+          return new CachedLogReader<>((CacheableLogParser<T>)logParser, filter, sourceFactory, cacheDir);
+        return sourceFactory.createReader(logParser, filter);
+      }
+    };
+  }
+
+  /**
+   * Readers for logs that consist of several files (see {@link MultiLogReader}). Every file
+   * is read by a reader of the source factory.
+   */
+  public static LogReaderFactory multiFile(final LogReaderFactory sourceFactory) {
+    return new LogReaderFactory() {
+      @Override
+      public <T extends LogEntry> LogReader<T> createReader(LogParser<T> logParser, LogEntryFilter<T> filter) {
+        return new MultiLogReader<>(logParser, filter, sourceFactory);
+      }
+    };
+  }
+
+  /**
+   * Readers of the source factory whose entries are put in time order before they are
+   * processed (see {@link ReorderingLogReader})
+   * @param lateness how much earlier (in log time) than the latest entry an entry may arrive
+   */
+  public static LogReaderFactory reordered(final LogReaderFactory sourceFactory, final double lateness) {
+    return new LogReaderFactory() {
+      @Override
+      public <T extends LogEntry> LogReader<T> createReader(LogParser<T> logParser, LogEntryFilter<T> filter) {
+        return new ReorderingLogReader<>(sourceFactory.createReader(logParser, filter), lateness);
+      }
+    };
+  }
+
+  /**
+   * Readers of the source factory that only read the entries with a log time in
+   * [fromTime, toTime] (see {@link LogReader#parseLog(File, double, double)})
+   */
+  public static LogReaderFactory windowed(final LogReaderFactory sourceFactory, final double fromTime, final double toTime) {
+    return new LogReaderFactory() {
+      @Override
+      public <T extends LogEntry> LogReader<T> createReader(LogParser<T> logParser, LogEntryFilter<T> filter) {
+        return new TimeWindowLogReader<>(sourceFactory.createReader(logParser, filter), fromTime, toTime);
+      }
+    };
+  }
+
+  public static synchronized void setDefaultFactory(LogReaderFactory factory) {
+    defaultFactory = factory;
+  }
+
+  public static synchronized LogReaderFactory getDefaultFactory() {
+    return defaultFactory;
+  }
+
+  public static <T extends LogEntry> LogReader<T> create(LogParser<T> logParser) {
+    return create(logParser, null);
+  }
+
+  public static <T extends LogEntry> LogReader<T> create(LogParser<T> logParser, LogEntryFilter<T> filter) {
+    return getDefaultFactory().createReader(logParser, filter);
+  }
+}
@@ -0,0 +1,335 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+import edu.cmu.sv.modelinference.common.generators.LogEntryFilter;
+import edu.cmu.sv.modelinference.common.generators.LogParser;
+import edu.cmu.sv.modelinference.common.generators.LogProcessor;
+import edu.cmu.sv.modelinference.common.generators.UnorderedLogProcessor;
+import edu.cmu.sv.modelinference.common.parser.cache.CachedLogReader;
+
+/**
+ * @author Kasper Luckow
+ * Reads a log that consists of several files: a directory of logs, or logs separated by
+ * File.pathSeparator (see {@link #getLogFiles(File)}). Each file is parsed on its own thread
+ * by a reader of the source factory. Ordinary processors get a single stream in which the
+ * files are merged on log time (the entries of each file are expected in time order; entries
+ * with the same time are taken from the files in order). {@link UnorderedLogProcessor}s
+ * consume the entries of every file as they are parsed, so reading takes about as long as
+ * parsing the largest file.
+ *
+ * The parser and the filter are invoked from the file threads and must therefore be
+ * thread safe.
+ */
+public class MultiLogReader<T extends LogEntry> extends LogReader<T> {
+
+  public static final int BATCH_SIZE = 1024;
+  private static final int QUEUE_CAPACITY = 4;
+  private static final long QUEUE_TIMEOUT = 10; //ms, to notice aborted reads
+
+  private final LogReaderFactory sourceFactory;
+
+  public MultiLogReader(LogParser<T> logParser, LogEntryFilter<T> filter, LogReaderFactory sourceFactory) {
+    super(logParser, filter);
+    this.sourceFactory = sourceFactory;
+  }
+
+  /**
+   * @return the files of a directory (sorted by name, without hidden files and the caches
+   * and indexes kept next to logs), the files of a File.pathSeparator separated list of files
+   * and directories, or else the file itself
+   */
+  public static List<File> getLogFiles(File input) {
+    List<File> logs = new ArrayList<>();
+    if(input.isDirectory()) {
+      File[] files = input.listFiles();
+      if(files != null) {
+        Arrays.sort(files);
+        for(File f : files) {
+          String name = f.getName();
+          if(f.isFile() && !f.isHidden() && !name.endsWith(CachedLogReader.CACHE_SUFFIX) &&
+              !name.endsWith(TimeIndex.INDEX_SUFFIX) && !name.endsWith(".tmp"))
+            logs.add(f);
+        }
+      }
+    } else if(!input.exists() && input.getPath().contains(File.pathSeparator)) {
+      for(String path : input.getPath().split(File.pathSeparator)) {
+        if(!path.isEmpty())
+          logs.addAll(getLogFiles(new File(path)));
+      }
+    } else
+      logs.add(input);
+    return logs;
+  }
+
+  @Override
+  public void parseLog(File input) throws IOException {
+    read(input, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, false);
+  }
+
+  @Override
+  public void parseLog(File input, double fromTime, double toTime) throws IOException {
+    read(input, fromTime, toTime, true);
+  }
+
+  private void read(File input, double fromTime, double toTime, boolean windowed) throws IOException {
+    resetStatistics();
+    List<File> logs = getLogFiles(input);
+    if(logs.isEmpty())
+      throw new FileNotFoundException("No logs in " + input);
+    if(logs.size() == 1) {
+      LogReader<T> source = sourceFactory.createReader(logParser, filter);
+      source.useProducerDictionary(getProducerDictionary());
+      for(LogProcessor<T> proc : logProcessors)
+        source.addLogProcessor(proc);
+      try {
+        if(windowed)
+          source.parseLog(logs.get(0), fromTime, toTime);
+        else
+          source.parseLog(logs.get(0));
+      } finally {
+        statistics.add(source.getStatistics());
+      }
+      return;
+    }
+
+    List<LogProcessor<T>> ordered = new ArrayList<>();
+    List<LogProcessor<T>> unordered = new ArrayList<>();
+    for(LogProcessor<T> proc : logProcessors) {
+      if(proc instanceof UnorderedLogProcessor)
+        unordered.add(proc);
+      else
+        ordered.add(proc);
+    }
+
+    Run run = new Run(unordered, !ordered.isEmpty());
+    List<FileFeed> feeds = new ArrayList<>();
+    for(int i = 0; i < logs.size(); i++)
+      feeds.add(new FileFeed(i, logs.get(i), run, fromTime, toTime, windowed));
+    List<Thread> threads = new ArrayList<>();
+    for(FileFeed feed : feeds) {
+      Thread t = new Thread(feed, "log-file-" + feed.index);
+      t.setDaemon(true);
+      threads.add(t);
+    }
+    try {
+      for(Thread t : threads)
+        t.start();
+      if(run.merging)
+        merge(feeds, ordered, run);
+      join(threads);
+    } finally {
+      run.aborted = true;
+      join(threads);
+      for(FileFeed feed : feeds)
+        statistics.add(feed.source.getStatistics());
+    }
+    Throwable cause = run.failure.get();
+    if(cause != null)
+      rethrow(cause);
+  }
+
+  /**
+   * k-way merge of the files on log time, consuming the batches of the files as they are
+   * produced. Stops early if the read was aborted because a file could not be read.
+   */
+  private void merge(List<FileFeed> feeds, List<LogProcessor<T>> ordered, Run run) throws IOException {
+    PriorityQueue<FileFeed> heads = new PriorityQueue<>(feeds.size(), new Comparator<FileFeed>() {
+      @Override
+      public int compare(FileFeed f1, FileFeed f2) {
+        int c = Double.compare(f1.head().getLogTime(), f2.head().getLogTime());
+        return (c != 0) ? c : Integer.compare(f1.index, f2.index);
+      }
+    });
+    try {
+      for(FileFeed feed : feeds) {
+        if(feed.advance())
+          heads.add(feed);
+      }
+      while(!heads.isEmpty() && !run.aborted) {
+        FileFeed feed = heads.poll();
+        T entry = feed.head();
+        for(LogProcessor<T> proc : ordered)
+          proc.process(entry);
+        if(feed.advance())
+          heads.add(feed);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while merging logs");
+    }
+  }
+
+  private static void join(List<Thread> threads) throws InterruptedIOException {
+    try {
+      for(Thread t : threads)
+        t.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading logs");
+    }
+  }
+
+  private static void rethrow(Throwable cause) throws IOException {
+    if(cause instanceof IOException)
+      throw (IOException)cause;
+    if(cause instanceof RuntimeException)
+      throw (RuntimeException)cause;
+    if(cause instanceof Error)
+      throw (Error)cause;
+    throw new IOException(cause);
+  }
+
+  /**
+   * State shared by the file threads of one read
+   */
+  private class Run {
+    final List<LogProcessor<T>> unordered;
+    final boolean merging;
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    volatile boolean aborted = false;
+
+    Run(List<LogProcessor<T>> unordered, boolean merging) {
+      this.unordered = unordered;
+      this.merging = merging;
+    }
+
+    synchronized void dispatchUnordered(T entry) {
+      for(LogProcessor<T> proc : unordered)
+        proc.process(entry);
+    }
+  }
+
+  private class FileFeed implements LogProcessor<T>, Runnable {
+    final int index;
+    final File log;
+    final Run run;
+    final double fromTime, toTime;
+    final boolean windowed;
+    final LogReader<T> source;
+    final BlockingQueue<List<T>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    final List<T> end = Collections.emptyList();
+    List<T> batch = new ArrayList<>(BATCH_SIZE);
+
+    //Merge side
+    List<T> current = null;
+    int pos = 0;
+
+    FileFeed(int index, File log, Run run, double fromTime, double toTime, boolean windowed) {
+      this.index = index;
+      this.log = log;
+      this.run = run;
+      this.fromTime = fromTime;
+      this.toTime = toTime;
+      this.windowed = windowed;
+      this.source = sourceFactory.createReader(logParser, filter);
+      //Shared by the files, so entries of a producer get the same index in every file
+      this.source.useProducerDictionary(getProducerDictionary());
+      this.source.addLogProcessor(this);
+    }
+
+    @Override
+    public void run() {
+      try {
+        if(windowed)
+          source.parseLog(log, fromTime, toTime);
+        else
+          source.parseLog(log);
+        if(!batch.isEmpty())
+          put(batch);
+      } catch (ReadAbortedException e) {
+        //Another file failed or the merge stopped
+      } catch (IOException | RuntimeException | Error e) {
+        run.failure.compareAndSet(null, e);
+        run.aborted = true;
+      } finally {
+        if(run.merging) {
+          try {
+            put(end);
+          } catch (ReadAbortedException e) { }
+        }
+      }
+    }
+
+    @Override
+    public void process(T entry) {
+      if(run.aborted)
+        throw new ReadAbortedException();
+      if(!run.unordered.isEmpty())
+        run.dispatchUnordered(entry);
+      if(run.merging) {
+        batch.add(entry);
+        if(batch.size() == BATCH_SIZE) {
+          put(batch);
+          batch = new ArrayList<>(BATCH_SIZE);
+        }
+      }
+    }
+
+    private void put(List<T> entries) {
+      try {
+        while(!queue.offer(entries, QUEUE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+          if(run.aborted)
+            throw new ReadAbortedException();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ReadAbortedException();
+      }
+    }
+
+    T head() {
+      return current.get(pos);
+    }
+
+    /**
+     * Moves to the next entry of the file, waiting for it to be parsed
+     * @return false if all entries of the file have been consumed
+     */
+    boolean advance() throws InterruptedException {
+      pos++;
+      while(current == null || pos >= current.size()) {
+        if(current == end)
+          return false;
+        current = queue.poll(QUEUE_TIMEOUT, TimeUnit.MILLISECONDS);
+        pos = 0;
+        if(current == null && run.aborted)
+          return false;
+      }
+      return true;
+    }
+  }
+
+  private static class ReadAbortedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+  }
+}
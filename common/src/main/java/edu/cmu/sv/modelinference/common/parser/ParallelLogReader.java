@@ -0,0 +1,278 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.cmu.sv.modelinference.common.DaemonThreadFactory;
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+import edu.cmu.sv.modelinference.common.generators.LogEntryFilter;
+import edu.cmu.sv.modelinference.common.generators.LogParser;
+import edu.cmu.sv.modelinference.common.generators.LogProcessor;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
+import edu.cmu.sv.modelinference.common.generators.ProducerOrderedLogProcessor;
+import edu.cmu.sv.modelinference.common.parser.compress.LogStreams;
+
+/**
+ * @author Kasper Luckow
+ * Memory maps the log, cuts it into newline aligned chunks and parses the chunks on a pool
+ * of worker threads. Parsed chunks are handed to the processors in chunk order on the
+ * thread calling parseLog, so ordinary processors see the entries in log order.
+ * {@link ProducerOrderedLogProcessor}s are fed on a set of lanes instead, each lane owning
+ * a fixed subset of the producers.
+ *
+ * The parser and the filter are invoked from the worker threads and must therefore be
+ * thread safe. Line splitting is done on '\n' bytes, so the default charset must be ASCII
+ * compatible (which is the case for the SafeTugs and Autoresolver logs). ASCII lines are
+ * handed to the parser as a {@link ByteLine} view of the chunk without decoding them.
+ * Compressed logs cannot be mapped and are read sequentially.
+ */
+public class ParallelLogReader<T extends LogEntry> extends LogReader<T> {
+
+  public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+  private static final int BOUNDARY_SCAN_SIZE = 4096;
+
+  private final int threads;
+  private final int chunkSize;
+  private final Charset charset = Charset.defaultCharset();
+
+  public ParallelLogReader(LogParser<T> logParser) {
+    this(logParser, null);
+  }
+
+  public ParallelLogReader(LogParser<T> logParser, LogEntryFilter<T> filter) {
+    this(logParser, filter, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+  }
+
+  public ParallelLogReader(LogParser<T> logParser, LogEntryFilter<T> filter, int threads, int chunkSize) {
+    super(logParser, filter);
+    if(threads < 1)
+      throw new IllegalArgumentException("At least one worker thread is needed");
+    if(chunkSize < 1)
+      throw new IllegalArgumentException("Chunk size must be positive");
+    this.threads = threads;
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public void parseLog(File logFile) throws IOException {
+    resetStatistics();
+    if(LogStreams.isCompressed(logFile)) { //Cannot be mapped, so it is parsed as it is decompressed
+      processRange(logFile, 0, Long.MAX_VALUE);
+      return;
+    }
+    parseRanges(logFile, Collections.singletonList(new long[] {0, Long.MAX_VALUE}));
+  }
+
+  /**
+   * Only the ranges of the log that hold entries in the window (see {@link TimeIndex})
+   * are mapped and parsed
+   */
+  @Override
+  public void parseLog(File log, double fromTime, double toTime) throws IOException {
+    if(LogStreams.isCompressed(log)) {
+      super.parseLog(log, fromTime, toTime);
+      return;
+    }
+    TimeIndex index = TimeIndex.forLog(log, logParser);
+    resetStatistics();
+    setWindow(fromTime, toTime);
+    try {
+      parseRanges(log, index.getRanges(fromTime, toTime));
+    } finally {
+      setWindow(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+  }
+
+  /**
+   * Parses the byte ranges [start, end) of the log, which must start at the beginning of
+   * a line and be in log order
+   */
+  private void parseRanges(File logFile, List<long[]> ranges) throws IOException {
+    List<LogProcessor<T>> ordered = new ArrayList<>();
+    List<LogProcessor<T>> producerOrdered = new ArrayList<>();
+    for(LogProcessor<T> proc : this.logProcessors) {
+      if(proc instanceof ProducerOrderedLogProcessor)
+        producerOrdered.add(proc);
+      else
+        ordered.add(proc);
+    }
+
+    ExecutorService workers = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("log-parser"));
+    ExecutorService[] lanes = new ExecutorService[producerOrdered.isEmpty() ? 0 : threads];
+    for(int i = 0; i < lanes.length; i++)
+      lanes[i] = Executors.newSingleThreadExecutor(new DaemonThreadFactory("log-lane-" + i));
+
+    try(FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      int range = 0;
+      long pos = 0, rangeEnd = 0;
+      //Bound the number of chunks in memory -- parsed entries are far bigger than the raw bytes
+      int maxInFlight = threads * 2;
+      Deque<Future<List<T>>> inFlight = new ArrayDeque<>();
+      Deque<Future<?>> laneWork = new ArrayDeque<>();
+      while(pos < rangeEnd || range < ranges.size() || !inFlight.isEmpty()) {
+        while(inFlight.size() < maxInFlight) {
+          if(pos >= rangeEnd) {
+            if(range == ranges.size())
+              break;
+            pos = ranges.get(range)[0];
+            rangeEnd = Math.min(ranges.get(range)[1], size);
+            range++;
+            continue;
+          }
+          long end = findChunkEnd(channel, pos, rangeEnd);
+          MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, pos, end - pos);
+          inFlight.add(workers.submit(new ChunkParser(chunk)));
+          pos = end;
+        }
+        if(inFlight.isEmpty())
+          break;
+        List<T> entries = await(inFlight.poll());
+        for(T entry : entries) {
+          indexProducer(entry);
+          for(LogProcessor<T> proc : ordered)
+            proc.process(entry);
+        }
+        for(int i = 0; i < lanes.length; i++)
+          laneWork.add(lanes[i].submit(new LaneDispatcher(entries, producerOrdered, i, lanes.length)));
+        //Lanes lagging too far behind would otherwise keep an unbounded number of chunks alive
+        while(laneWork.size() > maxInFlight * lanes.length)
+          await(laneWork.poll());
+      }
+      while(!laneWork.isEmpty())
+        await(laneWork.poll());
+    } finally {
+      workers.shutdownNow();
+      for(ExecutorService lane : lanes)
+        lane.shutdownNow();
+    }
+  }
+
+  private long findChunkEnd(FileChannel channel, long start, long size) throws IOException {
+    long pos = Math.min(start + chunkSize, size);
+    if(pos == size)
+      return size;
+    ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+    while(pos < size) {
+      scan.clear();
+      int read = channel.read(scan, pos);
+      if(read <= 0)
+        break;
+      for(int i = 0; i < read; i++) {
+        if(scan.get(i) == '\n')
+          return pos + i + 1;
+      }
+      pos += read;
+    }
+    return size;
+  }
+
+  private static <V> V await(Future<V> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading log");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if(cause instanceof RuntimeException)
+        throw (RuntimeException)cause;
+      if(cause instanceof Error)
+        throw (Error)cause;
+      throw new IOException(cause);
+    }
+  }
+
+  private class ChunkParser implements Callable<List<T>> {
+    private final ByteBuffer chunk;
+    private final ParseResult<T> result = new ParseResult<>();
+
+    ChunkParser(ByteBuffer chunk) {
+      this.chunk = chunk;
+    }
+
+    @Override
+    public List<T> call() {
+      //The lines are tokenized straight from the mapped chunk
+      int size = chunk.limit();
+      List<T> entries = new ArrayList<>();
+      ByteLine line = new ByteLine(charset);
+      int lineStart = 0;
+      boolean ascii = true;
+      for(int i = 0; i <= size; i++) {
+        //Mimic BufferedReader.readLine: \n, \r and \r\n all terminate a line
+        byte b = (i < size) ? chunk.get(i) : 0;
+        if(i == size || b == '\n' || b == '\r') {
+          if(i < size || i > lineStart)
+            parse(line.wrap(chunk, lineStart, i - lineStart, ascii), entries);
+          if(i < size - 1 && b == '\r' && chunk.get(i + 1) == '\n')
+            i++;
+          lineStart = i + 1;
+          ascii = true;
+        } else if(b < 0)
+          ascii = false;
+      }
+      return entries;
+    }
+
+    private void parse(CharSequence line, List<T> entries) {
+      T entry = parseEntry(line, result);
+      if(entry != null)
+        entries.add(entry);
+    }
+  }
+
+  private class LaneDispatcher implements Runnable {
+    private final List<T> entries;
+    private final List<LogProcessor<T>> processors;
+    private final int lane, laneCount;
+
+    LaneDispatcher(List<T> entries, List<LogProcessor<T>> processors, int lane, int laneCount) {
+      this.entries = entries;
+      this.processors = processors;
+      this.lane = lane;
+      this.laneCount = laneCount;
+    }
+
+    @Override
+    public void run() {
+      for(T entry : entries) {
+        if(entry.getLogProducerIndex() % laneCount != lane)
+          continue;
+        for(LogProcessor<T> proc : processors)
+          proc.process(entry);
+      }
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Kasper Luckow
+ * Counters of a {@link PipelinedLogReader} run. A stall is a back-off round of a stage
+ * that could not make progress: the I/O stage waiting for a free buffer or for room in a
+ * parser queue, a parser waiting for input or for room in its output queue, and the
+ * dispatcher waiting for the next parsed batch. Queue depths are the maximum number of
+ * batches observed in the parser input and output queues.
+ */
+public class PipelineStatistics {
+
+  final AtomicLong batches = new AtomicLong();
+  final AtomicLong ioStalls = new AtomicLong();
+  final AtomicLong parserInputStalls = new AtomicLong();
+  final AtomicLong parserOutputStalls = new AtomicLong();
+  final AtomicLong dispatchStalls = new AtomicLong();
+  final AtomicLong maxInputDepth = new AtomicLong();
+  final AtomicLong maxOutputDepth = new AtomicLong();
+
+  static void updateMax(AtomicLong max, long value) {
+    long cur;
+    while(value > (cur = max.get()) && !max.compareAndSet(cur, value));
+  }
+
+  public long getBatches() {
+    return batches.get();
+  }
+
+  public long getIoStalls() {
+    return ioStalls.get();
+  }
+
+  public long getParserInputStalls() {
+    return parserInputStalls.get();
+  }
+
+  public long getParserOutputStalls() {
+    return parserOutputStalls.get();
+  }
+
+  public long getDispatchStalls() {
+    return dispatchStalls.get();
+  }
+
+  public long getMaxInputDepth() {
+    return maxInputDepth.get();
+  }
+
+  public long getMaxOutputDepth() {
+    return maxOutputDepth.get();
+  }
+
+  @Override
+  public String toString() {
+    return "batches=" + getBatches() +
+        ", io stalls=" + getIoStalls() +
+        ", parser input stalls=" + getParserInputStalls() +
+        ", parser output stalls=" + getParserOutputStalls() +
+        ", dispatch stalls=" + getDispatchStalls() +
+        ", max input depth=" + getMaxInputDepth() +
+        ", max output depth=" + getMaxOutputDepth();
+  }
+}
@@ -0,0 +1,410 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+import edu.cmu.sv.modelinference.common.generators.LogEntryFilter;
+import edu.cmu.sv.modelinference.common.generators.LogParser;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
+import edu.cmu.sv.modelinference.common.parser.compress.LogStreams;
+
+/**
+ * @author Kasper Luckow
+ * Streams the log through three stages: an I/O thread cuts the log into line aligned
+ * batches, N parser threads turn the batches into entries, and the thread calling
+ * parseLog hands the entries to the processors. The stages are connected by
+ * {@link SpscRingBuffer}s: batch i goes to parser i mod N and is collected from that
+ * parser's output queue in the same round robin order, so the processors see the entries
+ * in log order. Batches and their byte buffers are allocated up front and recycled by the
+ * dispatcher. A full queue makes the upstream stage back off (spin, yield, then park),
+ * which bounds memory regardless of how far the stages drift apart.
+ *
+ * As with {@link ParallelLogReader}, the parser and the filter must be thread safe and the
+ * default charset must be ASCII compatible.
+ */
+public class PipelinedLogReader<T extends LogEntry> extends LogReader<T> {
+  public static final Logger logger = LoggerFactory.getLogger(PipelinedLogReader.class);
+
+  public static final int DEFAULT_BATCH_SIZE = 256 * 1024;
+  public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+  private static final int SPIN_ROUNDS = 64;
+  private static final int YIELD_ROUNDS = 128;
+  private static final long PARK_NANOS = 50000;
+
+  private final int parsers;
+  private final int batchSize;
+  private final int queueCapacity;
+  private final Charset charset = Charset.defaultCharset();
+
+  private PipelineStatistics pipelineStatistics = new PipelineStatistics();
+  private volatile boolean aborted;
+  private volatile Throwable failure;
+
+  public PipelinedLogReader(LogParser<T> logParser) {
+    this(logParser, null);
+  }
+
+  public PipelinedLogReader(LogParser<T> logParser, LogEntryFilter<T> filter) {
+    this(logParser, filter, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  public PipelinedLogReader(LogParser<T> logParser, LogEntryFilter<T> filter, int parsers, int batchSize, int queueCapacity) {
+    super(logParser, filter);
+    if(parsers < 1)
+      throw new IllegalArgumentException("At least one parser thread is needed");
+    if(batchSize < 1)
+      throw new IllegalArgumentException("Batch size must be positive");
+    if(queueCapacity < 1)
+      throw new IllegalArgumentException("Queue capacity must be positive");
+    this.parsers = parsers;
+    this.batchSize = batchSize;
+    this.queueCapacity = queueCapacity;
+  }
+
+  /**
+   * @return the counters of the last (or current) call to parseLog
+   */
+  public PipelineStatistics getPipelineStatistics() {
+    return this.pipelineStatistics;
+  }
+
+  @Override
+  public void parseLog(File logFile) throws IOException {
+    parseRanges(logFile, null);
+  }
+
+  /**
+   * Only the ranges of the log that hold entries in the window (see {@link TimeIndex}) are
+   * streamed through the pipeline. Compressed logs are streamed completely.
+   */
+  @Override
+  public void parseLog(File log, double fromTime, double toTime) throws IOException {
+    TimeIndex index = LogStreams.isCompressed(log) ? null : TimeIndex.forLog(log, logParser);
+    setWindow(fromTime, toTime);
+    try {
+      parseRanges(log, (index == null) ? null : index.getRanges(fromTime, toTime));
+    } finally {
+      setWindow(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+  }
+
+  /**
+   * @param ranges byte ranges [start, end) in log order that start at the beginning of a
+   * line, or null to read the whole log
+   */
+  private void parseRanges(File logFile, List<long[]> ranges) throws IOException {
+    resetStatistics();
+    this.pipelineStatistics = new PipelineStatistics();
+    this.aborted = false;
+    this.failure = null;
+
+    List<SpscRingBuffer<Batch>> input = new ArrayList<>();
+    List<SpscRingBuffer<Batch>> output = new ArrayList<>();
+    for(int i = 0; i < parsers; i++) {
+      input.add(new SpscRingBuffer<Batch>(queueCapacity));
+      output.add(new SpscRingBuffer<Batch>(queueCapacity));
+    }
+    //Every batch can sit in a queue or in the hands of one of the stages
+    int poolSize = parsers * (input.get(0).capacity() + output.get(0).capacity() + 1) + 2;
+    SpscRingBuffer<Batch> free = new SpscRingBuffer<>(poolSize);
+    for(int i = 0; i < poolSize; i++)
+      free.offer(new Batch(batchSize));
+
+    List<Thread> threads = new ArrayList<>();
+    threads.add(new Thread(new Reader(logFile, ranges, free, input), "log-io"));
+    for(int i = 0; i < parsers; i++)
+      threads.add(new Thread(new Parser(input.get(i), output.get(i)), "log-parser-" + i));
+    for(Thread t : threads) {
+      t.setDaemon(true);
+      t.start();
+    }
+
+    try {
+      for(long seq = 0;; seq++) {
+        Batch batch = take(output.get((int)(seq % parsers)), pipelineStatistics.dispatchStalls);
+        if(batch.endOfStream)
+          break;
+        for(T entry : batch.entries)
+          dispatch(entry);
+        batch.entries.clear();
+        pipelineStatistics.batches.incrementAndGet();
+        put(free, batch, null, null);
+      }
+    } catch (PipelineAbortedException e) {
+      Throwable cause = this.failure;
+      if(cause == null)
+        throw new InterruptedIOException("Interrupted while reading log");
+      if(cause instanceof IOException)
+        throw (IOException)cause;
+      if(cause instanceof RuntimeException)
+        throw (RuntimeException)cause;
+      if(cause instanceof Error)
+        throw (Error)cause;
+      throw new IOException(cause);
+    } finally {
+      //Stops the other stages at their next queue operation if we did not get to the end
+      this.aborted = true;
+    }
+    logger.debug("Pipeline statistics for {}: {}", logFile.getName(), pipelineStatistics);
+  }
+
+  private void fail(Throwable t) {
+    if(this.failure == null)
+      this.failure = t;
+    this.aborted = true;
+  }
+
+  private void put(SpscRingBuffer<Batch> queue, Batch batch, AtomicLong stalls, AtomicLong maxDepth) {
+    if(!queue.offer(batch)) {
+      if(stalls != null)
+        stalls.incrementAndGet();
+      for(int round = 0; !queue.offer(batch); round++)
+        backoff(round);
+    }
+    if(maxDepth != null)
+      PipelineStatistics.updateMax(maxDepth, queue.size());
+  }
+
+  private Batch take(SpscRingBuffer<Batch> queue, AtomicLong stalls) {
+    Batch batch = queue.poll();
+    if(batch == null) {
+      stalls.incrementAndGet();
+      for(int round = 0; (batch = queue.poll()) == null; round++)
+        backoff(round);
+    }
+    return batch;
+  }
+
+  private void backoff(int round) {
+    if(aborted || Thread.currentThread().isInterrupted())
+      throw new PipelineAbortedException();
+    if(round < SPIN_ROUNDS)
+      return;
+    if(round < YIELD_ROUNDS)
+      Thread.yield();
+    else
+      LockSupport.parkNanos(PARK_NANOS);
+  }
+
+  private class Batch {
+    byte[] data;
+    int length;
+    final boolean endOfStream;
+    final List<T> entries = new ArrayList<>();
+
+    Batch(int size) {
+      this.data = new byte[size];
+      this.endOfStream = false;
+    }
+
+    Batch() {
+      this.data = new byte[0];
+      this.endOfStream = true;
+    }
+  }
+
+  private class Reader implements Runnable {
+    private final File logFile;
+    private final List<long[]> ranges;
+    private final SpscRingBuffer<Batch> free;
+    private final List<SpscRingBuffer<Batch>> input;
+    private byte[] carry = new byte[0];
+    private int carryLength = 0;
+
+    Reader(File logFile, List<long[]> ranges, SpscRingBuffer<Batch> free, List<SpscRingBuffer<Batch>> input) {
+      this.logFile = logFile;
+      this.ranges = ranges;
+      this.free = free;
+      this.input = input;
+    }
+
+    @Override
+    public void run() {
+      long seq = 0;
+      try(InputStream in = (ranges == null) ? LogStreams.open(logFile) : openRanges(logFile, ranges)) {
+        boolean eof = false;
+        while(!eof) {
+          Batch batch = take(free, pipelineStatistics.ioStalls);
+          if(batch.data.length <= carryLength)
+            batch.data = new byte[carryLength * 2];
+          System.arraycopy(carry, 0, batch.data, 0, carryLength);
+          int len = carryLength;
+          int cut;
+          while(true) {
+            int read = 0;
+            while(len < batch.data.length && (read = in.read(batch.data, len, batch.data.length - len)) != -1)
+              len += read;
+            eof = read == -1;
+            cut = eof ? len : findCut(batch.data, len);
+            if(cut > 0 || eof)
+              break;
+            //A single line longer than the buffer
+            batch.data = Arrays.copyOf(batch.data, batch.data.length * 2);
+          }
+          carryLength = len - cut;
+          if(carry.length < carryLength)
+            carry = new byte[batch.data.length];
+          System.arraycopy(batch.data, cut, carry, 0, carryLength);
+          batch.length = cut;
+          //Nothing was read: the log is empty or ended with the previous batch. The dispatcher
+          //is the only producer of free, so the batch is dropped instead of returned
+          if(cut == 0)
+            break;
+          put(input.get((int)(seq % parsers)), batch, pipelineStatistics.ioStalls, pipelineStatistics.maxInputDepth);
+          seq++;
+        }
+        Batch end = new Batch();
+        for(SpscRingBuffer<Batch> queue : input)
+          put(queue, end, pipelineStatistics.ioStalls, null);
+      } catch (PipelineAbortedException e) {
+        //Dispatcher is gone
+      } catch (IOException | RuntimeException | Error e) {
+        fail(e);
+      }
+    }
+
+    /**
+     * The ranges end at the beginning of a line, so they can be read as one stream
+     */
+    private InputStream openRanges(File log, final List<long[]> ranges) throws IOException {
+      final FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.READ);
+      return new InputStream() {
+        private int range = 0;
+        private long pos = ranges.isEmpty() ? 0 : ranges.get(0)[0];
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+          while(range < ranges.size()) {
+            long end = ranges.get(range)[1];
+            if(pos < end) {
+              int read = channel.read(ByteBuffer.wrap(b, off, (int)Math.min(len, end - pos)), pos);
+              if(read > 0) {
+                pos += read;
+                return read;
+              }
+              if(read < 0) //The log is shorter than indexed
+                end = pos;
+            }
+            if(pos >= end && ++range < ranges.size())
+              pos = ranges.get(range)[0];
+          }
+          return -1;
+        }
+
+        @Override
+        public int read() throws IOException {
+          byte[] b = new byte[1];
+          return (read(b, 0, 1) == -1) ? -1 : (b[0] & 0xff);
+        }
+
+        @Override
+        public void close() throws IOException {
+          channel.close();
+        }
+      };
+    }
+
+    /**
+     * Cuts after the last '\n', so \r\n pairs are never split. Logs using '\r' alone are cut
+     * after the last '\r' that is followed by another byte.
+     */
+    private int findCut(byte[] data, int len) {
+      for(int i = len - 1; i >= 0; i--) {
+        if(data[i] == '\n')
+          return i + 1;
+      }
+      for(int i = len - 2; i >= 0; i--) {
+        if(data[i] == '\r')
+          return i + 1;
+      }
+      return 0;
+    }
+  }
+
+  private class Parser implements Runnable {
+    private final SpscRingBuffer<Batch> in;
+    private final SpscRingBuffer<Batch> out;
+    private final ByteLine line = new ByteLine(charset);
+    private final ParseResult<T> result = new ParseResult<>();
+
+    Parser(SpscRingBuffer<Batch> in, SpscRingBuffer<Batch> out) {
+      this.in = in;
+      this.out = out;
+    }
+
+    @Override
+    public void run() {
+      try {
+        while(true) {
+          Batch batch = take(in, pipelineStatistics.parserInputStalls);
+          if(!batch.endOfStream)
+            parseBatch(batch);
+          put(out, batch, pipelineStatistics.parserOutputStalls, pipelineStatistics.maxOutputDepth);
+          if(batch.endOfStream)
+            return;
+        }
+      } catch (PipelineAbortedException e) {
+        //Dispatcher is gone
+      } catch (RuntimeException | Error e) {
+        fail(e);
+      }
+    }
+
+    private void parseBatch(Batch batch) {
+      byte[] data = batch.data;
+      int length = batch.length;
+      int lineStart = 0;
+      for(int i = 0; i <= length; i++) {
+        //Mimic BufferedReader.readLine: \n, \r and \r\n all terminate a line
+        if(i == length || data[i] == '\n' || data[i] == '\r') {
+          if(i < length || i > lineStart)
+            parse(line.wrap(data, lineStart, i - lineStart), batch.entries);
+          if(i < length - 1 && data[i] == '\r' && data[i + 1] == '\n')
+            i++;
+          lineStart = i + 1;
+        }
+      }
+    }
+
+    private void parse(CharSequence line, List<T> entries) {
+      T entry = parseEntry(line, result);
+      if(entry != null)
+        entries.add(entry);
+    }
+  }
+
+  private static class PipelineAbortedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+  }
+}
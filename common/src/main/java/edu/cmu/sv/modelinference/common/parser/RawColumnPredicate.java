@@ -0,0 +1,70 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+/**
+ * @author Kasper Luckow
+ * Condition on a single column of the raw line, evaluated by parsers that support
+ * pushdown before the other columns are decoded. Columns are numbered as in the log
+ * format, i.e., as in the column constants of the parsers. Predicates are shared between
+ * parser threads and must be stateless.
+ */
+public abstract class RawColumnPredicate {
+
+  private final int column;
+
+  protected RawColumnPredicate(int column) {
+    if(column < 0)
+      throw new IllegalArgumentException("Invalid column " + column);
+    this.column = column;
+  }
+
+  public int getColumn() {
+    return this.column;
+  }
+
+  /**
+   * @param token tokenizer whose current token is the column
+   */
+  public abstract boolean test(LineTokenizer token);
+
+  public static RawColumnPredicate equalTo(int column, final String value) {
+    return new RawColumnPredicate(column) {
+      @Override
+      public boolean test(LineTokenizer token) {
+        return token.tokenEquals(value);
+      }
+    };
+  }
+
+  /**
+   * Numeric range check (inclusive) at double precision. Columns that are not numbers
+   * fail the check.
+   */
+  public static RawColumnPredicate between(int column, final double min, final double max) {
+    return new RawColumnPredicate(column) {
+      @Override
+      public boolean test(LineTokenizer token) {
+        try {
+          double value = token.parseDouble();
+          return value >= min && value <= max;
+        } catch (NumberFormatException e) {
+          return false;
+        }
+      }
+    };
+  }
+}
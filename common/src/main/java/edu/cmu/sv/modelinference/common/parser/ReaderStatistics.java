@@ -0,0 +1,104 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.cmu.sv.modelinference.common.generators.MalformedReason;
+
+/**
+ * @author Kasper Luckow
+ * Line counters of a {@link LogReader}: lines that yielded an entry passing the filter,
+ * entries rejected by the filter, and malformed lines by reason. The counters can be
+ * updated from several parser threads.
+ */
+public class ReaderStatistics {
+
+  private final LongAdder accepted = new LongAdder();
+  private final LongAdder filtered = new LongAdder();
+  private final LongAdder[] malformed = new LongAdder[MalformedReason.values().length];
+
+  public ReaderStatistics() {
+    for(int i = 0; i < malformed.length; i++)
+      malformed[i] = new LongAdder();
+  }
+
+  public void recordAccepted() {
+    accepted.increment();
+  }
+
+  public void recordFiltered() {
+    filtered.increment();
+  }
+
+  public void recordMalformed(MalformedReason reason) {
+    malformed[reason.ordinal()].increment();
+  }
+
+  /**
+   * Adds the malformed line counts of another reader, e.g. of a reader that was delegated to
+   */
+  public void addMalformed(ReaderStatistics other) {
+    for(int i = 0; i < malformed.length; i++)
+      malformed[i].add(other.malformed[i].sum());
+  }
+
+  /**
+   * Adds all counts of another reader
+   */
+  public void add(ReaderStatistics other) {
+    accepted.add(other.getAccepted());
+    filtered.add(other.getFiltered());
+    addMalformed(other);
+  }
+
+  public long getAccepted() {
+    return accepted.sum();
+  }
+
+  public long getFiltered() {
+    return filtered.sum();
+  }
+
+  public long getMalformed(MalformedReason reason) {
+    return malformed[reason.ordinal()].sum();
+  }
+
+  public long getMalformed() {
+    long sum = 0;
+    for(LongAdder m : malformed)
+      sum += m.sum();
+    return sum;
+  }
+
+  public long getLines() {
+    return getAccepted() + getFiltered() + getMalformed();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("accepted=").append(getAccepted())
+      .append(", filtered=").append(getFiltered())
+      .append(", malformed=").append(getMalformed());
+    for(MalformedReason reason : MalformedReason.values()) {
+      long count = getMalformed(reason);
+      if(count > 0)
+        sb.append(", ").append(reason.getDescription()).append("=").append(count);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.util.Arrays;
+
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+import edu.cmu.sv.modelinference.common.generators.LogProcessor;
+
+/**
+ * @author Kasper Luckow
+ * Restores the time order of entries that arrive slightly out of order. Entries are held in
+ * a binary heap keyed by log time (on primitive arrays, ties broken by arrival) and passed
+ * on once they are more than the lateness behind the latest log time seen. An entry that
+ * arrives after entries with a later time have already been passed on cannot be put in
+ * order anymore; it is dropped and counted as late.
+ *
+ * {@link #flush()} passes on the held entries at the end of the log.
+ */
+public class ReorderBuffer<T extends LogEntry> implements LogProcessor<T> {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final LogProcessor<T> target;
+  private final double lateness;
+
+  private double[] times = new double[INITIAL_CAPACITY];
+  private long[] seqs = new long[INITIAL_CAPACITY];
+  private Object[] entries = new Object[INITIAL_CAPACITY];
+  private int size = 0;
+  private long nextSeq = 0;
+  private double maxTime = Double.NEGATIVE_INFINITY;
+  private double emittedTime = Double.NEGATIVE_INFINITY;
+  private long lateEntries = 0;
+  private int maxSize = 0;
+
+  /**
+   * @param lateness how much earlier (in log time) than the latest entry seen an entry may
+   * arrive and still be put in order
+   */
+  public ReorderBuffer(LogProcessor<T> target, double lateness) {
+    if(!(lateness >= 0))
+      throw new IllegalArgumentException("Lateness must not be negative");
+    this.target = target;
+    this.lateness = lateness;
+  }
+
+  @Override
+  public void process(T entry) {
+    double time = entry.getLogTime();
+    if(time < emittedTime) {
+      lateEntries++;
+      return;
+    }
+    push(time, entry);
+    if(time > maxTime) {
+      maxTime = time;
+      release(maxTime - lateness);
+    }
+  }
+
+  /**
+   * Passes on all held entries
+   */
+  public void flush() {
+    release(Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Drops the held entries and starts over, e.g. for the next log
+   */
+  public void clear() {
+    Arrays.fill(entries, 0, size, null);
+    size = 0;
+    nextSeq = 0;
+    maxTime = Double.NEGATIVE_INFINITY;
+    emittedTime = Double.NEGATIVE_INFINITY;
+    lateEntries = 0;
+    maxSize = 0;
+  }
+
+  /**
+   * @return the number of entries dropped because they arrived too late
+   */
+  public long getLateEntries() {
+    return this.lateEntries;
+  }
+
+  /**
+   * @return the largest number of entries held at once
+   */
+  public int getMaxSize() {
+    return this.maxSize;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void release(double bound) {
+    //Strictly below the bound, so entries with the time of the bound can still arrive
+    while(size > 0 && (times[0] < bound || bound == Double.POSITIVE_INFINITY)) {
+      T entry = (T)entries[0];
+      emittedTime = times[0];
+      pop();
+      target.process(entry);
+    }
+  }
+
+  private void push(double time, T entry) {
+    if(size == times.length) {
+      int capacity = times.length * 2;
+      times = Arrays.copyOf(times, capacity);
+      seqs = Arrays.copyOf(seqs, capacity);
+      entries = Arrays.copyOf(entries, capacity);
+    }
+    long seq = nextSeq++;
+    int i = size++;
+    maxSize = Math.max(maxSize, size);
+    while(i > 0) {
+      int parent = (i - 1) >>> 1;
+      if(!less(time, seq, times[parent], seqs[parent]))
+        break;
+      move(parent, i);
+      i = parent;
+    }
+    set(i, time, seq, entry);
+  }
+
+  private void pop() {
+    int last = --size;
+    double time = times[last];
+    long seq = seqs[last];
+    Object entry = entries[last];
+    entries[last] = null;
+    if(last == 0)
+      return;
+    int i = 0;
+    int half = last >>> 1;
+    while(i < half) {
+      int child = 2 * i + 1;
+      int right = child + 1;
+      if(right < last && less(times[right], seqs[right], times[child], seqs[child]))
+        child = right;
+      if(!less(times[child], seqs[child], time, seq))
+        break;
+      move(child, i);
+      i = child;
+    }
+    set(i, time, seq, entry);
+  }
+
+  private static boolean less(double t1, long s1, double t2, long s2) {
+    return t1 < t2 || (t1 == t2 && s1 < s2);
+  }
+
+  private void move(int from, int to) {
+    times[to] = times[from];
+    seqs[to] = seqs[from];
+    entries[to] = entries[from];
+  }
+
+  private void set(int i, double time, long seq, Object entry) {
+    times[i] = time;
+    seqs[i] = seq;
+    entries[i] = entry;
+  }
+}
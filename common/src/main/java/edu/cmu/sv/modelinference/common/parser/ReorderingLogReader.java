@@ -0,0 +1,87 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+import edu.cmu.sv.modelinference.common.generators.LogProcessor;
+
+/**
+ * @author Kasper Luckow
+ * Puts a {@link ReorderBuffer} between another reader and the processors, so processors
+ * that assume that log time never decreases (e.g. IRModelGenerator) see the entries in
+ * time order although they are logged slightly out of order (see
+ * {@link LogReaders#reordered(LogReaderFactory, double)}).
+ */
+public class ReorderingLogReader<T extends LogEntry> extends LogReader<T> {
+
+  public static final Logger logger = LoggerFactory.getLogger(ReorderingLogReader.class);
+
+  private final LogReader<T> source;
+  private final ReorderBuffer<T> buffer;
+
+  public ReorderingLogReader(LogReader<T> source, double lateness) {
+    super(source.logParser);
+    this.source = source;
+    useProducerDictionary(source.getProducerDictionary());
+    this.buffer = new ReorderBuffer<>(new LogProcessor<T>() {
+      @Override
+      public void process(T entry) {
+        dispatch(entry);
+      }
+    }, lateness);
+    source.addLogProcessor(buffer);
+  }
+
+  @Override
+  public void parseLog(File log) throws IOException {
+    buffer.clear();
+    source.parseLog(log);
+    finish(log);
+  }
+
+  @Override
+  public void parseLog(File log, double fromTime, double toTime) throws IOException {
+    buffer.clear();
+    source.parseLog(log, fromTime, toTime);
+    finish(log);
+  }
+
+  private void finish(File log) {
+    buffer.flush();
+    if(buffer.getLateEntries() > 0)
+      logger.warn(buffer.getLateEntries() + " entries of " + log + " arrived too late to be put in time order and were dropped");
+    logger.debug("At most " + buffer.getMaxSize() + " entries of " + log + " were held for reordering");
+  }
+
+  /**
+   * @return the number of entries dropped by the last call to parseLog because they
+   * arrived too late
+   */
+  public long getLateEntries() {
+    return buffer.getLateEntries();
+  }
+
+  @Override
+  public ReaderStatistics getStatistics() {
+    return source.getStatistics();
+  }
+}
@@ -15,18 +15,16 @@
  */
 package edu.cmu.sv.modelinference.common.parser;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import edu.cmu.sv.modelinference.common.generators.LogEntry;
 import edu.cmu.sv.modelinference.common.generators.LogEntryFilter;
 import edu.cmu.sv.modelinference.common.generators.LogParser;
-import edu.cmu.sv.modelinference.common.generators.ParserException;
 
 /**
  * @author Kasper Luckow
+ * Reads the log line by line into a reusable byte buffer (see {@link LogReader#processRange}).
  */
 public class SequentialLogReader<T extends LogEntry> extends LogReader<T> {
 
@@ -40,16 +38,7 @@ public class SequentialLogReader<T extends LogEntry> extends LogReader<T> {
 
   @Override
   public void parseLog(File logFile) throws IOException {
-    FileReader fr = new FileReader(logFile);
-    try(BufferedReader rd = new BufferedReader(fr)) {
-      String logEntry;
-      while((logEntry = rd.readLine()) != null) {
-        try {
-          super.processRawEntry(logEntry);
-        } catch (ParserException e) {
-          //this is really bad... Maybe change the convention of the parser, e.g., return null
-        }
-      }
-    }
+    resetStatistics();
+    processRange(logFile, 0, Long.MAX_VALUE);
   }
 }
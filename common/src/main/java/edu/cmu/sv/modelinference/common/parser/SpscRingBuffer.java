@@ -0,0 +1,81 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Kasper Luckow
+ * Bounded lock-free queue for exactly one producer thread and one consumer thread. The
+ * slots are allocated up front; offer and poll never block and never allocate.
+ */
+public class SpscRingBuffer<E> {
+
+  private final Object[] slots;
+  private final int mask;
+  //Next slot to read, only advanced by the consumer
+  private final AtomicLong head = new AtomicLong();
+  //Next slot to write, only advanced by the producer
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * @param capacity rounded up to the next power of two
+   */
+  public SpscRingBuffer(int capacity) {
+    if(capacity < 1 || capacity > (1 << 30))
+      throw new IllegalArgumentException("Invalid capacity " + capacity);
+    int size = Integer.highestOneBit(capacity);
+    if(size < capacity)
+      size <<= 1;
+    this.slots = new Object[size];
+    this.mask = size - 1;
+  }
+
+  /**
+   * @return false if the buffer is full
+   */
+  public boolean offer(E e) {
+    long t = tail.get();
+    if(t - head.get() == slots.length)
+      return false;
+    slots[(int)(t & mask)] = e;
+    tail.lazySet(t + 1); //publishes the slot
+    return true;
+  }
+
+  /**
+   * @return the oldest element or null if the buffer is empty
+   */
+  @SuppressWarnings("unchecked")
+  public E poll() {
+    long h = head.get();
+    if(h == tail.get())
+      return null;
+    int idx = (int)(h & mask);
+    E e = (E)slots[idx];
+    slots[idx] = null;
+    head.lazySet(h + 1);
+    return e;
+  }
+
+  public int size() {
+    return (int)(tail.get() - head.get());
+  }
+
+  public int capacity() {
+    return slots.length;
+  }
+}
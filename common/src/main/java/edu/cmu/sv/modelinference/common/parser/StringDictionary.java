@@ -0,0 +1,78 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @author Kasper Luckow
+ * Assigns dense ids, in order of first occurrence, to strings. Lookups of known strings
+ * do not lock, so a dictionary can be shared by threads (e.g. the producer dictionary of
+ * a reader, see {@link LogReader#getProducerDictionary()}); the order of first occurrence
+ * is then the order in which the threads happened to add the strings. Strings must not be
+ * null.
+ */
+public class StringDictionary {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+  private volatile String[] values = new String[INITIAL_CAPACITY];
+  private int size = 0;
+
+  /**
+   * @return the id of the string, which is assigned if the string has not been seen before
+   */
+  public int getId(String value) {
+    Integer id = ids.get(value);
+    return (id != null) ? id : add(value);
+  }
+
+  private synchronized int add(String value) {
+    Integer id = ids.get(value);
+    if(id != null)
+      return id;
+    String[] v = values;
+    if(size == v.length) {
+      v = Arrays.copyOf(v, v.length * 2);
+      values = v;
+    }
+    v[size] = value;
+    //Published by the map, so get() sees the value once the id has been handed out
+    ids.put(value, size);
+    return size++;
+  }
+
+  /**
+   * @return the id of the string or -1 if it is not in the dictionary
+   */
+  public int lookup(String value) {
+    Integer id = ids.get(value);
+    return (id == null) ? -1 : id;
+  }
+
+  public String get(int id) {
+    if(id < 0 || id >= ids.size())
+      throw new IndexOutOfBoundsException("No string with id " + id);
+    return values[id];
+  }
+
+  public int size() {
+    return ids.size();
+  }
+}
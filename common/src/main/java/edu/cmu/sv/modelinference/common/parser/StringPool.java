@@ -0,0 +1,106 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @author Kasper Luckow
+ * Interns character ranges without creating a String for values that have been seen
+ * before. A pool is not thread safe, but pools sharing the same canonical map hand out
+ * the same String instances, so each thread can have its own pool.
+ */
+public class StringPool {
+
+  private static final int INITIAL_CAPACITY = 256;
+  private static final int MAX_ENTRIES = 1 << 20;
+
+  private final ConcurrentMap<String, String> canonical;
+  private String[] table = new String[INITIAL_CAPACITY];
+  private int[] hashes = new int[INITIAL_CAPACITY];
+  private int size = 0;
+
+  public StringPool() {
+    this(new ConcurrentHashMap<String, String>());
+  }
+
+  public StringPool(ConcurrentMap<String, String> canonical) {
+    this.canonical = canonical;
+  }
+
+  public String intern(CharSequence s, int from, int to) {
+    int hash = 0;
+    for(int i = from; i < to; i++)
+      hash = 31 * hash + s.charAt(i);
+
+    int mask = table.length - 1;
+    int idx = mix(hash) & mask;
+    String candidate;
+    while((candidate = table[idx]) != null) {
+      if(hashes[idx] == hash && matches(candidate, s, from, to))
+        return candidate;
+      idx = (idx + 1) & mask;
+    }
+
+    String str = s.subSequence(from, to).toString();
+    String existing = canonical.putIfAbsent(str, str);
+    if(existing != null)
+      str = existing;
+    if(size < MAX_ENTRIES) { //High cardinality columns should not make the pool grow without bounds
+      table[idx] = str;
+      hashes[idx] = hash;
+      if(++size * 2 > table.length)
+        rehash();
+    }
+    return str;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  private static boolean matches(String candidate, CharSequence s, int from, int to) {
+    if(candidate.length() != to - from)
+      return false;
+    for(int i = from, j = 0; i < to; i++, j++) {
+      if(candidate.charAt(j) != s.charAt(i))
+        return false;
+    }
+    return true;
+  }
+
+  private static int mix(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private void rehash() {
+    String[] oldTable = table;
+    int[] oldHashes = hashes;
+    table = new String[oldTable.length * 2];
+    hashes = new int[oldTable.length * 2];
+    int mask = table.length - 1;
+    for(int i = 0; i < oldTable.length; i++) {
+      if(oldTable[i] == null)
+        continue;
+      int idx = mix(oldHashes[i]) & mask;
+      while(table[idx] != null)
+        idx = (idx + 1) & mask;
+      table[idx] = oldTable[i];
+      hashes[idx] = oldHashes[i];
+    }
+  }
+}
@@ -0,0 +1,285 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+import edu.cmu.sv.modelinference.common.generators.LogParser;
+import edu.cmu.sv.modelinference.common.generators.ParseResult;
+import edu.cmu.sv.modelinference.common.parser.cache.CacheableLogParser;
+import edu.cmu.sv.modelinference.common.parser.cache.LogFingerprint;
+
+/**
+ * @author Kasper Luckow
+ * Sparse index from log times to byte offsets. The log is cut into blocks of roughly
+ * {@link #DEFAULT_SPACING} bytes that start at line boundaries, and the index records the
+ * offset of every block together with the smallest and largest log time of its entries.
+ * A time window is then read by seeking to the blocks that may hold entries in it; since
+ * the index keeps the time range of every block, logs that are not ordered by time are
+ * still read correctly (only less selectively).
+ *
+ * Indexes are stored next to the log and named after the log and the parser. They are
+ * rebuilt when the log changes.
+ *
+ * Layout (big endian): magic, version, log size, log mtime, log content hash,
+ * spacing, block count, and per block its offset, min time and max time.
+ */
+public class TimeIndex {
+
+  public static final Logger logger = LoggerFactory.getLogger(TimeIndex.class);
+
+  public static final String INDEX_SUFFIX = ".tidx";
+  public static final int DEFAULT_SPACING = 256 * 1024;
+
+  private static final int MAGIC = 0x4C325449; //L2TI
+  private static final int VERSION = 1;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final LogFingerprint fingerprint;
+  private final int spacing;
+  private final long[] offsets;
+  private final double[] minTimes;
+  private final double[] maxTimes;
+
+  private TimeIndex(LogFingerprint fingerprint, int spacing, long[] offsets, double[] minTimes, double[] maxTimes) {
+    this.fingerprint = fingerprint;
+    this.spacing = spacing;
+    this.offsets = offsets;
+    this.minTimes = minTimes;
+    this.maxTimes = maxTimes;
+  }
+
+  /**
+   * Loads the index of the log, or builds it and stores it next to the log if there
+   * is no up to date one.
+   */
+  public static <T extends LogEntry> TimeIndex forLog(File log, LogParser<T> parser) throws IOException {
+    LogFingerprint fingerprint = LogFingerprint.of(log);
+    File indexFile = getIndexFile(log, parser);
+    TimeIndex index = load(indexFile, fingerprint);
+    if(index != null)
+      return index;
+    logger.info("Building time index of " + log);
+    index = build(log, parser, DEFAULT_SPACING);
+    try {
+      index.save(indexFile);
+    } catch (IOException e) { //The index can still be used for this run
+      logger.warn("Could not write time index " + indexFile + ": " + e.getMessage());
+    }
+    return index;
+  }
+
+  public static File getIndexFile(File log, LogParser<?> parser) {
+    String parserName = (parser instanceof CacheableLogParser) ?
+        ((CacheableLogParser<?>)parser).getCodec().getName() : parser.getClass().getSimpleName();
+    return new File(log.getAbsoluteFile().getParentFile(), log.getName() + "." + parserName + INDEX_SUFFIX);
+  }
+
+  /**
+   * Parses the whole log once. Lines are terminated like in BufferedReader.readLine, and
+   * blocks only start after a '\n' so a block never starts inside a "\r\n" pair.
+   */
+  public static <T extends LogEntry> TimeIndex build(File log, LogParser<T> parser, int spacing) throws IOException {
+    LogFingerprint fingerprint = LogFingerprint.of(log);
+    List<Long> offsets = new ArrayList<>();
+    List<double[]> ranges = new ArrayList<>();
+    offsets.add(0L);
+    double[] range = newRange();
+    ranges.add(range);
+
+    ParseResult<T> result = new ParseResult<>();
+    ByteLine line = new ByteLine(Charset.defaultCharset());
+    try(InputStream in = new FileInputStream(log)) {
+      byte[] buf = new byte[BUFFER_SIZE];
+      long bufOffset = 0; //File offset of buf[0]
+      int len = 0;
+      boolean skipLF = false;
+      int read;
+      while((read = in.read(buf, len, buf.length - len)) != -1) {
+        int lineStart = 0;
+        for(int i = len; i < len + read; i++) {
+          byte b = buf[i];
+          if(skipLF && b == '\n') {
+            skipLF = false;
+            lineStart = i + 1;
+          } else if(b == '\n' || b == '\r') {
+            record(parser, line.wrap(buf, lineStart, i - lineStart), result, range);
+            lineStart = i + 1;
+            skipLF = b == '\r';
+          } else
+            skipLF = false;
+          if(b == '\n' && bufOffset + i + 1 - offsets.get(offsets.size() - 1) >= spacing) {
+            offsets.add(bufOffset + i + 1);
+            range = newRange();
+            ranges.add(range);
+          }
+        }
+        len += read;
+        len -= lineStart;
+        System.arraycopy(buf, lineStart, buf, 0, len);
+        bufOffset += lineStart;
+        if(len == buf.length)
+          buf = Arrays.copyOf(buf, buf.length * 2);
+      }
+      if(len > 0)
+        record(parser, line.wrap(buf, 0, len), result, range);
+    }
+    //A block started by the final '\n' of the log is empty
+    if(offsets.size() > 1 && offsets.get(offsets.size() - 1) >= fingerprint.getSize()) {
+      offsets.remove(offsets.size() - 1);
+      ranges.remove(ranges.size() - 1);
+    }
+
+    long[] blockOffsets = new long[offsets.size()];
+    double[] minTimes = new double[offsets.size()];
+    double[] maxTimes = new double[offsets.size()];
+    for(int i = 0; i < blockOffsets.length; i++) {
+      blockOffsets[i] = offsets.get(i);
+      minTimes[i] = ranges.get(i)[0];
+      maxTimes[i] = ranges.get(i)[1];
+    }
+    return new TimeIndex(fingerprint, spacing, blockOffsets, minTimes, maxTimes);
+  }
+
+  private static double[] newRange() {
+    return new double[] {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+  }
+
+  private static <T extends LogEntry> void record(LogParser<T> parser, CharSequence raw, ParseResult<T> result, double[] range) {
+    if(parser.tryParse(raw, result)) {
+      double time = result.getEntry().getLogTime();
+      range[0] = Math.min(range[0], time);
+      range[1] = Math.max(range[1], time);
+    }
+  }
+
+  /**
+   * @return the index or null if the file does not exist, is damaged, or was built
+   * for a log with a different fingerprint
+   */
+  public static TimeIndex load(File indexFile, LogFingerprint fingerprint) throws IOException {
+    if(!indexFile.isFile())
+      return null;
+    try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+      if(in.readInt() != MAGIC || in.readInt() != VERSION)
+        return null;
+      LogFingerprint indexed = new LogFingerprint(in.readLong(), in.readLong(), in.readLong());
+      if(!indexed.equals(fingerprint))
+        return null;
+      int spacing = in.readInt();
+      int blocks = in.readInt();
+      if(spacing <= 0 || blocks <= 0)
+        return null;
+      long[] offsets = new long[blocks];
+      double[] minTimes = new double[blocks];
+      double[] maxTimes = new double[blocks];
+      for(int i = 0; i < blocks; i++) {
+        offsets[i] = in.readLong();
+        minTimes[i] = in.readDouble();
+        maxTimes[i] = in.readDouble();
+        if(offsets[i] < 0 || offsets[i] > fingerprint.getSize() || (i > 0 && offsets[i] <= offsets[i - 1]))
+          return null;
+      }
+      return new TimeIndex(fingerprint, spacing, offsets, minTimes, maxTimes);
+    } catch (EOFException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Writes the index under a temporary name and moves it into place
+   */
+  public void save(File indexFile) throws IOException {
+    File tmp = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getAbsoluteFile().getParentFile());
+    try {
+      try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(fingerprint.getSize());
+        out.writeLong(fingerprint.getLastModified());
+        out.writeLong(fingerprint.getContentHash());
+        out.writeInt(spacing);
+        out.writeInt(offsets.length);
+        for(int i = 0; i < offsets.length; i++) {
+          out.writeLong(offsets[i]);
+          out.writeDouble(minTimes[i]);
+          out.writeDouble(maxTimes[i]);
+        }
+      }
+      try {
+        Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tmp.toPath());
+    }
+  }
+
+  /**
+   * @return the byte ranges [start, end) of the log that hold all entries with a log time
+   * in [fromTime, toTime]. Adjacent blocks are merged into one range.
+   */
+  public List<long[]> getRanges(double fromTime, double toTime) {
+    List<long[]> ranges = new ArrayList<>();
+    long[] current = null;
+    for(int i = 0; i < offsets.length; i++) {
+      if(maxTimes[i] < fromTime || minTimes[i] > toTime) {
+        current = null;
+        continue;
+      }
+      long end = (i + 1 < offsets.length) ? offsets[i + 1] : fingerprint.getSize();
+      if(current == null) {
+        current = new long[] {offsets[i], end};
+        ranges.add(current);
+      } else
+        current[1] = end;
+    }
+    return ranges;
+  }
+
+  public LogFingerprint getFingerprint() {
+    return this.fingerprint;
+  }
+
+  public int getSpacing() {
+    return this.spacing;
+  }
+
+  public int getBlockCount() {
+    return this.offsets.length;
+  }
+}
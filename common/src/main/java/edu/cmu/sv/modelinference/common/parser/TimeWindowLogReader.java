@@ -0,0 +1,63 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser;
+
+import java.io.File;
+import java.io.IOException;
+
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+import edu.cmu.sv.modelinference.common.generators.LogProcessor;
+
+/**
+ * @author Kasper Luckow
+ * Restricts every read of another reader to a time window, so tools that call
+ * {@link LogReader#parseLog(File)} can be run on a window of the log (see
+ * {@link LogReaders#windowed(LogReaderFactory, double, double)}).
+ */
+public class TimeWindowLogReader<T extends LogEntry> extends LogReader<T> {
+
+  private final LogReader<T> source;
+  private final double fromTime;
+  private final double toTime;
+
+  public TimeWindowLogReader(LogReader<T> source, double fromTime, double toTime) {
+    super(source.logParser);
+    this.source = source;
+    useProducerDictionary(source.getProducerDictionary());
+    this.fromTime = fromTime;
+    this.toTime = toTime;
+  }
+
+  @Override
+  public void addLogProcessor(LogProcessor<T> logProcessor) {
+    source.addLogProcessor(logProcessor);
+  }
+
+  @Override
+  public void parseLog(File log) throws IOException {
+    source.parseLog(log, fromTime, toTime);
+  }
+
+  @Override
+  public void parseLog(File log, double fromTime, double toTime) throws IOException {
+    source.parseLog(log, Math.max(this.fromTime, fromTime), Math.min(this.toTime, toTime));
+  }
+
+  @Override
+  public ReaderStatistics getStatistics() {
+    return source.getStatistics();
+  }
+}
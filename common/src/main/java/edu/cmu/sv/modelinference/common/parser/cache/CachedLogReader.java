@@ -0,0 +1,172 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser.cache;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+import edu.cmu.sv.modelinference.common.generators.LogEntryFilter;
+import edu.cmu.sv.modelinference.common.generators.LogProcessor;
+import edu.cmu.sv.modelinference.common.parser.LogReader;
+import edu.cmu.sv.modelinference.common.parser.LogReaderFactory;
+
+/**
+ * @author Kasper Luckow
+ * Replays a log from its binary cache if there is an up to date one. Otherwise the log is
+ * parsed by a reader obtained from the source factory and all entries (regardless of the
+ * filter) are written to a new cache as they are processed.
+ *
+ * Caches are stored next to the log or in a cache directory, and are named after the log
+ * and the codec of the parser. Caches only hold the parsed entries, so malformed lines are
+ * not counted in the statistics when a cache is replayed.
+ */
+public class CachedLogReader<T extends LogEntry> extends LogReader<T> {
+
+  public static final Logger logger = LoggerFactory.getLogger(CachedLogReader.class);
+
+  public static final String CACHE_SUFFIX = ".cache";
+
+  private final EntryCodec<T> codec;
+  private final LogReaderFactory sourceFactory;
+  private final File cacheDir;
+
+  /**
+   * @param cacheDir directory holding the caches, or null to put them next to the logs
+   */
+  public CachedLogReader(CacheableLogParser<T> logParser, LogEntryFilter<T> filter,
+      LogReaderFactory sourceFactory, File cacheDir) {
+    super(logParser, filter);
+    this.codec = logParser.getCodec();
+    this.sourceFactory = sourceFactory;
+    this.cacheDir = cacheDir;
+  }
+
+  @Override
+  public void parseLog(File logFile) throws IOException {
+    resetStatistics();
+    LogFingerprint fingerprint = LogFingerprint.of(logFile);
+    File cacheFile = getCacheFile(logFile);
+    try(LogCacheFile cache = LogCacheFile.open(cacheFile, codec, fingerprint)) {
+      if(cache != null) {
+        logger.info("Reading " + logFile + " from cache " + cacheFile);
+        replay(cache);
+        return;
+      }
+    }
+    parseAndCache(logFile, cacheFile, fingerprint);
+  }
+
+  /**
+   * Replays only the row groups whose time range intersects the window. Without an up
+   * to date cache the whole log is parsed once to create it.
+   */
+  @Override
+  public void parseLog(File logFile, double fromTime, double toTime) throws IOException {
+    setWindow(fromTime, toTime);
+    try {
+      parseLog(logFile);
+    } finally {
+      setWindow(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+  }
+
+  /**
+   * @return the cache of the log or null if there is no up to date cache
+   */
+  public LogCacheFile openCache(File logFile) throws IOException {
+    return LogCacheFile.open(getCacheFile(logFile), codec, LogFingerprint.of(logFile));
+  }
+
+  public File getCacheFile(File logFile) {
+    String name = logFile.getName() + "." + codec.getName() + CACHE_SUFFIX;
+    File dir = (cacheDir != null) ? cacheDir : logFile.getAbsoluteFile().getParentFile();
+    return new File(dir, name);
+  }
+
+  private void replay(LogCacheFile cache) throws IOException {
+    ColumnBlock block = cache.createBlock();
+    for(int g = 0; g < cache.getRowGroupCount(); g++) {
+      if(!overlapsWindow(cache.getMinDouble(g, 0), cache.getMaxDouble(g, 0)))
+        continue;
+      cache.readRowGroup(g, block);
+      for(int row = 0; row < block.getRowCount(); row++) {
+        T entry = codec.decode(block, row);
+        if(filterEntry(entry))
+          dispatch(entry);
+      }
+    }
+  }
+
+  private void parseAndCache(File logFile, File cacheFile, LogFingerprint fingerprint) throws IOException {
+    LogCacheWriter<T> writer = null;
+    try {
+      if(cacheDir != null && !cacheDir.isDirectory() && !cacheDir.mkdirs())
+        throw new IOException("Could not create cache directory " + cacheDir);
+      writer = new LogCacheWriter<>(cacheFile, codec, fingerprint);
+    } catch (IOException e) {
+      logger.warn("Not caching " + logFile + ": " + e.getMessage());
+    }
+
+    CachingProcessor proc = new CachingProcessor(writer);
+    LogReader<T> source = sourceFactory.createReader(logParser, null);
+    source.useProducerDictionary(getProducerDictionary());
+    source.addLogProcessor(proc);
+    try {
+      source.parseLog(logFile);
+      statistics.addMalformed(source.getStatistics());
+      if(proc.writer != null) {
+        try {
+          proc.writer.commit();
+          logger.info("Cached " + logFile + " in " + cacheFile);
+        } catch (IOException e) { //Failing to write the cache should not fail the parse
+          logger.warn("Could not write cache " + cacheFile + ": " + e.getMessage());
+        }
+      }
+    } finally {
+      if(proc.writer != null)
+        proc.writer.close();
+    }
+  }
+
+  private class CachingProcessor implements LogProcessor<T> {
+    private LogCacheWriter<T> writer;
+
+    CachingProcessor(LogCacheWriter<T> writer) {
+      this.writer = writer;
+    }
+
+    @Override
+    public void process(T entry) {
+      if(writer != null) {
+        try {
+          writer.append(entry);
+        } catch (IOException e) {
+          logger.warn("Could not write cache: " + e.getMessage());
+          try {
+            writer.close();
+          } catch (IOException e1) { }
+          writer = null;
+        }
+      }
+      if(filterEntry(entry))
+        dispatch(entry);
+    }
+  }
+}
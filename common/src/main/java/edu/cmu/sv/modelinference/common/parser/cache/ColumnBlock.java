@@ -0,0 +1,140 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser.cache;
+
+import edu.cmu.sv.modelinference.common.parser.StringDictionary;
+
+/**
+ * @author Kasper Luckow
+ * A fixed capacity group of rows stored column by column as primitive arrays. Strings are
+ * stored as ids of a dictionary which can be shared between blocks.
+ */
+public class ColumnBlock {
+
+  private final ColumnType[] types;
+  private final StringDictionary dictionary;
+  private final double[][] doubles;
+  private final long[][] longs;
+  private final int[][] strings;
+  private final int capacity;
+  private int rows = 0;
+
+  public ColumnBlock(ColumnType[] types, StringDictionary dictionary, int capacity) {
+    this.types = types.clone();
+    this.dictionary = dictionary;
+    this.capacity = capacity;
+    this.doubles = new double[types.length][];
+    this.longs = new long[types.length][];
+    this.strings = new int[types.length][];
+    for(int col = 0; col < types.length; col++) {
+      switch(types[col]) {
+      case DOUBLE:
+        doubles[col] = new double[capacity];
+        break;
+      case LONG:
+        longs[col] = new long[capacity];
+        break;
+      case STRING:
+        strings[col] = new int[capacity];
+        break;
+      }
+    }
+  }
+
+  /**
+   * @return the index of the appended row
+   */
+  public int addRow() {
+    if(rows == capacity)
+      throw new IllegalStateException("Block is full");
+    return rows++;
+  }
+
+  public boolean isFull() {
+    return rows == capacity;
+  }
+
+  public void clear() {
+    this.rows = 0;
+  }
+
+  public int getRowCount() {
+    return this.rows;
+  }
+
+  public void setRowCount(int rows) {
+    if(rows < 0 || rows > capacity)
+      throw new IllegalArgumentException("Invalid row count " + rows);
+    this.rows = rows;
+  }
+
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  public ColumnType[] getColumnTypes() {
+    return this.types.clone();
+  }
+
+  public StringDictionary getDictionary() {
+    return this.dictionary;
+  }
+
+  public double getDouble(int col, int row) {
+    return doubles[col][row];
+  }
+
+  public void setDouble(int col, int row, double value) {
+    doubles[col][row] = value;
+  }
+
+  public long getLong(int col, int row) {
+    return longs[col][row];
+  }
+
+  public void setLong(int col, int row, long value) {
+    longs[col][row] = value;
+  }
+
+  public String getString(int col, int row) {
+    int id = strings[col][row];
+    return (id < 0) ? null : dictionary.get(id);
+  }
+
+  public void setString(int col, int row, String value) {
+    strings[col][row] = (value == null) ? -1 : dictionary.getId(value);
+  }
+
+  public int getStringId(int col, int row) {
+    return strings[col][row];
+  }
+
+  /**
+   * Direct access to the backing arrays, e.g., for bulk reads and writes. Only the first
+   * getRowCount() values are valid.
+   */
+  public double[] getDoubleColumn(int col) {
+    return doubles[col];
+  }
+
+  public long[] getLongColumn(int col) {
+    return longs[col];
+  }
+
+  public int[] getStringColumn(int col) {
+    return strings[col];
+  }
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser.cache;
+
+/**
+ * @author Kasper Luckow
+ */
+public enum ColumnType {
+  DOUBLE(8),
+  LONG(8),
+  STRING(4); //dictionary id
+
+  private final int width;
+
+  ColumnType(int width) {
+    this.width = width;
+  }
+
+  /**
+   * @return the number of bytes a value takes up in a cache file
+   */
+  public int getWidth() {
+    return this.width;
+  }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+import edu.cmu.sv.modelinference.common.generators.LogProcessor;
+import edu.cmu.sv.modelinference.common.parser.StringDictionary;
+
+/**
+ * @author Kasper Luckow
+ * Keeps processed entries in memory in columnar form, so they can be replayed to other
+ * processors without reading the log again. A buffered entry takes up a fraction of
+ * the memory of the entry object itself.
+ *
+ * Buffered entries can also be read by index, concurrently from several threads once
+ * the buffer is no longer being filled.
+ */
+public class EntryBuffer<T extends LogEntry> implements LogProcessor<T> {
+
+  public static final int BLOCK_SIZE = 64 * 1024;
+
+  private final EntryCodec<T> codec;
+  private final ColumnType[] types;
+  private final StringDictionary dictionary = new StringDictionary();
+  private final List<ColumnBlock> blocks = new ArrayList<>();
+  private ColumnBlock current = null;
+  //Largest log time per block
+  private double[] blockMaxTimes = new double[16];
+  private long size = 0;
+
+  public EntryBuffer(EntryCodec<T> codec) {
+    this.codec = codec;
+    this.types = codec.getColumnTypes();
+  }
+
+  @Override
+  public void process(T entry) {
+    if(current == null || current.isFull()) {
+      current = new ColumnBlock(types, dictionary, BLOCK_SIZE);
+      blocks.add(current);
+      if(blocks.size() > blockMaxTimes.length)
+        blockMaxTimes = Arrays.copyOf(blockMaxTimes, 2 * blockMaxTimes.length);
+      blockMaxTimes[blocks.size() - 1] = Double.NEGATIVE_INFINITY;
+    }
+    codec.encode(entry, current, current.addRow());
+    int block = blocks.size() - 1;
+    if(entry.getLogTime() > blockMaxTimes[block])
+      blockMaxTimes[block] = entry.getLogTime();
+    size++;
+  }
+
+  /**
+   * @return the entry at the index, in the order entries were processed
+   */
+  public T get(long index) {
+    if(index < 0 || index >= size)
+      throw new IndexOutOfBoundsException("Index " + index + " of " + size + " buffered entries");
+    return codec.decode(blocks.get((int)(index / BLOCK_SIZE)), (int)(index % BLOCK_SIZE));
+  }
+
+  /**
+   * @return the largest log time of the entries before the index, or negative infinity
+   * if there are none. Only the entries of the block of the index are decoded.
+   */
+  public double getMaxLogTimeBefore(long index) {
+    int block = (int)(index / BLOCK_SIZE);
+    double max = Double.NEGATIVE_INFINITY;
+    for(int b = 0; b < block && b < blocks.size(); b++)
+      max = Math.max(max, blockMaxTimes[b]);
+    for(long i = (long)block * BLOCK_SIZE; i < index; i++)
+      max = Math.max(max, get(i).getLogTime());
+    return max;
+  }
+
+  /**
+   * Feeds the buffered entries, in the order they were processed, to the processor.
+   */
+  public void replay(LogProcessor<T> processor) {
+    for(ColumnBlock block : blocks) {
+      for(int row = 0; row < block.getRowCount(); row++)
+        processor.process(codec.decode(block, row));
+    }
+  }
+
+  public long size() {
+    return this.size;
+  }
+
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  public void clear() {
+    blocks.clear();
+    blockMaxTimes = new double[16];
+    current = null;
+    size = 0;
+  }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser.cache;
+
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+
+/**
+ * @author Kasper Luckow
+ * Maps log entries to rows of a {@link ColumnBlock} and back.
+ */
+public interface EntryCodec<T extends LogEntry> {
+
+  /**
+   * Identifies the encoding. Caches written with a different name are not used, so the
+   * name must change whenever the columns change.
+   */
+  public String getName();
+
+  /**
+   * Column 0 must be the log time (a DOUBLE column).
+   */
+  public ColumnType[] getColumnTypes();
+
+  public void encode(T entry, ColumnBlock block, int row);
+
+  public T decode(ColumnBlock block, int row);
+}
@@ -0,0 +1,256 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser.cache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import edu.cmu.sv.modelinference.common.parser.StringDictionary;
+
+/**
+ * @author Kasper Luckow
+ * Read access to a cache file written by {@link LogCacheWriter}. Row groups are memory
+ * mapped and copied into {@link ColumnBlock}s column by column.
+ *
+ * Layout (big endian):
+ * header:    magic, version, codec name, log size, log mtime, log content hash,
+ *            column count, column types
+ * row group: row count, then the values of each column
+ * footer:    dictionary size, dictionary strings, row group count, and per row group
+ *            its offset, row count and the min/max of each numeric column
+ * trailer:   footer offset, magic
+ */
+public class LogCacheFile implements Closeable {
+
+  static final int MAGIC = 0x4C324D43; //L2MC
+  static final int VERSION = 1;
+  private static final int TRAILER_SIZE = 12;
+  private static final int MAX_HEADER_SIZE = 64 * 1024;
+
+  private final FileChannel channel;
+  private final ColumnType[] types;
+  private final StringDictionary dictionary;
+  private final long[] groupOffsets;
+  private final int[] groupRows;
+  private final long[][] groupStats;
+  private final long footerOffset;
+  private final int maxGroupRows;
+
+  private LogCacheFile(FileChannel channel, ColumnType[] types, StringDictionary dictionary,
+      long[] groupOffsets, int[] groupRows, long[][] groupStats, long footerOffset) {
+    this.channel = channel;
+    this.types = types;
+    this.dictionary = dictionary;
+    this.groupOffsets = groupOffsets;
+    this.groupRows = groupRows;
+    this.groupStats = groupStats;
+    this.footerOffset = footerOffset;
+    int max = 0;
+    for(int rows : groupRows)
+      max = Math.max(max, rows);
+    this.maxGroupRows = max;
+  }
+
+  /**
+   * @return the cache or null if the file does not exist, is damaged, or was not
+   * written by the codec for a log with the given fingerprint
+   */
+  public static LogCacheFile open(File cacheFile, EntryCodec<?> codec, LogFingerprint fingerprint) throws IOException {
+    if(!cacheFile.isFile())
+      return null;
+    FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ);
+    try {
+      LogCacheFile cache = read(channel, codec, fingerprint);
+      if(cache == null)
+        channel.close();
+      return cache;
+    } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+      channel.close();
+      return null;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private static LogCacheFile read(FileChannel channel, EntryCodec<?> codec, LogFingerprint fingerprint) throws IOException {
+    long size = channel.size();
+    if(size < TRAILER_SIZE)
+      return null;
+    ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - TRAILER_SIZE, TRAILER_SIZE);
+    long footerOffset = trailer.getLong();
+    if(trailer.getInt() != MAGIC || footerOffset < 0 || footerOffset > size - TRAILER_SIZE)
+      return null;
+
+    ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(footerOffset, MAX_HEADER_SIZE));
+    if(header.getInt() != MAGIC || header.getInt() != VERSION)
+      return null;
+    if(!codec.getName().equals(getString(header)))
+      return null;
+    LogFingerprint cached = new LogFingerprint(header.getLong(), header.getLong(), header.getLong());
+    if(!cached.equals(fingerprint))
+      return null;
+    ColumnType[] types = new ColumnType[header.getInt()];
+    for(int i = 0; i < types.length; i++)
+      types[i] = ColumnType.values()[header.get()];
+    if(!Arrays.equals(types, codec.getColumnTypes()))
+      return null;
+
+    ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, footerOffset, size - TRAILER_SIZE - footerOffset);
+    StringDictionary dictionary = new StringDictionary();
+    int dictSize = footer.getInt();
+    for(int i = 0; i < dictSize; i++)
+      dictionary.getId(getString(footer));
+    int groups = footer.getInt();
+    long[] groupOffsets = new long[groups];
+    int[] groupRows = new int[groups];
+    long[][] groupStats = new long[groups][];
+    for(int g = 0; g < groups; g++) {
+      groupOffsets[g] = footer.getLong();
+      groupRows[g] = (int)footer.getLong();
+      groupStats[g] = new long[2 * types.length];
+      footer.asLongBuffer().get(groupStats[g]);
+      footer.position(footer.position() + 8 * groupStats[g].length);
+    }
+    return new LogCacheFile(channel, types, dictionary, groupOffsets, groupRows, groupStats, footerOffset);
+  }
+
+  public ColumnType[] getColumnTypes() {
+    return this.types.clone();
+  }
+
+  public StringDictionary getDictionary() {
+    return this.dictionary;
+  }
+
+  public int getRowGroupCount() {
+    return this.groupOffsets.length;
+  }
+
+  public int getRowCount(int group) {
+    return this.groupRows[group];
+  }
+
+  public long getRowCount() {
+    long rows = 0;
+    for(int r : groupRows)
+      rows += r;
+    return rows;
+  }
+
+  public double getMinDouble(int group, int col) {
+    checkType(col, ColumnType.DOUBLE);
+    return Double.longBitsToDouble(groupStats[group][2 * col]);
+  }
+
+  public double getMaxDouble(int group, int col) {
+    checkType(col, ColumnType.DOUBLE);
+    return Double.longBitsToDouble(groupStats[group][2 * col + 1]);
+  }
+
+  /**
+   * @return the min and max of a DOUBLE column over all row groups
+   */
+  public double[] getDoubleRange(int col) {
+    double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+    for(int g = 0; g < groupOffsets.length; g++) {
+      min = Math.min(min, getMinDouble(g, col));
+      max = Math.max(max, getMaxDouble(g, col));
+    }
+    return new double[] {min, max};
+  }
+
+  public long getMinLong(int group, int col) {
+    checkType(col, ColumnType.LONG);
+    return groupStats[group][2 * col];
+  }
+
+  public long getMaxLong(int group, int col) {
+    checkType(col, ColumnType.LONG);
+    return groupStats[group][2 * col + 1];
+  }
+
+  /**
+   * @return a block that can hold any row group of this cache
+   */
+  public ColumnBlock createBlock() {
+    return new ColumnBlock(types, dictionary, Math.max(1, maxGroupRows));
+  }
+
+  /**
+   * Reads a row group into the block, which must have been created by {@link #createBlock()}.
+   */
+  public ColumnBlock readRowGroup(int group, ColumnBlock block) throws IOException {
+    long end = (group + 1 < groupOffsets.length) ? groupOffsets[group + 1] : footerOffset;
+    MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, groupOffsets[group], end - groupOffsets[group]);
+    int rows = data.getInt();
+    if(rows != groupRows[group])
+      throw new IOException("Damaged cache: row group " + group + " has " + rows + " rows, expected " + groupRows[group]);
+    for(int col = 0; col < types.length; col++) {
+      switch(types[col]) {
+      case DOUBLE:
+        data.asDoubleBuffer().get(block.getDoubleColumn(col), 0, rows);
+        break;
+      case LONG:
+        data.asLongBuffer().get(block.getLongColumn(col), 0, rows);
+        break;
+      case STRING:
+        data.asIntBuffer().get(block.getStringColumn(col), 0, rows);
+        break;
+      }
+      data.position(data.position() + rows * types[col].getWidth());
+    }
+    block.setRowCount(rows);
+    return block;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void checkType(int col, ColumnType type) {
+    if(types[col] != type)
+      throw new IllegalArgumentException("Column " + col + " is of type " + types[col]);
+  }
+
+  static int getEncodedLength(String value) {
+    return 4 + value.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  static void putString(ByteBuffer buffer, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    buffer.putInt(bytes.length);
+    buffer.put(bytes);
+  }
+
+  static String getString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if(length < 0 || length > buffer.remaining())
+      throw new IllegalArgumentException("Invalid string length " + length);
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser.cache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.cmu.sv.modelinference.common.generators.LogEntry;
+import edu.cmu.sv.modelinference.common.parser.StringDictionary;
+
+/**
+ * @author Kasper Luckow
+ * Writes entries to a cache file (see {@link LogCacheFile} for the layout). The file is
+ * written under a temporary name and only moved into place by {@link #commit()}, so an
+ * aborted run never leaves a truncated cache behind.
+ */
+public class LogCacheWriter<T extends LogEntry> implements Closeable {
+
+  public static final int ROW_GROUP_SIZE = 64 * 1024;
+
+  private final File target;
+  private final File tmp;
+  private final EntryCodec<T> codec;
+  private final ColumnType[] types;
+  private final StringDictionary dictionary = new StringDictionary();
+  private final ColumnBlock block;
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+
+  private final List<Long> groupOffsets = new ArrayList<>();
+  private final List<long[]> groupStats = new ArrayList<>();
+  private boolean committed = false;
+
+  public LogCacheWriter(File target, EntryCodec<T> codec, LogFingerprint fingerprint) throws IOException {
+    this.target = target;
+    this.codec = codec;
+    this.types = codec.getColumnTypes();
+    this.block = new ColumnBlock(types, dictionary, ROW_GROUP_SIZE);
+    int groupSize = 4;
+    for(ColumnType type : types)
+      groupSize += type.getWidth() * ROW_GROUP_SIZE;
+    this.buffer = ByteBuffer.allocate(groupSize);
+
+    this.tmp = File.createTempFile(target.getName(), ".tmp", target.getAbsoluteFile().getParentFile());
+    this.channel = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    try {
+      buffer.clear();
+      buffer.putInt(LogCacheFile.MAGIC);
+      buffer.putInt(LogCacheFile.VERSION);
+      LogCacheFile.putString(buffer, codec.getName());
+      buffer.putLong(fingerprint.getSize());
+      buffer.putLong(fingerprint.getLastModified());
+      buffer.putLong(fingerprint.getContentHash());
+      buffer.putInt(types.length);
+      for(ColumnType type : types)
+        buffer.put((byte)type.ordinal());
+      writeBuffer();
+    } catch (IOException | RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  public void append(T entry) throws IOException {
+    int row = block.addRow();
+    codec.encode(entry, block, row);
+    if(block.isFull())
+      writeRowGroup();
+  }
+
+  public void commit() throws IOException {
+    if(block.getRowCount() > 0)
+      writeRowGroup();
+    long footerOffset = channel.position();
+    buffer.clear();
+    buffer.putInt(dictionary.size());
+    writeBuffer();
+    for(int i = 0; i < dictionary.size(); i++) {
+      String value = dictionary.get(i);
+      if(buffer.remaining() < LogCacheFile.getEncodedLength(value))
+        writeBuffer();
+      LogCacheFile.putString(buffer, value);
+    }
+    writeBuffer();
+    buffer.putInt(groupOffsets.size());
+    for(int g = 0; g < groupOffsets.size(); g++) {
+      if(buffer.remaining() < 8 + 8 * groupStats.get(g).length)
+        writeBuffer();
+      buffer.putLong(groupOffsets.get(g));
+      for(long stat : groupStats.get(g))
+        buffer.putLong(stat);
+    }
+    buffer.putLong(footerOffset);
+    buffer.putInt(LogCacheFile.MAGIC);
+    writeBuffer();
+    channel.close();
+    try {
+      Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    committed = true;
+  }
+
+  /**
+   * Discards the cache unless it has been committed.
+   */
+  @Override
+  public void close() throws IOException {
+    if(!committed) {
+      channel.close();
+      Files.deleteIfExists(tmp.toPath());
+    }
+  }
+
+  private void writeRowGroup() throws IOException {
+    int rows = block.getRowCount();
+    //Row count, then min and max of every numeric column
+    long[] stats = new long[1 + 2 * types.length];
+    stats[0] = rows;
+    groupOffsets.add(channel.position());
+    buffer.clear();
+    buffer.putInt(rows);
+    for(int col = 0; col < types.length; col++) {
+      switch(types[col]) {
+      case DOUBLE: {
+        double[] values = block.getDoubleColumn(col);
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < rows; i++) {
+          min = Math.min(min, values[i]);
+          max = Math.max(max, values[i]);
+        }
+        stats[1 + 2 * col] = Double.doubleToRawLongBits(min);
+        stats[2 + 2 * col] = Double.doubleToRawLongBits(max);
+        buffer.asDoubleBuffer().put(values, 0, rows);
+        break;
+      }
+      case LONG: {
+        long[] values = block.getLongColumn(col);
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        for(int i = 0; i < rows; i++) {
+          min = Math.min(min, values[i]);
+          max = Math.max(max, values[i]);
+        }
+        stats[1 + 2 * col] = min;
+        stats[2 + 2 * col] = max;
+        buffer.asLongBuffer().put(values, 0, rows);
+        break;
+      }
+      case STRING:
+        buffer.asIntBuffer().put(block.getStringColumn(col), 0, rows);
+        break;
+      }
+      buffer.position(buffer.position() + rows * types[col].getWidth());
+    }
+    writeBuffer();
+    groupStats.add(stats);
+    block.clear();
+  }
+
+  private void writeBuffer() throws IOException {
+    buffer.flip();
+    while(buffer.hasRemaining())
+      channel.write(buffer);
+    buffer.clear();
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import com.google.common.base.Objects;
+
+/**
+ * @author Kasper Luckow
+ * Identifies the contents of a log by its size, modification time and a hash of
+ * samples taken evenly across the file. Hashing the samples instead of the whole log
+ * keeps the check cheap for large logs while still catching logs that were replaced
+ * by a copy with the same size and timestamp.
+ */
+public class LogFingerprint {
+
+  private static final int SAMPLES = 16;
+  private static final int SAMPLE_SIZE = 4096;
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final long size;
+  private final long lastModified;
+  private final long contentHash;
+
+  public LogFingerprint(long size, long lastModified, long contentHash) {
+    this.size = size;
+    this.lastModified = lastModified;
+    this.contentHash = contentHash;
+  }
+
+  public static LogFingerprint of(File log) throws IOException {
+    long lastModified = log.lastModified();
+    try(FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      ByteBuffer sample = ByteBuffer.allocate(SAMPLE_SIZE);
+      long hash = FNV_OFFSET;
+      long stride = (size <= SAMPLE_SIZE) ? 0 : (size - SAMPLE_SIZE) / (SAMPLES - 1);
+      for(int i = 0; i < SAMPLES; i++) {
+        long pos = i * stride;
+        sample.clear();
+        while(sample.hasRemaining() && channel.read(sample, pos + sample.position()) > 0);
+        for(int j = 0; j < sample.position(); j++) {
+          hash ^= sample.get(j) & 0xff;
+          hash *= FNV_PRIME;
+        }
+        if(stride == 0)
+          break;
+      }
+      return new LogFingerprint(size, lastModified, hash);
+    }
+  }
+
+  public long getSize() {
+    return this.size;
+  }
+
+  public long getLastModified() {
+    return this.lastModified;
+  }
+
+  public long getContentHash() {
+    return this.contentHash;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(size, lastModified, contentHash);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if(obj instanceof LogFingerprint) {
+      LogFingerprint other = (LogFingerprint) obj;
+      return size == other.size &&
+          lastModified == other.lastModified &&
+          contentHash == other.contentHash;
+    } else
+      return false;
+  }
+}
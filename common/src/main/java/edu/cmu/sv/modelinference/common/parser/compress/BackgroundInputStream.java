@@ -0,0 +1,158 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * @author Kasper Luckow
+ * Reads another stream (e.g. a decompressing one) ahead on a separate thread. The thread
+ * fills a fixed pool of large buffers, so reading the source overlaps with consuming this
+ * stream. Failures of the source are rethrown by read.
+ */
+public class BackgroundInputStream extends InputStream {
+
+  private static class Chunk {
+    final byte[] data;
+    int length;
+    Throwable failure;
+
+    Chunk(int size) {
+      this.data = new byte[size];
+    }
+  }
+
+  private final InputStream source;
+  private final BlockingQueue<Chunk> filled;
+  private final BlockingQueue<Chunk> free;
+  private final Thread thread;
+  private Chunk current = null;
+  private int pos = 0;
+  private boolean eof = false;
+
+  public BackgroundInputStream(InputStream source, int bufferSize, int buffers, String name) {
+    if(bufferSize < 1 || buffers < 2)
+      throw new IllegalArgumentException("At least two non-empty buffers are needed");
+    this.source = source;
+    this.filled = new ArrayBlockingQueue<>(buffers);
+    this.free = new ArrayBlockingQueue<>(buffers);
+    for(int i = 0; i < buffers; i++)
+      free.add(new Chunk(bufferSize));
+    this.thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        fill();
+      }
+    }, name);
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  private void fill() {
+    try {
+      while(true) {
+        Chunk chunk = free.take();
+        int len = 0;
+        int read = 0;
+        while(len < chunk.data.length && (read = source.read(chunk.data, len, chunk.data.length - len)) != -1)
+          len += read;
+        chunk.length = len;
+        if(len > 0)
+          filled.put(chunk);
+        if(read == -1) {
+          Chunk end = (len > 0) ? free.take() : chunk;
+          end.length = -1;
+          filled.put(end);
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      //Closed
+    } catch (IOException | RuntimeException | Error e) {
+      Chunk failed = new Chunk(0);
+      failed.length = -1;
+      failed.failure = e;
+      filled.clear(); //The consumer only needs to see the failure
+      filled.offer(failed);
+    } finally {
+      try {
+        source.close();
+      } catch (IOException e) { }
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    if(!hasData())
+      return -1;
+    return current.data[pos++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if(len == 0)
+      return 0;
+    if(!hasData())
+      return -1;
+    int n = Math.min(len, current.length - pos);
+    System.arraycopy(current.data, pos, b, off, n);
+    pos += n;
+    return n;
+  }
+
+  private boolean hasData() throws IOException {
+    if(eof)
+      return false;
+    if(current != null && pos < current.length)
+      return true;
+    if(current != null)
+      free.add(current);
+    try {
+      current = filled.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for input");
+    }
+    pos = 0;
+    if(current.length == -1) {
+      eof = true;
+      Throwable failure = current.failure;
+      if(failure instanceof IOException)
+        throw (IOException)failure;
+      if(failure instanceof RuntimeException)
+        throw (RuntimeException)failure;
+      if(failure instanceof Error)
+        throw (Error)failure;
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    eof = true;
+    thread.interrupt();
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser.compress;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import edu.cmu.sv.modelinference.common.DaemonThreadFactory;
+
+/**
+ * @author Kasper Luckow
+ * Decompresses a multi-member gzip file whose members record their compressed size in a
+ * "BC" extra field (BGZF, as written by bgzip). Since the member boundaries are known
+ * without inflating, the members are inflated on a pool of threads while the stream
+ * hands out their contents in file order. Every member is checked against its CRC32.
+ */
+public class BlockGzipInputStream extends InputStream {
+
+  private static final int HEADER_SIZE = 18; //Fixed header with XLEN and the BC subfield
+  private static final int FEXTRA = 4, FNAME = 8, FCOMMENT = 16, FHCRC = 2;
+
+  private final FileChannel channel;
+  private final long size;
+  private final ExecutorService workers;
+  private final Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+  private final int maxInFlight;
+  private long offset = 0; //Of the next member to submit
+  private byte[] current = new byte[0];
+  private int pos = 0;
+
+  public BlockGzipInputStream(File file, int threads) throws IOException {
+    if(threads < 1)
+      throw new IllegalArgumentException("At least one thread is needed");
+    this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    this.size = channel.size();
+    this.maxInFlight = threads * 4;
+    this.workers = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("gzip-inflater"));
+  }
+
+  /**
+   * @return true if the first member of the file records its compressed size
+   */
+  public static boolean isBlockGzip(File file) throws IOException {
+    try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      while(header.hasRemaining() && channel.read(header) > 0);
+      return !header.hasRemaining() && getBlockSize(header.array(), 0, HEADER_SIZE) > 0;
+    }
+  }
+
+  /**
+   * @return the size of the member starting at off minus one (BSIZE), or -1 if the member
+   * does not record it
+   */
+  private static int getBlockSize(byte[] buf, int off, int len) {
+    if(len < 12 || (buf[off] & 0xff) != 0x1f || (buf[off + 1] & 0xff) != 0x8b || buf[off + 2] != 8 ||
+        (buf[off + 3] & FEXTRA) == 0)
+      return -1;
+    int xlen = readShort(buf, off + 10);
+    int end = Math.min(off + 12 + xlen, off + len);
+    for(int i = off + 12; i + 4 <= end; ) {
+      int slen = readShort(buf, i + 2);
+      if(buf[i] == 'B' && buf[i + 1] == 'C' && slen == 2 && i + 6 <= end)
+        return readShort(buf, i + 4);
+      i += 4 + slen;
+    }
+    return -1;
+  }
+
+  private static int readShort(byte[] buf, int off) {
+    return (buf[off] & 0xff) | (buf[off + 1] & 0xff) << 8;
+  }
+
+  private static int readInt(byte[] buf, int off) {
+    return readShort(buf, off) | readShort(buf, off + 2) << 16;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if(!hasData())
+      return -1;
+    return current[pos++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if(len == 0)
+      return 0;
+    if(!hasData())
+      return -1;
+    int n = Math.min(len, current.length - pos);
+    System.arraycopy(current, pos, b, off, n);
+    pos += n;
+    return n;
+  }
+
+  private boolean hasData() throws IOException {
+    while(pos >= current.length) {
+      while(inFlight.size() < maxInFlight && offset < size)
+        inFlight.add(workers.submit(new MemberInflater(readMember())));
+      if(inFlight.isEmpty())
+        return false;
+      try {
+        current = inFlight.poll().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while decompressing");
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if(cause instanceof IOException)
+          throw (IOException)cause;
+        if(cause instanceof RuntimeException)
+          throw (RuntimeException)cause;
+        throw new IOException(cause);
+      }
+      pos = 0;
+    }
+    return true;
+  }
+
+  private byte[] readMember() throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    read(header, offset);
+    int blockSize = getBlockSize(header.array(), 0, header.position());
+    if(blockSize < 0)
+      throw new IOException("gzip member at offset " + offset + " does not record its size");
+    ByteBuffer member = ByteBuffer.allocate(blockSize + 1);
+    read(member, offset);
+    if(member.hasRemaining())
+      throw new EOFException("Truncated gzip member at offset " + offset);
+    offset += member.capacity();
+    return member.array();
+  }
+
+  private void read(ByteBuffer buf, long at) throws IOException {
+    while(buf.hasRemaining()) {
+      if(channel.read(buf, at + buf.position()) <= 0)
+        break;
+    }
+  }
+
+  private static class MemberInflater implements Callable<byte[]> {
+    private final byte[] member;
+
+    MemberInflater(byte[] member) {
+      this.member = member;
+    }
+
+    @Override
+    public byte[] call() throws IOException {
+      int flags = member[3];
+      int off = 12 + readShort(member, 10);
+      if((flags & FNAME) != 0)
+        off = skipString(off);
+      if((flags & FCOMMENT) != 0)
+        off = skipString(off);
+      if((flags & FHCRC) != 0)
+        off += 2;
+      int trailer = member.length - 8;
+      if(off > trailer || readInt(member, trailer + 4) < 0)
+        throw new IOException("Invalid gzip member");
+      int expectedCrc = readInt(member, trailer);
+      int length = readInt(member, trailer + 4);
+      byte[] out = new byte[length];
+      Inflater inflater = new Inflater(true);
+      try {
+        inflater.setInput(member, off, trailer - off);
+        int n = 0;
+        while(n < length) {
+          int inflated = inflater.inflate(out, n, length - n);
+          if(inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+            break;
+          n += inflated;
+        }
+        if(n != length)
+          throw new IOException("Corrupt gzip member: size mismatch");
+      } catch (DataFormatException e) {
+        throw new IOException("Corrupt gzip member: " + e.getMessage());
+      } finally {
+        inflater.end();
+      }
+      CRC32 crc = new CRC32();
+      crc.update(out, 0, length);
+      if((int)crc.getValue() != expectedCrc)
+        throw new IOException("Corrupt gzip member: CRC mismatch");
+      return out;
+    }
+
+    private int skipString(int off) throws IOException {
+      while(off < member.length && member[off] != 0)
+        off++;
+      return off + 1;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    workers.shutdownNow();
+    channel.close();
+  }
+}
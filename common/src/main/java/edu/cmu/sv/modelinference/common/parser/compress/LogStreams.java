@@ -0,0 +1,65 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser.compress;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * @author Kasper Luckow
+ * Opens logs for reading, streaming compressed logs without extracting them first:
+ * ".gz" logs are decompressed on a separate thread (multi-member gzip files that record
+ * their block sizes are inflated in parallel), and the files of ".tar.gz"/".tgz" archives
+ * are read one after another as a single log.
+ *
+ * Compressed logs can only be read from the start, so they are neither memory mapped nor
+ * indexed by time.
+ */
+public class LogStreams {
+
+  public static final int BUFFER_SIZE = 1024 * 1024;
+  public static final int BUFFERS = 8;
+  private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+  public static boolean isCompressed(File log) {
+    String name = log.getName().toLowerCase();
+    return name.endsWith(".gz") || name.endsWith(".tgz");
+  }
+
+  public static boolean isArchive(File log) {
+    String name = log.getName().toLowerCase();
+    return name.endsWith(".tar.gz") || name.endsWith(".tgz");
+  }
+
+  /**
+   * @return the uncompressed contents of the log
+   */
+  public static InputStream open(File log) throws IOException {
+    if(!isCompressed(log))
+      return new FileInputStream(log);
+    InputStream in;
+    if(BlockGzipInputStream.isBlockGzip(log))
+      in = new BlockGzipInputStream(log, Runtime.getRuntime().availableProcessors());
+    else {
+      InputStream gzip = new GZIPInputStream(new FileInputStream(log), GZIP_BUFFER_SIZE);
+      in = new BackgroundInputStream(gzip, BUFFER_SIZE, BUFFERS, "gzip-" + log.getName());
+    }
+    return isArchive(log) ? new TarLogInputStream(in) : in;
+  }
+}
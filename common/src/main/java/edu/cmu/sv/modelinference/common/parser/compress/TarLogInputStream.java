@@ -0,0 +1,175 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.common.parser.compress;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Kasper Luckow
+ * Streams the regular files of a tar archive one after another, in archive order, without
+ * extracting them. Directories, links and extended headers are skipped. A line break is
+ * inserted after a file that does not end with one, so lines of consecutive files are
+ * never joined.
+ */
+public class TarLogInputStream extends InputStream {
+
+  private static final int BLOCK_SIZE = 512;
+
+  private final InputStream in;
+  private final byte[] header = new byte[BLOCK_SIZE];
+  private long remaining = 0; //Bytes left of the current file
+  private long padding = 0;
+  private boolean pendingBreak = false;
+  private boolean eof = false;
+  private int members = 0;
+
+  public TarLogInputStream(InputStream in) {
+    this.in = in;
+  }
+
+  /**
+   * @return the number of files streamed so far
+   */
+  public int getMemberCount() {
+    return this.members;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    return (read(b, 0, 1) == -1) ? -1 : b[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if(len == 0)
+      return 0;
+    while(remaining == 0) {
+      if(pendingBreak) {
+        pendingBreak = false;
+        b[off] = '\n';
+        return 1;
+      }
+      if(eof || !nextMember())
+        return -1;
+    }
+    int read = in.read(b, off, (int)Math.min(len, remaining));
+    if(read == -1)
+      throw new EOFException("Truncated tar archive");
+    remaining -= read;
+    if(remaining == 0)
+      pendingBreak = b[off + read - 1] != '\n' && b[off + read - 1] != '\r';
+    return read;
+  }
+
+  /**
+   * Skips to the data of the next regular file
+   * @return false at the end of the archive
+   */
+  private boolean nextMember() throws IOException {
+    skipBytes(padding);
+    padding = 0;
+    while(true) {
+      if(!readHeader()) {
+        eof = true;
+        return false;
+      }
+      long size = parseNumber(header, 124, 12);
+      byte type = header[156];
+      long pad = (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+      if(type == '0' || type == 0 || type == '7') { //Regular (or contiguous) file
+        remaining = size;
+        padding = pad;
+        members++;
+        if(size > 0)
+          return true;
+        continue;
+      }
+      skipBytes(size + pad);
+    }
+  }
+
+  private boolean readHeader() throws IOException {
+    int len = 0;
+    while(len < BLOCK_SIZE) {
+      int read = in.read(header, len, BLOCK_SIZE - len);
+      if(read == -1) {
+        if(len == 0)
+          return false; //Archive without end marker
+        throw new EOFException("Truncated tar header");
+      }
+      len += read;
+    }
+    boolean zero = true;
+    for(byte b : header) {
+      if(b != 0) {
+        zero = false;
+        break;
+      }
+    }
+    if(zero)
+      return false;
+    long checksum = parseNumber(header, 148, 8);
+    long sum = 0;
+    for(int i = 0; i < BLOCK_SIZE; i++)
+      sum += (i >= 148 && i < 156) ? ' ' : (header[i] & 0xff);
+    if(sum != checksum)
+      throw new IOException("Not a tar archive (bad header checksum)");
+    return true;
+  }
+
+  /**
+   * Octal number, or a base-256 number if the high bit of the first byte is set (GNU)
+   */
+  private static long parseNumber(byte[] buf, int off, int len) throws IOException {
+    if((buf[off] & 0x80) != 0) {
+      long value = buf[off] & 0x7f;
+      for(int i = 1; i < len; i++)
+        value = (value << 8) | (buf[off + i] & 0xff);
+      return value;
+    }
+    long value = 0;
+    int i = off;
+    int end = off + len;
+    while(i < end && (buf[i] == ' ' || buf[i] == 0))
+      i++;
+    for(; i < end && buf[i] >= '0' && buf[i] <= '7'; i++)
+      value = (value << 3) + (buf[i] - '0');
+    if(i < end && buf[i] != ' ' && buf[i] != 0)
+      throw new IOException("Invalid number in tar header: " + new String(buf, off, len, StandardCharsets.US_ASCII));
+    return value;
+  }
+
+  private void skipBytes(long n) throws IOException {
+    while(n > 0) {
+      long skipped = in.skip(n);
+      if(skipped <= 0) {
+        if(in.read() == -1)
+          throw new EOFException("Truncated tar archive");
+        skipped = 1;
+      }
+      n -= skipped;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
@@ -36,7 +36,7 @@ public class ARValueSeriesGenerator extends ARValueTracker<XYSeries> {
     }
 
     @Override
-    public void addToDataSet(XYSeries dataset, double time, Double data) {
-      dataset.add(time, data);
+    public void addValue(XYSeries dataset, double time, double value) {
+      dataset.add(time, value);
     }
   }
@@ -34,9 +34,9 @@ import edu.cmu.sv.modelinference.common.formats.ValueTrackerProducer;
 import edu.cmu.sv.modelinference.common.formats.autoresolver.ARValueTracker;
 import edu.cmu.sv.modelinference.common.formats.autoresolver.AutoresolverConfig;
 import edu.cmu.sv.modelinference.common.formats.autoresolver.AutoresolverEntry;
-import edu.cmu.sv.modelinference.common.formats.autoresolver.AutoresolverParser;
+import edu.cmu.sv.modelinference.common.formats.autoresolver.FastAutoresolverParser;
 import edu.cmu.sv.modelinference.common.parser.LogReader;
-import edu.cmu.sv.modelinference.common.parser.SequentialLogReader;
+import edu.cmu.sv.modelinference.common.parser.LogReaders;
 
 /**
  * @author Kasper Luckow
@@ -97,7 +97,7 @@ public class AREventChartHandler implements LogHandler<ValueTrackerProducer<?, D
       System.exit(-1);
     }
     
-    LogReader<AutoresolverEntry> readerAR = new SequentialLogReader<>(new AutoresolverParser());
+    LogReader<AutoresolverEntry> readerAR = LogReaders.create(new FastAutoresolverParser());
     return new ARValueTracker.ARDataPointsGenerator(trackedFieldAR, readerAR);
   }
 }
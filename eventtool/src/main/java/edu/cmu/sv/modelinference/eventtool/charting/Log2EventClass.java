@@ -59,6 +59,8 @@ public class Log2EventClass implements LogHandler<Void> {
   private static final String ALARM_ARG = "alarm";
   private static final String MOVING_AVG_DETECT_SIZE_ARG = "mad";
   private static final String MOVING_AVG_FEAT_SIZE_ARG = "maf";
+  private static final String FROM_ARG = "from";
+  private static final String TO_ARG = "to";
   private static final String HELP_ARG = "help";
   
   private static final int DEFAULT_CLASSES = 6;
@@ -83,6 +85,7 @@ public class Log2EventClass implements LogHandler<Void> {
   static {
     logHandlers.add(AREventChartHandler.getInstance());
     logHandlers.add(STEventChartHandler.getInstance());
+    logHandlers.add(SchemaEventChartHandler.getInstance());
   }
 
   private Log2EventClass() {
@@ -106,10 +109,16 @@ public class Log2EventClass implements LogHandler<Void> {
         .desc("Specify size of moving average for event detection. Default is " + DEFAULT_DETECT_WINDOWSIZE).build();
     Option mvFeat = Option.builder(MOVING_AVG_FEAT_SIZE_ARG).argName("number").hasArg()
         .desc("Specify size of moving average for smoothing feat data. Default is " + DEFAULT_FEAT_WINDOWSIZE).build();
+    Option from = Option.builder(FROM_ARG).argName("time").hasArg()
+        .desc("Only use entries logged at or after the time").build();
+    Option to = Option.builder(TO_ARG).argName("time").hasArg()
+        .desc("Only use entries logged at or before the time").build();
     options.addOption(clusters);
     options.addOption(alarm);
     options.addOption(mvRaw);
     options.addOption(mvFeat);
+    options.addOption(from);
+    options.addOption(to);
     options.addOption(help);
     return options;
   }
@@ -120,6 +129,7 @@ public class Log2EventClass implements LogHandler<Void> {
     CommandLine cmd = null;
     try {
       cmd = parser.parse(cmdOpts, additionalCmdArgs, true);
+      Util.setTimeWindow(cmd, FROM_ARG, TO_ARG);
     } catch(ParseException exp) {
       logger.error(exp.getMessage());
       System.err.println(exp.getMessage());
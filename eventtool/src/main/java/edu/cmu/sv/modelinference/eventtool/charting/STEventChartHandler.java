@@ -15,6 +15,9 @@
  */
 package edu.cmu.sv.modelinference.eventtool.charting;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -30,12 +33,14 @@ import edu.cmu.sv.modelinference.common.formats.DataPointCollection;
 import edu.cmu.sv.modelinference.common.formats.ValueTrackerProducer;
 import edu.cmu.sv.modelinference.common.formats.st.STConfig;
 import edu.cmu.sv.modelinference.common.formats.st.STEntry;
-import edu.cmu.sv.modelinference.common.formats.st.STParser;
+import edu.cmu.sv.modelinference.common.formats.st.FastSTParser;
 import edu.cmu.sv.modelinference.common.formats.st.STValueTracker;
 import edu.cmu.sv.modelinference.common.formats.st.STValueTracker.FIELD;
 import edu.cmu.sv.modelinference.common.generators.LogEntryFilter;
+import edu.cmu.sv.modelinference.common.generators.PushdownFilter;
 import edu.cmu.sv.modelinference.common.parser.LogReader;
-import edu.cmu.sv.modelinference.common.parser.SequentialLogReader;
+import edu.cmu.sv.modelinference.common.parser.LogReaders;
+import edu.cmu.sv.modelinference.common.parser.RawColumnPredicate;
 
 /**
  * @author Kasper Luckow
@@ -113,8 +118,11 @@ public class STEventChartHandler implements LogHandler<ValueTrackerProducer<?, D
     
     LogReader<STEntry> reader = null;
     if(hasFlightName) {
+      //The call sign is compared on the raw line, so other flights are not decoded
+      final List<RawColumnPredicate> rawPredicates =
+          Collections.singletonList(RawColumnPredicate.equalTo(FastSTParser.CALL_SIGN, flightName));
       LogEntryFilter<STEntry> filter =
-          new LogEntryFilter<STEntry>() {
+          new PushdownFilter<STEntry>() {
             @Override
             public boolean submitForProcessing(STEntry entry) {
               if(entry.getCallSign().equals(flightName)) {
@@ -122,10 +130,15 @@ public class STEventChartHandler implements LogHandler<ValueTrackerProducer<?, D
               }    
               return false;
             }
+
+            @Override
+            public List<RawColumnPredicate> getRawPredicates() {
+              return rawPredicates;
+            }
           };
-      reader = new SequentialLogReader<>(new STParser(), filter);
+      reader = LogReaders.create(new FastSTParser(), filter);
     } else
-      reader = new SequentialLogReader<>(new STParser());
+      reader = LogReaders.create(new FastSTParser());
     
     return new STValueTracker.STDataPointsGenerator(trackedField, reader);
   }
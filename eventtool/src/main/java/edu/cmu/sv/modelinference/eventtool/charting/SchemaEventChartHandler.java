@@ -0,0 +1,115 @@
+/**
+ * Copyright 2016 Carnegie Mellon University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.cmu.sv.modelinference.eventtool.charting;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.cmu.sv.modelinference.common.api.LogHandler;
+import edu.cmu.sv.modelinference.common.api.LogProcessingException;
+import edu.cmu.sv.modelinference.common.formats.DataPointCollection;
+import edu.cmu.sv.modelinference.common.formats.NumericField;
+import edu.cmu.sv.modelinference.common.formats.NumericValueTracker;
+import edu.cmu.sv.modelinference.common.formats.ValueTrackerProducer;
+import edu.cmu.sv.modelinference.common.formats.schema.LogSchema;
+import edu.cmu.sv.modelinference.common.formats.schema.SchemaEntry;
+import edu.cmu.sv.modelinference.common.formats.schema.SchemaParser;
+import edu.cmu.sv.modelinference.common.parser.LogReader;
+import edu.cmu.sv.modelinference.common.parser.LogReaders;
+
+/**
+ * @author Kasper Luckow
+ * Tracks a numeric column of a log whose format is described by a schema file (see
+ * {@link LogSchema}), so logs of new formats can be analyzed without writing code.
+ */
+public class SchemaEventChartHandler implements LogHandler<ValueTrackerProducer<?, DataPointCollection, ?>>{
+  
+  private static final Logger logger = LoggerFactory.getLogger(SchemaEventChartHandler.class);
+  private static final String SCHEMA_ARG = "schema";
+  private static final String FIELD_OPTS_ARG = "field";
+  
+  private final Options cmdOpts;
+  
+  private static SchemaEventChartHandler instance = null;
+  
+  public static SchemaEventChartHandler getInstance() {
+    if(instance == null) {
+      instance = new SchemaEventChartHandler();
+    }
+    return instance;
+  }
+
+  private SchemaEventChartHandler() {
+    this.cmdOpts = createCmdOptions();
+  }
+  
+  private Options createCmdOptions() {
+    Options options = new Options();
+    
+    Option schemaOpts = Option.builder(SCHEMA_ARG).argName("file").hasArg().required()
+        .desc("Schema file describing the columns of the log").build();
+    Option fieldOpts = Option.builder(FIELD_OPTS_ARG).argName("Field").hasArg().required()
+        .desc("Numeric column of the schema to be tracked").build();
+   
+    options.addOption(schemaOpts);
+    options.addOption(fieldOpts);
+    return options;
+  }
+  
+  @Override
+  public String getHandlerName() {
+    return "schema";
+  }
+
+  @Override
+  public ValueTrackerProducer<?, DataPointCollection, ?> process(String logFile, String logType,
+      String[] additionalCmdArgs) throws LogProcessingException {
+    CommandLineParser parser = new DefaultParser();
+    CommandLine cmd;
+    try {
+      cmd = parser.parse(cmdOpts, additionalCmdArgs, false);
+    } catch (ParseException e) {
+      throw new LogProcessingException(e);
+    }
+    LogSchema schema;
+    try {
+      schema = LogSchema.load(new File(cmd.getOptionValue(SCHEMA_ARG).replaceFirst("^~",System.getProperty("user.home"))));
+    } catch (IOException e) {
+      throw new LogProcessingException(e);
+    }
+    logger.info("Using schema " + schema);
+    NumericField<SchemaEntry> field = null;
+    try {
+      field = schema.getField(cmd.getOptionValue(FIELD_OPTS_ARG));
+    } catch(IllegalArgumentException e) {
+      logger.error(e.getMessage());
+      logger.error("Must be supplied a numeric column of the schema to [" + FIELD_OPTS_ARG + "] arg option");
+      System.exit(-1);
+    }
+    
+    LogReader<SchemaEntry> reader = LogReaders.create(new SchemaParser(schema));
+    return new NumericValueTracker.DataPointsGenerator<>(reader, field);
+  }
+}
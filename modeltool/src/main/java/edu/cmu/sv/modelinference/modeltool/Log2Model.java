@@ -35,6 +35,7 @@ import com.google.common.base.Stopwatch;
 import edu.cmu.sv.modelinference.common.Util;
 import edu.cmu.sv.modelinference.common.api.LogHandler;
 import edu.cmu.sv.modelinference.common.api.LogProcessingException;
+import edu.cmu.sv.modelinference.common.model.FrozenModel;
 import edu.cmu.sv.modelinference.common.model.Model;
 import edu.cmu.sv.modelinference.common.model.pp.Format;
 import edu.cmu.sv.modelinference.common.model.pp.PrettyPrinter;
@@ -55,6 +56,8 @@ public class Log2Model implements LogHandler<Void> {
   private static final String MODEL_CHECKER_ARG = "m";
   private static final String PROPERTIES_ARG = "p";
   private static final String TO_DOT_ARG = "v";
+  private static final String FROM_ARG = "from";
+  private static final String TO_ARG = "to";
 
   private static final Logger logger = LoggerFactory.getLogger(Log2Model.class.getName());
 
@@ -102,11 +105,18 @@ public class Log2Model implements LogHandler<Void> {
 
     Option toDot = Option.builder(TO_DOT_ARG).desc("Output model to DOT").build();
 
+    Option from = Option.builder(FROM_ARG).argName("time").hasArg()
+        .desc("Only use entries logged at or after the time").build();
+    Option to = Option.builder(TO_ARG).argName("time").hasArg()
+        .desc("Only use entries logged at or before the time").build();
+
     //options.addOption(runModelChecker);
     //options.addOption(properties);
     options.addOption(modelChecker);
     options.addOption(outputPath);
     options.addOption(toDot);
+    options.addOption(from);
+    options.addOption(to);
     options.addOption(help);
     return options;
   }
@@ -125,6 +135,7 @@ public class Log2Model implements LogHandler<Void> {
     CommandLine cmd = null;
     try {
       cmd = parser.parse(cmdOpts, additionalCmdArgs, true);
+      Util.setTimeWindow(cmd, FROM_ARG, TO_ARG);
     } catch(ParseException exp) {
       logger.error(exp.getMessage());
       System.err.println(exp.getMessage());
@@ -197,6 +208,9 @@ public class Log2Model implements LogHandler<Void> {
     Model<?> irmodel = intermediateModelHandler.process(logFile, logType, cmd.getArgs());
     logger.info("Generating intermediate model took: " + sw.elapsed(TimeUnit.MILLISECONDS) + "ms");
     
+    FrozenModel<?> frozenModel = irmodel.freeze();
+    logger.info("Model has " + frozenModel.getStateCount() + " states and " + frozenModel.getTransitionCount() + " transitions");
+
     ModelCheckerAdapter<?, ?> modelChecker = modelCheckerHandler.process(logFile, logType, cmd.getArgs());
     logger.info("Generating model checker took: " + sw.elapsed(TimeUnit.MILLISECONDS) + "ms");
     
@@ -205,7 +219,7 @@ public class Log2Model implements LogHandler<Void> {
       //String props = cmd.getOptionValue(PROPERTIES_ARG);
       //modelChecker.executeModelChecker(irModel, properties);
     } else {
-      ModelAdapter<?> model = modelChecker.generateModel(irmodel);
+      ModelAdapter<?> model = modelChecker.generateModel(frozenModel);
       logger.info("Generating final model took: " + sw.elapsed(TimeUnit.MILLISECONDS) + "ms");
       logger.info("Saving model to " + outputPath);
       try {
@@ -217,7 +231,7 @@ public class Log2Model implements LogHandler<Void> {
     }
     
     if(cmd.hasOption(TO_DOT_ARG)) {
-      PrettyPrinter p = new PrettyPrinter(irmodel);
+      PrettyPrinter p = new PrettyPrinter(frozenModel);
       p.printModel(outputPath, Format.PDF);
       logger.info("Prettyprinting took: " + sw.elapsed(TimeUnit.MILLISECONDS) + "ms");
     }
@@ -33,6 +33,7 @@ import edu.cmu.sv.modelinference.common.formats.st.GridState;
 import edu.cmu.sv.modelinference.common.formats.st.STConfig;
 import edu.cmu.sv.modelinference.common.formats.st.STConfig.GridPartitions;
 import edu.cmu.sv.modelinference.common.formats.st.STModelInferer;
+import edu.cmu.sv.modelinference.common.formats.st.util.GridDimensionsFinder.Dimensions;
 import edu.cmu.sv.modelinference.common.model.Model;
 import edu.cmu.sv.modelinference.common.model.ModelInferer;
 
@@ -44,6 +45,8 @@ public class STLog2ModelHandler implements LogHandler<Model<?>> {
   private static final Logger logger = LoggerFactory.getLogger(STLog2ModelHandler.class.getName());
 
   private static final String GRID_DIM = "dim";
+  private static final String BOUNDS = "bounds";
+  private static final String WORKERS = "workers";
   
   private static STLog2ModelHandler instance = null;
   
@@ -66,7 +69,15 @@ public class STLog2ModelHandler implements LogHandler<Model<?>> {
     Option addOpts = Option.builder(GRID_DIM).argName("Grid Dimensions").hasArg()
           .desc("Dimensions of the grid projected on the airfield. Format: NUMxNUM.").build();
     
+    Option boundsOpts = Option.builder(BOUNDS).argName("minX,minY,maxX,maxY").hasArg()
+          .desc("Bounds of the airfield. If omitted, they are determined from the log.").build();
+    
+    Option workersOpts = Option.builder(WORKERS).argName("number").hasArg()
+          .desc("Number of threads generating the model from time partitions of the log. Default is 1.").build();
+    
     options.addOption(addOpts);
+    options.addOption(boundsOpts);
+    options.addOption(workersOpts);
     return options;
   }
 
@@ -88,6 +99,24 @@ public class STLog2ModelHandler implements LogHandler<Model<?>> {
     }
     
     Model<?> model = null;
+    Dimensions bounds = null;
+    if(cmd.hasOption(BOUNDS)) {
+      try {
+        bounds = STConfig.extractBounds(cmd.getOptionValue(BOUNDS));
+      } catch (ParseException e) {
+        throw new LogProcessingException(e);
+      }
+    }
+    int workers = 1;
+    if(cmd.hasOption(WORKERS)) {
+      try {
+        workers = Integer.parseInt(cmd.getOptionValue(WORKERS));
+      } catch(NumberFormatException e) {
+        workers = 0;
+      }
+      if(workers < 1)
+        throw new LogProcessingException("Invalid number of workers: " + cmd.getOptionValue(WORKERS));
+    }
     ModelInferer<GridState> modelInferer = null;
     if(cmd.hasOption(GRID_DIM)) {
       String partStr = cmd.getOptionValue(GRID_DIM).trim();
@@ -97,9 +126,9 @@ public class STLog2ModelHandler implements LogHandler<Model<?>> {
       } catch (ParseException e) {
         throw new LogProcessingException(e);
       }
-      modelInferer = new STModelInferer(parts.horiz, parts.vert);
+      modelInferer = new STModelInferer(parts.horiz, parts.vert, bounds, workers);
     } else
-      modelInferer = new STModelInferer(STModelInferer.DEF_PARTITIONS, STModelInferer.DEF_PARTITIONS);
+      modelInferer = new STModelInferer(STModelInferer.DEF_PARTITIONS, STModelInferer.DEF_PARTITIONS, bounds, workers);
     
     try {
       model = modelInferer.generateModel(logFile);
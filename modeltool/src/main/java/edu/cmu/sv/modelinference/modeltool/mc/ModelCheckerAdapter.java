@@ -17,21 +17,25 @@ package edu.cmu.sv.modelinference.modeltool.mc;
 
 import java.util.Collection;
 
+import edu.cmu.sv.modelinference.common.model.FrozenModel;
 import edu.cmu.sv.modelinference.common.model.Model;
-import edu.cmu.sv.modelinference.common.model.ModelVisitor;
-import edu.cmu.sv.modelinference.common.model.State;
 
 /**
  * @author Kasper Luckow
  * T, type for the model produced. S, the type of the properties
+ * Translations work on the frozen form of the model: the states reachable from the initial
+ * state are translated in depth-first order.
  */
-public abstract class ModelCheckerAdapter<T, S> implements ModelVisitor {
+public abstract class ModelCheckerAdapter<T, S> {
 	
 	public ModelAdapter<T> generateModel(Model<?> irModel) {
-	  for(State s : irModel.getStates())
-	    s.setVisited(false);
+	  return generateModel(irModel.freeze());
+	}
+
+	public ModelAdapter<T> generateModel(FrozenModel<?> irModel) {
 	  initModelGenerator(irModel);
-	  irModel.accept(this);
+	  for(int state : irModel.getDepthFirstOrder())
+	    translateState(irModel, state);
 	  finishModelGenerator(irModel);
 	  return getGeneratedModel();
 	}
@@ -43,7 +47,8 @@ public abstract class ModelCheckerAdapter<T, S> implements ModelVisitor {
   
   public abstract ModelCheckerResult executeModelChecker(ModelAdapter<T> model, Collection<PropertyAdapter<S>> properties) throws ModelCheckerException;
 
-	protected abstract void initModelGenerator(Model<?> model);
-	protected abstract void finishModelGenerator(Model<?> model);
+	protected abstract void initModelGenerator(FrozenModel<?> model);
+	protected abstract void translateState(FrozenModel<?> model, int state);
+	protected abstract void finishModelGenerator(FrozenModel<?> model);
 	protected abstract ModelAdapter<T> getGeneratedModel();
 }
@@ -22,10 +22,9 @@ import java.util.Iterator;
 import java.util.List;
 
 import edu.cmu.sv.modelinference.common.model.Assignment;
-import edu.cmu.sv.modelinference.common.model.Model;
+import edu.cmu.sv.modelinference.common.model.FrozenModel;
 import edu.cmu.sv.modelinference.common.model.State;
-import edu.cmu.sv.modelinference.common.model.Transition;
-import edu.cmu.sv.modelinference.common.model.WeightedTransition;
+import edu.cmu.sv.modelinference.common.model.VariableBounds;
 import edu.cmu.sv.modelinference.modeltool.mc.ModelAdapter;
 import edu.cmu.sv.modelinference.modeltool.mc.ModelCheckerAdapter;
 import edu.cmu.sv.modelinference.modeltool.mc.ModelCheckerResult;
@@ -63,11 +62,13 @@ public class PrismModelChecker extends ModelCheckerAdapter<ModulesFile, String>
 
   private ModulesFile modulesFile;
   private Module module;
+  private double[] probabilities;
   
   @Override
-  public void initModelGenerator(Model<?> model) {
+  public void initModelGenerator(FrozenModel<?> model) {
     this.modulesFile = getModulesFileTemplate();
     this.module = getModuleTemplate(model, MODULE_NAME);
+    this.probabilities = model.getTransitionProbabilities();
     this.modulesFile.addModule(this.module);
   }
 
@@ -121,7 +122,7 @@ public class PrismModelChecker extends ModelCheckerAdapter<ModulesFile, String>
   }
 
   @Override
-  public void finishModelGenerator(Model<?> irmodel) {
+  public void finishModelGenerator(FrozenModel<?> irmodel) {
     //Nothing to do
   }
 
@@ -131,15 +132,17 @@ public class PrismModelChecker extends ModelCheckerAdapter<ModulesFile, String>
     return modulesFile;
   }
 
-  public static Module getModuleTemplate(Model<?> model, String moduleName) {
+  public static Module getModuleTemplate(FrozenModel<?> model, String moduleName) {
     final int defaultInitVal = 0;
     int initval = defaultInitVal;
 
     State initialState = model.getInitState();
     Module treeModule = new Module(moduleName);
-    for(String modelVar : model.getModelVariables()) {
-      int lowerBound = model.getMinAssignedVal(modelVar);
-      int upperBound = model.getMaxAssignedVal(modelVar);
+    VariableBounds bounds = model.getBounds();
+    for(int slot = 0; slot < bounds.size(); slot++) {
+      String modelVar = bounds.getVariable(slot);
+      int lowerBound = bounds.getMin(slot);
+      int upperBound = bounds.getMax(slot);
 
       if(upperBound == 0) {
         upperBound++;
@@ -208,23 +211,20 @@ public class PrismModelChecker extends ModelCheckerAdapter<ModulesFile, String>
     return new ExpressionLiteral(tp, strVal.toString());
   }
 
-  private static Command getProbabilisticChoiceCmd(State currentState) {
+  private static Command getProbabilisticChoiceCmd(FrozenModel<?> model, double[] probabilities, int state) {
+    State currentState = model.getState(state);
     Command cmd = new Command();
     Expression guard = computeGuard(currentState);
     cmd.setGuard(guard);
     Updates updates = new Updates();
-    if(currentState.getOutgoingTransitions().size() > 0) {
-      for(Transition o : currentState.getOutgoingTransitions()) {
+    if(model.getOutDegree(state) > 0) {
+      for(int e = model.getEdgeStart(state); e < model.getEdgeEnd(state); e++) {
         Update update = new Update();
-        State dest = o.getDest();
+        State dest = model.getState(model.getDest(e));
         for(Assignment<?> v : dest.getAssignments()) {
           update.addElement(computeExpressionIdent(v), computeExpressionLiteral(v));
         }
-        if(o instanceof WeightedTransition) {
-          WeightedTransition w = (WeightedTransition)o;
-          updates.addUpdate(new ExpressionLiteral(parser.type.TypeDouble.getInstance(), w.getNormalizedWeight()), update);
-        } else
-          throw new IllegalStateException("Expected " + WeightedTransition.class.getName());
+        updates.addUpdate(new ExpressionLiteral(parser.type.TypeDouble.getInstance(), probabilities[e]), update);
       }
     } else { //TODO: this should be fixed...
       Update update = new Update();
@@ -239,17 +239,11 @@ public class PrismModelChecker extends ModelCheckerAdapter<ModulesFile, String>
   }
 
   @Override
-  public <S extends State> void visit(S state) {
-    Command cmd = getProbabilisticChoiceCmd(state);
+  protected void translateState(FrozenModel<?> model, int state) {
+    Command cmd = getProbabilisticChoiceCmd(model, this.probabilities, state);
     this.module.addCommand(cmd);
   }
 
-  @Override
-  public void visit(Transition transition) { }
-
-  @Override
-  public <S extends State> void visit(Model<S> model) { }
-
   @Override
   protected ModelAdapter<ModulesFile> getGeneratedModel() {
     return new PrismModel(this.modulesFile);
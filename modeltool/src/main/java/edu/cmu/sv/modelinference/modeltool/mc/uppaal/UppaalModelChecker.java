@@ -25,19 +25,17 @@ import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import edu.cmu.sv.modelinference.common.model.Assignment;
-import edu.cmu.sv.modelinference.common.model.Model;
+import edu.cmu.sv.modelinference.common.model.FrozenModel;
 import edu.cmu.sv.modelinference.common.model.State;
-import edu.cmu.sv.modelinference.common.model.WeightedTransition;
+import edu.cmu.sv.modelinference.common.model.VariableBounds;
 import edu.cmu.sv.modelinference.modeltool.mc.ModelAdapter;
 import edu.cmu.sv.modelinference.modeltool.mc.ModelCheckerAdapter;
 import edu.cmu.sv.modelinference.modeltool.mc.ModelCheckerResult;
@@ -70,13 +68,14 @@ public class UppaalModelChecker extends ModelCheckerAdapter<NTA, String> {
 	private Location initLoc;
 //	private Update initUpdate;
 	private Automaton automaton;
-	private Map<State, Location> translatedSources = new HashMap<>();
-	private Map<State, Location> translatedDestinations = new HashMap<>(); //fix this mess
+	//Indexed by state id
+	private Location[] translatedSources;
+	private Location[] translatedDestinations; //fix this mess
 	private String targetMethod = "target";
 	private boolean isFirstLocSet = false;
 
 	@Override
-	public void initModelGenerator(Model<?> model) {
+	public void initModelGenerator(FrozenModel<?> model) {
 		this.nta = new NTA();
 		this.automaton = new Automaton(targetMethod);
 		this.nta.setSystemName(targetMethod + "_model");
@@ -84,10 +83,12 @@ public class UppaalModelChecker extends ModelCheckerAdapter<NTA, String> {
 		final int defaultInitVal = 0;
 		int initVal;
 		LinkedList<String> updates = new LinkedList<>();
-		for(String modelVar : model.getModelVariables()) {
+		VariableBounds bounds = model.getBounds();
+		for(int slot = 0; slot < bounds.size(); slot++) {
 			//TODO: Assume integer variables ONLY
-			int lowerBound = model.getMinAssignedVal(modelVar);
-			int upperBound = model.getMaxAssignedVal(modelVar);
+			String modelVar = bounds.getVariable(slot);
+			int lowerBound = bounds.getMin(slot);
+			int upperBound = bounds.getMax(slot);
 
 			if(upperBound == 0) {
 				upperBound++;
@@ -109,7 +110,10 @@ public class UppaalModelChecker extends ModelCheckerAdapter<NTA, String> {
 
 		//this.initUpdate = new Update(updateStr);
 		this.initLoc = new Location(this.automaton, "initloc");
-		this.translatedSources.put(model.getInitState(), this.initLoc);
+		this.translatedSources = new Location[model.getStateCount()];
+		this.translatedDestinations = new Location[model.getStateCount()];
+		if(model.getInitStateId() >= 0)
+			this.translatedSources[model.getInitStateId()] = this.initLoc;
 		this.initLoc.setType(LocationType.URGENT);
 		this.automaton.setInit(this.initLoc);
 		this.nta.addAutomaton(this.automaton);
@@ -140,28 +144,24 @@ public class UppaalModelChecker extends ModelCheckerAdapter<NTA, String> {
 	}
 
 	@Override
-	public void finishModelGenerator(Model<?> irModel) {
-		for(State s : irModel.getStates()) {
-			Location srcLoc = this.translatedSources.get(s);
-			for(edu.cmu.sv.modelinference.common.model.Transition t : s.getOutgoingTransitions()) {
-				if(!(t instanceof WeightedTransition)) {
-					throw new UppaalModelGeneratorException("Expected weighted transition");
-				}
-				WeightedTransition wt = (WeightedTransition)t;
-				State nextState = t.getDest();
-				Location destLoc = this.translatedDestinations.get(nextState);
+	public void finishModelGenerator(FrozenModel<?> irModel) {
+		for(int s = 0; s < irModel.getStateCount(); s++) {
+			Location srcLoc = this.translatedSources[s];
+			for(int e = irModel.getEdgeStart(s); e < irModel.getEdgeEnd(s); e++) {
+				Location destLoc = this.translatedDestinations[irModel.getDest(e)];
 
 				Transition trans = new Transition(this.automaton, srcLoc, destLoc);
-				trans.setProb(new Probability(wt.getWeight()));
+				trans.setProb(new Probability(irModel.getWeight(e)));
 			}
 		}
 	}
 
 	@Override
-	public <S extends State> void visit(S state) {
+	protected void translateState(FrozenModel<?> model, int id) {
+		State state = model.getState(id);
 		Location branchLoc = new Location(this.automaton);
 		branchLoc.setBranchPointLocation(true);
-		this.translatedSources.put(state, branchLoc);
+		this.translatedSources[id] = branchLoc;
 		Location translatedLoc = new Location(this.automaton, state.toString().replaceAll("[\\s,=]*", ""));
 		translatedLoc.setType(LocationType.URGENT);
 		new Transition(this.automaton, translatedLoc, branchLoc);
@@ -169,17 +169,7 @@ public class UppaalModelChecker extends ModelCheckerAdapter<NTA, String> {
 			new Transition(this.automaton, this.initLoc, translatedLoc);
 			isFirstLocSet = true;
 		}
-		this.translatedDestinations.put(state, translatedLoc);
-	}
-
-	@Override
-	public void visit(edu.cmu.sv.modelinference.common.model.Transition transition) {
-		// TODO Auto-generated method stub
-
-	}
-	@Override
-	public <S extends State> void visit(Model<S> model) {
-		// TODO Auto-generated method stub
+		this.translatedDestinations[id] = translatedLoc;
 	}
 
 	@Override
@@ -15,9 +15,13 @@
  */
 package edu.cmu.sv.modelinference.runner;
 
+import java.io.File;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -31,6 +35,10 @@ import org.slf4j.LoggerFactory;
 
 import edu.cmu.sv.modelinference.common.Util;
 import edu.cmu.sv.modelinference.common.api.LogHandler;
+import edu.cmu.sv.modelinference.common.parser.FollowingLogReader;
+import edu.cmu.sv.modelinference.common.parser.LogReaders;
+import edu.cmu.sv.modelinference.common.parser.MultiLogReader;
+import edu.cmu.sv.modelinference.common.parser.compress.LogStreams;
 import edu.cmu.sv.modelinference.eventtool.charting.Log2EventClass;
 import edu.cmu.sv.modelinference.modeltool.Log2Model;
 import edu.cmu.sv.modelinference.tracestool.Log2Traces;
@@ -58,6 +66,12 @@ public class Main {
   private static final String LOG_FILE_ARG = "input";
   private static final String INPUT_TYPE_ARG = "type";
   private static final String TOOL_TYPE_ARG = "tool";
+  private static final String THREADS_ARG = "threads";
+  private static final String CACHE_ARG = "cache";
+  private static final String PIPELINE_ARG = "pipeline";
+  private static final String FOLLOW_ARG = "follow";
+  private static final String CHECKPOINT_ARG = "checkpoint";
+  private static final String LATENESS_ARG = "lateness";
 
   private static final String HELP_ARG = "help";
   
@@ -76,7 +90,86 @@ public class Main {
     
     String inputType = cmd.getOptionValue(INPUT_TYPE_ARG);
     String tool = cmd.getOptionValue(TOOL_TYPE_ARG);
-    String logFile = cmd.getOptionValue(LOG_FILE_ARG).replaceFirst("^~",System.getProperty("user.home"));
+    String logFile = cmd.getOptionValue(LOG_FILE_ARG).replaceAll("(^|" + Pattern.quote(File.pathSeparator) + ")~",
+        "$1" + Matcher.quoteReplacement(System.getProperty("user.home")));
+    List<File> logs = MultiLogReader.getLogFiles(new File(logFile));
+    if(logs.isEmpty()) {
+      logger.error("No logs found in " + logFile);
+      Util.printHelpAndExit(Main.class, cmdOpts);
+    }
+    boolean multiFile = logs.size() > 1 || new File(logFile).isDirectory();
+    
+    if(cmd.hasOption(THREADS_ARG) || cmd.hasOption(PIPELINE_ARG)) {
+      int threads = 1;
+      try {
+        if(cmd.hasOption(THREADS_ARG))
+          threads = Integer.parseInt(cmd.getOptionValue(THREADS_ARG));
+      } catch(NumberFormatException e) {
+        threads = 0;
+      }
+      if(threads < 1) {
+        logger.error("Invalid number of threads: " + cmd.getOptionValue(THREADS_ARG));
+        Util.printHelpAndExit(Main.class, cmdOpts);
+      }
+      if(cmd.hasOption(PIPELINE_ARG)) {
+        LogReaders.setDefaultFactory(LogReaders.pipelined(threads));
+        logger.info("Reading logs with a pipeline of " + threads + " parser thread(s)");
+      } else {
+        if(threads > 1)
+          LogReaders.setDefaultFactory(LogReaders.parallel(threads));
+        logger.info("Reading logs with " + threads + " thread(s)");
+      }
+    }
+
+    if(cmd.hasOption(FOLLOW_ARG)) {
+      if(multiFile || LogStreams.isCompressed(logs.get(0))) {
+        logger.error("Only a single uncompressed log can be followed");
+        Util.printHelpAndExit(Main.class, cmdOpts);
+      }
+      for(String toolArg : cmd.getArgs()) {
+        if(toolArg.matches("--?(from|to)(=.*)?")) {
+          logger.error("A followed log cannot be read by time window");
+          Util.printHelpAndExit(Main.class, cmdOpts);
+        }
+      }
+      long idleSeconds = -1;
+      try {
+        idleSeconds = Long.parseLong(cmd.getOptionValue(FOLLOW_ARG));
+      } catch(NumberFormatException e) { }
+      if(idleSeconds < 0) {
+        logger.error("Invalid idle timeout: " + cmd.getOptionValue(FOLLOW_ARG));
+        Util.printHelpAndExit(Main.class, cmdOpts);
+      }
+      File checkpoint = null;
+      if(cmd.hasOption(CHECKPOINT_ARG))
+        checkpoint = new File(cmd.getOptionValue(CHECKPOINT_ARG).replaceFirst("^~",System.getProperty("user.home")));
+      LogReaders.setDefaultFactory(LogReaders.following(FollowingLogReader.DEFAULT_POLL_INTERVAL, idleSeconds * 1000, checkpoint));
+      if(cmd.hasOption(CACHE_ARG))
+        logger.warn("Logs are not cached when they are followed");
+      logger.info("Following logs until they have been idle for " + idleSeconds + "s (0 = forever)");
+    } else if(cmd.hasOption(CACHE_ARG)) {
+      String cacheDir = cmd.getOptionValue(CACHE_ARG);
+      File dir = (cacheDir == null) ? null : new File(cacheDir.replaceFirst("^~",System.getProperty("user.home")));
+      LogReaders.setDefaultFactory(LogReaders.cached(LogReaders.getDefaultFactory(), dir));
+    }
+
+    if(multiFile) {
+      LogReaders.setDefaultFactory(LogReaders.multiFile(LogReaders.getDefaultFactory()));
+      logger.info("Reading " + logs.size() + " logs, merged on log time");
+    }
+
+    if(cmd.hasOption(LATENESS_ARG)) {
+      double lateness = -1;
+      try {
+        lateness = Double.parseDouble(cmd.getOptionValue(LATENESS_ARG));
+      } catch(NumberFormatException e) { }
+      if(!(lateness >= 0)) {
+        logger.error("Invalid lateness: " + cmd.getOptionValue(LATENESS_ARG));
+        Util.printHelpAndExit(Main.class, cmdOpts);
+      }
+      LogReaders.setDefaultFactory(LogReaders.reordered(LogReaders.getDefaultFactory(), lateness));
+      logger.info("Putting entries in time order that arrive up to " + lateness + " (log time) late");
+    }
 
     LogHandler<?> logHandler = null;
     boolean found = false;
@@ -119,7 +212,8 @@ public class Main {
     Option input = Option.builder(LOG_FILE_ARG)
                           .argName("File")
                           .hasArg()
-                          .desc("Specify input log file.")
+                          .desc("Specify input log file, a directory of logs, or several logs separated by '"
+                              + File.pathSeparator + "'.")
                           .required()
                           .build();
     
@@ -130,7 +224,53 @@ public class Main {
         .desc("Specify which tool to use")
         .build();
 
+    Option threads = Option.builder(THREADS_ARG)
+        .argName("number")
+        .hasArg()
+        .desc("Number of threads used for parsing the log. Default is 1 (sequential reading)")
+        .build();
+
+    Option pipeline = Option.builder(PIPELINE_ARG)
+        .desc("Stream the log through separate I/O, parsing and processing stages. "
+            + "The number of parser threads is given by -" + THREADS_ARG)
+        .build();
+
+    Option follow = Option.builder(FOLLOW_ARG)
+        .argName("seconds")
+        .hasArg()
+        .desc("Keep reading the log while it is being written until no data has been appended "
+            + "for the given number of seconds (0 to follow it until the process is stopped)")
+        .build();
+
+    Option checkpoint = Option.builder(CHECKPOINT_ARG)
+        .argName("file")
+        .hasArg()
+        .desc("With -" + FOLLOW_ARG + ", save the read offset in the file and resume from it on the next run")
+        .build();
+
+    Option cache = Option.builder(CACHE_ARG)
+        .argName("dir")
+        .hasArg()
+        .optionalArg(true)
+        .desc("Cache the parsed log in a binary file next to the log (or in dir). "
+            + "Later runs on the unchanged log read the cache instead of parsing it")
+        .build();
+
+    Option lateness = Option.builder(LATENESS_ARG)
+        .argName("time")
+        .hasArg()
+        .desc("Put entries that are logged out of order in time order before they are processed. "
+            + "Entries may arrive up to the given log time later than entries with a later time; "
+            + "entries arriving even later are dropped and counted")
+        .build();
+
     options.addOption(help);
+    options.addOption(threads);
+    options.addOption(pipeline);
+    options.addOption(follow);
+    options.addOption(checkpoint);
+    options.addOption(cache);
+    options.addOption(lateness);
     options.addOption(toolOpts);
     options.addOption(input);
     options.addOption(inputType);
@@ -43,6 +43,8 @@ import edu.cmu.sv.modelinference.tracestool.trace.TimedTrace;
 public class Log2Traces implements LogHandler<Void> {
   private static final String HELP_ARG = "help";
   private static final String OUTPUT_ARG = "o";
+  private static final String FROM_ARG = "from";
+  private static final String TO_ARG = "to";
   
   private static final Logger logger = LoggerFactory.getLogger(Log2Traces.class.getName());
       
@@ -78,8 +80,15 @@ public class Log2Traces implements LogHandler<Void> {
                                 .required()
                                 .build();
 
+    Option from = Option.builder(FROM_ARG).argName("time").hasArg()
+        .desc("Only use entries logged at or after the time").build();
+    Option to = Option.builder(TO_ARG).argName("time").hasArg()
+        .desc("Only use entries logged at or before the time").build();
+
     options.addOption(help);
     options.addOption(output);
+    options.addOption(from);
+    options.addOption(to);
     return options;
   }
 
@@ -94,6 +103,7 @@ public class Log2Traces implements LogHandler<Void> {
     CommandLine cmd = null;
     try {
       cmd = parser.parse(cmdOpts, additionalCmdArgs, true);
+      Util.setTimeWindow(cmd, FROM_ARG, TO_ARG);
     } catch(ParseException exp) {
       logger.error(exp.getMessage());
       System.err.println(exp.getMessage());
@@ -36,13 +36,15 @@ import edu.cmu.sv.modelinference.common.formats.st.GridState;
 import edu.cmu.sv.modelinference.common.formats.st.STConfig;
 import edu.cmu.sv.modelinference.common.formats.st.STConfig.GridPartitions;
 import edu.cmu.sv.modelinference.common.formats.st.STEntry;
+import edu.cmu.sv.modelinference.common.formats.st.STEntryCodec;
 import edu.cmu.sv.modelinference.common.formats.st.STGridStateFactory;
-import edu.cmu.sv.modelinference.common.formats.st.STParser;
+import edu.cmu.sv.modelinference.common.formats.st.FastSTParser;
 import edu.cmu.sv.modelinference.common.formats.st.util.GridDimensionsFinder;
 import edu.cmu.sv.modelinference.common.formats.st.util.GridDimensionsFinder.Dimensions;
 import edu.cmu.sv.modelinference.common.generators.LogEntryFilter;
 import edu.cmu.sv.modelinference.common.parser.LogReader;
-import edu.cmu.sv.modelinference.common.parser.SequentialLogReader;
+import edu.cmu.sv.modelinference.common.parser.LogReaders;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryBuffer;
 import edu.cmu.sv.modelinference.tracestool.trace.TimedTrace;
 import edu.cmu.sv.modelinference.tracestool.trace.TraceGenerator;
 
@@ -54,6 +56,7 @@ public class STLog2TracesHandler implements LogHandler<Collection<TimedTrace<Gri
   public static final Logger logger = LoggerFactory.getLogger(STLog2TracesHandler.class);
   
   private static final String GRID_DIM = "dim";
+  private static final String BOUNDS = "bounds";
   
   private static STLog2TracesHandler instance = null;
   
@@ -76,7 +79,11 @@ public class STLog2TracesHandler implements LogHandler<Collection<TimedTrace<Gri
     Option addOpts = Option.builder(GRID_DIM).argName("Grid Dimensions").hasArg()
           .desc("Dimensions of the grid projected on the airfield. Format: NUMxNUM.").build();
     
+    Option boundsOpts = Option.builder(BOUNDS).argName("minX,minY,maxX,maxY").hasArg()
+          .desc("Bounds of the airfield. If omitted, they are determined from the log.").build();
+    
     options.addOption(addOpts);
+    options.addOption(boundsOpts);
     return options;
   }
 
@@ -110,17 +117,14 @@ public class STLog2TracesHandler implements LogHandler<Collection<TimedTrace<Gri
     
     LogEntryFilter<STEntry> filter = LogEntryFilter.<STEntry>EVERYTHING();
     
-    LogReader<STEntry> reader = new SequentialLogReader<>(new STParser(), filter);
-    GridDimensionsFinder d;
-    try {
-      d = new GridDimensionsFinder();
-    } catch (IOException e) {
-      throw new LogProcessingException(e);
-    }
+    EntryBuffer<STEntry> entries = new EntryBuffer<>(STEntryCodec.getInstance());
     Dimensions dim;
     try {
-      dim = d.start(new File(logFile));
-    } catch (IOException e) {
+      if(cmd.hasOption(BOUNDS))
+        dim = STConfig.extractBounds(cmd.getOptionValue(BOUNDS));
+      else //Buffer the entries while finding the dimensions so the log is only read once
+        dim = new GridDimensionsFinder().start(new File(logFile), entries);
+    } catch (IOException | ParseException e) {
       throw new LogProcessingException(e);
     }
     STGridStateFactory stateGen = new STGridStateFactory(
@@ -129,12 +133,17 @@ public class STLog2TracesHandler implements LogHandler<Collection<TimedTrace<Gri
         parts.horiz, 
         parts.vert);
     
-    TraceGenerator<STEntry, GridState> traceGenerator = new TraceGenerator<>(reader, stateGen);
     Collection<TimedTrace<GridState>> traces;
-    try {
-      traces = traceGenerator.computeTraces(new File(logFile));
-    } catch (IOException e) {
-      throw new LogProcessingException(e);
+    if(!entries.isEmpty()) {
+      traces = new TraceGenerator<STEntry, GridState>(stateGen).computeTraces(entries);
+    } else {
+      LogReader<STEntry> reader = LogReaders.create(new FastSTParser(), filter);
+      TraceGenerator<STEntry, GridState> traceGenerator = new TraceGenerator<>(reader, stateGen);
+      try {
+        traces = traceGenerator.computeTraces(new File(logFile));
+      } catch (IOException e) {
+        throw new LogProcessingException(e);
+      }
     }
     
     return traces;
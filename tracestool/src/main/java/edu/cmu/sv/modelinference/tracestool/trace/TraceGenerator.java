@@ -17,24 +17,38 @@ package edu.cmu.sv.modelinference.tracestool.trace;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 
 import edu.cmu.sv.modelinference.common.generators.LogEntry;
-import edu.cmu.sv.modelinference.common.generators.LogProcessor;
+import edu.cmu.sv.modelinference.common.generators.ProducerOrderedLogProcessor;
 import edu.cmu.sv.modelinference.common.model.State;
 import edu.cmu.sv.modelinference.common.model.StateFactory;
 import edu.cmu.sv.modelinference.common.parser.LogReader;
+import edu.cmu.sv.modelinference.common.parser.cache.EntryBuffer;
 
 /**
  * @author Kasper Luckow
+ * The trace of a producer only depends on the entries of that producer, so readers may
+ * process several producers concurrently (see {@link ProducerOrderedLogProcessor}); the
+ * state factory must then be thread safe. Entries without a producer index are not read
+ * by a reader and must be processed on a single thread.
  */
-public class TraceGenerator<T extends LogEntry, S extends State> implements LogProcessor<T> {
+public class TraceGenerator<T extends LogEntry, S extends State> implements ProducerOrderedLogProcessor<T> {
 
   private StateFactory<T, S> stateGenerator;
   private LogReader<T> logReader;
   private Map<String, TimedTrace<S>> id2traces = new HashMap<>();
+  //Indexed by the producer index of the entries (see LogEntry#getLogProducerIndex()).
+  //Replaced as a whole when a producer is added, so it can be read without locking
+  private volatile List<TimedTrace<S>> indexedTraces = new ArrayList<>();
+  //Thread that added the last producer, and whether producers were added on several threads
+  private Thread creator = null;
+  private boolean concurrentlyCreated = false;
   
   public TraceGenerator(LogReader<T> logReader, StateFactory<T, S> stateGenerator) {
     this.stateGenerator = stateGenerator;
@@ -42,22 +56,44 @@ public class TraceGenerator<T extends LogEntry, S extends State> implements LogP
     this.logReader.addLogProcessor(this);
   }
   
+  /**
+   * Generator for entries that have already been read (see {@link #computeTraces(EntryBuffer)})
+   */
+  public TraceGenerator(StateFactory<T, S> stateGenerator) {
+    this.stateGenerator = stateGenerator;
+    this.logReader = null;
+  }
+  
   public Collection<TimedTrace<S>> computeTraces(File logFile) throws IOException {
+    if(this.logReader == null)
+      throw new IllegalStateException("Generator has no log reader");
     this.logReader.parseLog(logFile);
+    this.creator = null;
+    if(concurrentlyCreated)
+      reorderTraces();
     return this.id2traces.values();    
   }
+
+  public Collection<TimedTrace<S>> computeTraces(EntryBuffer<T> entries) {
+    entries.replay(this);
+    return this.id2traces.values();
+  }
   
   @Override
   public void process(T entry) {
     double currTime = entry.getLogTime();
-    String id = entry.getLogProducerId();
-    TimedTrace<S> trace = id2traces.get(id);
-    if(trace == null) { // first time this producer id has been encountered
-      trace = new TimedTrace<>(id);
-      id2traces.put(id, trace);
-      TimedState<S> state = new TimedState<>(stateGenerator.generateState(null, entry), currTime);
-      trace.addState(state);
-      return;
+    int index = entry.getLogProducerIndex();
+    List<TimedTrace<S>> traces = this.indexedTraces;
+    TimedTrace<S> trace = (index >= 0 && index < traces.size()) ? traces.get(index) : null;
+    if(trace == null) {
+      if(index >= 0) {
+        synchronized(this) {
+          trace = findTrace(entry, currTime);
+        }
+      } else
+        trace = findTrace(entry, currTime);
+      if(trace == null) //First entry of the producer
+        return;
     }
     
     TimedState<S> currState = trace.getLast();
@@ -73,4 +109,58 @@ public class TraceGenerator<T extends LogEntry, S extends State> implements LogP
       currState.addTimeStamp(currTime);
     }
   }
+
+  /**
+   * Looks up the trace of the producer of the entry and indexes it, or creates it with the
+   * first state of the producer
+   * @return the trace, or null if it was created
+   */
+  private TimedTrace<S> findTrace(T entry, double currTime) {
+    String id = entry.getLogProducerId();
+    TimedTrace<S> trace = id2traces.get(id);
+    if(trace == null) { // first time this producer id has been encountered
+      trace = new TimedTrace<>(id);
+      id2traces.put(id, trace);
+      TimedState<S> state = new TimedState<>(stateGenerator.generateState(null, entry), currTime);
+      trace.addState(state);
+      if(creator != null && creator != Thread.currentThread())
+        concurrentlyCreated = true;
+      creator = Thread.currentThread();
+      index(entry.getLogProducerIndex(), trace);
+      return null;
+    }
+    index(entry.getLogProducerIndex(), trace);
+    return trace;
+  }
+
+  private void index(int index, TimedTrace<S> trace) {
+    if(index < 0) //Not read by a reader
+      return;
+    List<TimedTrace<S>> traces = new ArrayList<>(this.indexedTraces);
+    while(traces.size() <= index)
+      traces.add(null);
+    traces.set(index, trace);
+    this.indexedTraces = traces;
+  }
+
+  //The traces of producers found on several threads were added in an arbitrary order.
+  //The reader indexes the producers in order of first occurrence, so adding the traces in
+  //index order yields the map of a sequential run
+  private synchronized void reorderTraces() {
+    Map<TimedTrace<S>, String> ids = new IdentityHashMap<>();
+    for(Map.Entry<String, TimedTrace<S>> e : id2traces.entrySet())
+      ids.put(e.getValue(), e.getKey());
+    Map<String, TimedTrace<S>> ordered = new HashMap<>();
+    //Traces of producers without an index (see computeTraces(EntryBuffer)) come first
+    for(Map.Entry<String, TimedTrace<S>> e : id2traces.entrySet()) {
+      if(!indexedTraces.contains(e.getValue()))
+        ordered.put(e.getKey(), e.getValue());
+    }
+    for(TimedTrace<S> trace : indexedTraces) {
+      if(trace != null)
+        ordered.put(ids.get(trace), trace);
+    }
+    this.id2traces = ordered;
+    this.concurrentlyCreated = false;
+  }
 }